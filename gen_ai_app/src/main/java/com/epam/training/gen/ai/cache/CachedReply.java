@@ -0,0 +1,12 @@
+package com.epam.training.gen.ai.cache;
+
+import java.util.List;
+
+/**
+ * Completion stored in the {@link ResponseCache}.
+ *
+ * @param contents the contents of the messages produced by the model
+ * @param servedBy the deployment that produced them
+ */
+public record CachedReply(List<String> contents, String servedBy) {
+}
@@ -0,0 +1,214 @@
+package com.epam.training.gen.ai.cache;
+
+import com.epam.training.gen.ai.config.ResponseCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.microsoft.semantickernel.Kernel;
+import com.microsoft.semantickernel.orchestration.InvocationContext;
+import com.microsoft.semantickernel.orchestration.PromptExecutionSettings;
+import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Exact-match cache of model completions.
+ * <p>
+ * Entries are keyed by a SHA-256 hash over the canonical form of everything that determines the
+ * completion: the deployment, the rendered prompt or chat history, the execution settings and the
+ * names of the tools the model may call. Every part is length-prefixed, so different inputs cannot
+ * produce the same key material.
+ * <p>
+ * The cache is opt-in ({@code response-cache.enabled}). By default only deterministic requests
+ * (temperature 0) are cached. Requests that offer tools are never cached: the tools have side effects
+ * and their results change, so replaying an answer would skip the call and could report a stale result. Eviction is Caffeine's W-TinyLFU, bounded by the approximate heap size
+ * of the cached text ({@code response-cache.max-size}); entries optionally expire after
+ * {@code response-cache.ttl}. Hits, misses and evictions are exported as {@code genai.response}
+ * cache metrics.
+ */
+@Component
+public class ResponseCache {
+
+    /**
+     * Approximate fixed heap cost of an entry: the key string, the record, the list and the
+     * Caffeine node.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private final ResponseCacheProperties responseCacheProperties;
+    private final Cache<String, CachedReply> cache;
+
+    public ResponseCache(ResponseCacheProperties responseCacheProperties, MeterRegistry meterRegistry) {
+        this.responseCacheProperties = responseCacheProperties;
+        Caffeine<String, CachedReply> builder = Caffeine.newBuilder()
+                .maximumWeight(responseCacheProperties.getMaxSize().toBytes())
+                .<String, CachedReply>weigher(ResponseCache::weigh)
+                .recordStats();
+        if (responseCacheProperties.getTtl() != null) {
+            builder.expireAfterWrite(responseCacheProperties.getTtl());
+        }
+        this.cache = CaffeineCacheMetrics.monitor(meterRegistry, builder.build(), "genai.response");
+    }
+
+    /**
+     * Tells whether a request may be served from and stored in the cache.
+     *
+     * @param settings          the execution settings of the request
+     * @param invocationContext the invocation context of the request, or {@code null}; a tool call
+     *                          behavior means the model may call tools, which must run on every turn
+     * @param bypassCache       whether the caller asked to bypass the cache
+     * @return {@code true} if the cache is enabled, not bypassed and the request qualifies
+     */
+    public boolean isCacheable(PromptExecutionSettings settings, InvocationContext invocationContext,
+                               boolean bypassCache) {
+        return responseCacheProperties.isEnabled()
+                && !bypassCache
+                && (!responseCacheProperties.isDeterministicOnly() || settings != null && settings.getTemperature() == 0)
+                && (invocationContext == null || invocationContext.getToolCallBehavior() == null);
+    }
+
+    /**
+     * Returns the cached reply for the key, or loads and caches it.
+     *
+     * @param key  the key built by {@link #key}
+     * @param load creates the call producing the reply on a miss
+     * @return a {@link Mono} emitting the cached or loaded reply
+     */
+    public Mono<CachedReply> get(String key, Supplier<Mono<CachedReply>> load) {
+        CachedReply cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return Mono.defer(load).doOnNext(reply -> cache.put(key, reply));
+    }
+
+    /**
+     * Returns the cached reply for the key.
+     *
+     * @param key the key built by {@link #key}
+     * @return the cached reply, or empty on a miss
+     */
+    public Optional<CachedReply> getIfPresent(String key) {
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    /**
+     * Stores a reply.
+     *
+     * @param key   the key built by {@link #key}
+     * @param reply the reply
+     */
+    public void put(String key, CachedReply reply) {
+        cache.put(key, reply);
+    }
+
+    /**
+     * Builds the key of a chat completion request.
+     *
+     * @param modelId  the deployment id
+     * @param messages the chat history sent to the model
+     * @param settings the execution settings, may be {@code null}
+     * @param kernel   the kernel whose functions are offered as tools, or {@code null} if no tools are offered
+     * @return the hex-encoded SHA-256 key
+     */
+    public static String key(String modelId, List<? extends ChatMessageContent<?>> messages,
+                             PromptExecutionSettings settings, Kernel kernel) {
+        KeyBuilder key = new KeyBuilder().add("chat").add(modelId).add(messages.size());
+        for (ChatMessageContent<?> message : messages) {
+            key.add(message.getAuthorRole()).add(message.getContent());
+        }
+        return key.add(settings).add(kernel).hash();
+    }
+
+    /**
+     * Builds the key of a rendered prompt.
+     *
+     * @param modelId  the deployment id
+     * @param template the prompt template
+     * @param prompt   the text rendered into the template
+     * @param settings the execution settings, may be {@code null}
+     * @param kernel   the kernel whose functions are offered as tools, or {@code null} if no tools are offered
+     * @return the hex-encoded SHA-256 key
+     */
+    public static String key(String modelId, String template, String prompt,
+                             PromptExecutionSettings settings, Kernel kernel) {
+        return new KeyBuilder().add("prompt").add(modelId).add(template).add(prompt)
+                .add(settings).add(kernel).hash();
+    }
+
+    private static int weigh(String key, CachedReply reply) {
+        long chars = key.length() + (reply.servedBy() == null ? 0 : reply.servedBy().length());
+        for (String content : reply.contents()) {
+            chars += content == null ? 0 : content.length();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, ENTRY_OVERHEAD_BYTES + 2 * chars);
+    }
+
+    private static final class KeyBuilder {
+        private final MessageDigest digest;
+
+        private KeyBuilder() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        private KeyBuilder add(Object part) {
+            if (part == null) {
+                digest.update(ByteBuffer.allocate(4).putInt(-1).array());
+                return this;
+            }
+            byte[] bytes = String.valueOf(part).getBytes(StandardCharsets.UTF_8);
+            digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+            digest.update(bytes);
+            return this;
+        }
+
+        private KeyBuilder add(PromptExecutionSettings settings) {
+            if (settings == null) {
+                return add((Object) null);
+            }
+            return add(settings.getTemperature())
+                    .add(settings.getTopP())
+                    .add(settings.getPresencePenalty())
+                    .add(settings.getFrequencyPenalty())
+                    .add(settings.getMaxTokens())
+                    .add(settings.getResultsPerPrompt())
+                    .add(settings.getStopSequences())
+                    .add(settings.getTokenSelectionBiases() == null ? null : new TreeMap<>(settings.getTokenSelectionBiases()));
+        }
+
+        private KeyBuilder add(Kernel kernel) {
+            if (kernel == null) {
+                return add((Object) null);
+            }
+            TreeMap<String, String> tools = new TreeMap<>();
+            kernel.getPlugins().forEach(plugin -> plugin.getFunctions().values().forEach(function ->
+                    tools.put(plugin.getName() + "." + function.getName(), String.valueOf(function.getDescription()))));
+            return add(tools.size()).addAll(tools);
+        }
+
+        private KeyBuilder addAll(Map<String, String> parts) {
+            parts.forEach((name, description) -> add(name).add(description));
+            return this;
+        }
+
+        private String hash() {
+            return HexFormat.of().formatHex(digest.digest());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.epam.training.gen.ai.cache;
+
+import com.epam.training.gen.ai.config.SemanticCacheProperties;
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.epam.training.gen.ai.service.EmbeddingService;
+import com.epam.training.gen.ai.service.InMemoryVectorStoreService;
+import com.epam.training.gen.ai.service.QdrantVectorStoreService;
+import com.epam.training.gen.ai.service.VectorStoreService;
+import com.epam.training.gen.ai.startup.Readiness;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.semantickernel.orchestration.InvocationContext;
+import com.microsoft.semantickernel.orchestration.PromptExecutionSettings;
+import com.microsoft.semantickernel.services.chatcompletion.AuthorRole;
+import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.qdrant.client.QdrantClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Answer cache that matches prompts by meaning instead of by exact text.
+ * <p>
+ * The prompt is embedded with the {@link EmbeddingService} and looked up in a dedicated vector
+ * index: an {@link InMemoryVectorStoreService} by default, or a separate Qdrant collection with
+ * {@code semantic-cache.store: QDRANT}. When the closest prompt answered by the same deployment has a
+ * cosine similarity of at least the deployment's threshold ({@code semantic-cache.thresholds}, falling
+ * back to {@code semantic-cache.default-threshold}), its stored answer is returned. Otherwise the
+ * model is called and the answer is added to the index.
+ * <p>
+ * Lookups are counted in {@code genai.semantic_cache.lookups} (tagged {@code result=hit|miss}) and
+ * the best similarity of every lookup, in percent, is recorded in
+ * {@code genai.semantic_cache.similarity}, so the threshold can be tuned from the distribution.
+ * Failures of the cache itself never fail the request; the model is called instead. A Qdrant
+ * collection is created in the background, and the cache is bypassed until it exists.
+ * <p>
+ * The key is the prompt alone, so only requests whose answer depends on nothing else are cached:
+ * the first turn of a conversation, without tools the model could call, and sampled at a
+ * temperature of at most {@code semantic-cache.max-temperature}.
+ */
+@Slf4j
+@Component
+public class SemanticCache {
+
+    private static final String MODEL_KEY = "model";
+    private static final String ANSWER_KEY = "answer";
+    private static final String SERVED_BY_KEY = "servedBy";
+
+    private final SemanticCacheProperties semanticCacheProperties;
+    private final EmbeddingService embeddingService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Readiness readiness;
+    private final VectorStoreService store;
+
+    public SemanticCache(SemanticCacheProperties semanticCacheProperties, EmbeddingService embeddingService,
+                         QdrantClient qdrantClient, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                         Readiness readiness) {
+        this.semanticCacheProperties = semanticCacheProperties;
+        this.readiness = readiness;
+        this.embeddingService = embeddingService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        if (semanticCacheProperties.isEnabled() && semanticCacheProperties.getStore() == SemanticCacheProperties.Store.QDRANT) {
+            QdrantVectorStoreService qdrantStore = new QdrantVectorStoreService(qdrantClient, semanticCacheProperties.getCollectionName());
+            readiness.track(Readiness.SEMANTIC_CACHE, qdrantStore.ensureCollection())
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .subscribe();
+            this.store = qdrantStore;
+        } else {
+            this.store = new InMemoryVectorStoreService(semanticCacheProperties.getMaxEntries());
+        }
+    }
+
+    /**
+     * Tells whether a request may be served from and stored in the semantic cache.
+     *
+     * @param settings          the execution settings of the request, or {@code null}
+     * @param earlierTurns      the conversation before the prompt; any user, assistant or tool
+     *                          message makes the answer depend on more than the prompt
+     * @param invocationContext the invocation context of the request, or {@code null}; a tool call
+     *                          behavior means the answer may depend on what the tools return
+     * @param bypassCache       whether the caller asked to bypass caches
+     * @return {@code true} if the cache is enabled, ready, not bypassed and the request qualifies
+     */
+    public boolean isCacheable(PromptExecutionSettings settings, ChatHistory earlierTurns,
+                               InvocationContext invocationContext, boolean bypassCache) {
+        return semanticCacheProperties.isEnabled()
+                && !bypassCache
+                && readiness.isReady(Readiness.SEMANTIC_CACHE)
+                && (settings == null || settings.getTemperature() <= semanticCacheProperties.getMaxTemperature())
+                && (earlierTurns == null || earlierTurns.getMessages().stream()
+                .allMatch(message -> message.getAuthorRole() == AuthorRole.SYSTEM))
+                && (invocationContext == null || invocationContext.getToolCallBehavior() == null);
+    }
+
+    /**
+     * Returns the stored answer of a sufficiently similar prompt, or loads and stores the answer.
+     *
+     * @param modelId the deployment the prompt is sent to; answers are only shared within a deployment
+     * @param prompt  the user prompt
+     * @param load    creates the call producing the answer on a miss
+     * @return a {@link Mono} emitting the cached or loaded answer
+     */
+    public Mono<CachedReply> get(String modelId, String prompt, Supplier<Mono<CachedReply>> load) {
+        return embeddingService.getEmbeddings(prompt, semanticCacheProperties.getEmbeddingModel())
+                .map(Optional::of)
+                .onErrorResume(e -> {
+                    log.warn("Semantic cache lookup skipped, embedding failed: {}", e.toString());
+                    return Mono.just(Optional.empty());
+                })
+                .flatMap(embedding -> embedding.isEmpty()
+                        ? Mono.defer(load)
+                        : lookup(modelId, embedding.get())
+                        .switchIfEmpty(Mono.defer(load)
+                                .doOnNext(reply -> store(modelId, prompt, embedding.get(), reply))));
+    }
+
+    private Mono<CachedReply> lookup(String modelId, List<Float> embedding) {
+        double threshold = semanticCacheProperties.getThresholds()
+                .getOrDefault(modelId, semanticCacheProperties.getDefaultThreshold());
+        return store.searchWithScores(embedding, 1, SearchFilter.matching(Map.of(MODEL_KEY, modelId)))
+                .flatMap(matches -> {
+                    Optional<CachedReply> hit = matches.stream().findFirst()
+                            .filter(match -> {
+                                similarity(modelId).record(match.getScore());
+                                return match.getScore() >= threshold;
+                            })
+                            .flatMap(match -> decode(match.getPayload()));
+                    meterRegistry.counter("genai.semantic_cache.lookups",
+                            "model", modelId, "result", hit.isPresent() ? "hit" : "miss").increment();
+                    return Mono.justOrEmpty(hit);
+                })
+                .onErrorResume(e -> {
+                    log.warn("Semantic cache lookup failed: {}", e.toString());
+                    return Mono.empty();
+                });
+    }
+
+    private void store(String modelId, String prompt, List<Float> embedding, CachedReply reply) {
+        try {
+            Map<String, String> payload = Map.of(
+                    MODEL_KEY, modelId,
+                    ANSWER_KEY, objectMapper.writeValueAsString(reply.contents()),
+                    SERVED_BY_KEY, String.valueOf(reply.servedBy()));
+            store.upsert(prompt, embedding, payload).subscribe(
+                    null, e -> log.warn("Semantic cache store failed: {}", e.toString()));
+        } catch (JsonProcessingException e) {
+            log.warn("Semantic cache store failed: {}", e.toString());
+        }
+    }
+
+    private Optional<CachedReply> decode(Map<String, String> payload) {
+        try {
+            List<String> contents = objectMapper.readValue(payload.get(ANSWER_KEY), new TypeReference<>() {
+            });
+            return Optional.of(new CachedReply(contents, payload.get(SERVED_BY_KEY)));
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.warn("Ignoring unreadable semantic cache entry: {}", e.toString());
+            return Optional.empty();
+        }
+    }
+
+    private DistributionSummary similarity(String modelId) {
+        return DistributionSummary.builder("genai.semantic_cache.similarity")
+                .baseUnit("percent")
+                .scale(100)
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .tag("model", modelId)
+                .register(meterRegistry);
+    }
+}
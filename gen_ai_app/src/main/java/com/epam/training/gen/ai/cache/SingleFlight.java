@@ -0,0 +1,94 @@
+package com.epam.training.gen.ai.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.text.Normalizer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Coalesces concurrent identical calls into a single in-flight call.
+ * <p>
+ * The first caller for a key (the leader) starts the call; every caller that arrives with the same
+ * key while the call is still running subscribes to the same cached {@link Mono} and receives the
+ * same result or error. The entry is removed as soon as the call terminates, so this is not a
+ * cache: later callers start a fresh call.
+ * <p>
+ * Leaders and coalesced callers are counted in {@code genai.singleflight.calls} and the number of
+ * in-flight keys is exposed as {@code genai.singleflight.inflight}, both tagged with the name.
+ *
+ * @param <T> the result type
+ */
+public class SingleFlight<T> {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final boolean enabled;
+    private final Map<String, Mono<T>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter coalesced;
+
+    /**
+     * Creates a single-flight group.
+     *
+     * @param name          the name used as the {@code name} tag of the metrics
+     * @param enabled       whether calls are coalesced; if {@code false} every call runs on its own
+     * @param meterRegistry the registry the metrics are published to
+     */
+    public SingleFlight(String name, boolean enabled, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.leaders = meterRegistry.counter("genai.singleflight.calls", "name", name, "role", "leader");
+        this.coalesced = meterRegistry.counter("genai.singleflight.calls", "name", name, "role", "coalesced");
+        Gauge.builder("genai.singleflight.inflight", inFlight, Map::size)
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the call, or joins the identical call that is already in flight.
+     *
+     * @param key  the key identifying identical calls, see {@link #key(Object...)}
+     * @param call creates the call; only invoked by the leader
+     * @return a {@link Mono} emitting the shared result
+     */
+    public Mono<T> execute(String key, Supplier<Mono<T>> call) {
+        if (!enabled) {
+            return Mono.defer(call);
+        }
+        return Mono.defer(() -> {
+            boolean[] leader = {false};
+            Mono<T> shared = inFlight.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                return Mono.defer(call)
+                        .doFinally(signal -> inFlight.remove(k))
+                        .cache();
+            });
+            (leader[0] ? leaders : coalesced).increment();
+            return shared;
+        });
+    }
+
+    /**
+     * Builds a key from the given parts. Strings are normalized (Unicode NFC, trimmed, runs of
+     * whitespace collapsed to a single space), so requests that differ only in formatting share a call.
+     *
+     * @param parts the parts identifying the call, e.g. model, input and settings
+     * @return the key
+     */
+    public static String key(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : parts) {
+            String value = String.valueOf(part);
+            if (part instanceof CharSequence) {
+                value = WHITESPACE.matcher(Normalizer.normalize(value, Normalizer.Form.NFC).strip()).replaceAll(" ");
+            }
+            key.append(value.length()).append(':').append(value).append('|');
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,17 @@
+package com.epam.training.gen.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "vector.chunk-text")
+public class ChunkTextStoreProperties {
+    boolean enabled = false;
+    String path = System.getProperty("user.home") + "/.genai/chunk-text";
+    DataSize segmentSize = DataSize.ofMegabytes(64);
+    DataSize compressionThreshold = DataSize.ofBytes(256);
+    int compressionLevel = 6;
+}
@@ -0,0 +1,27 @@
+package com.epam.training.gen.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "circuit-breaker")
+public class CircuitBreakerProperties {
+    boolean enabled = true;
+    int slidingWindowSize = 20;
+    int minimumCalls = 10;
+    double failureRateThreshold = 0.5;
+    Duration slowCallDuration = Duration.ofSeconds(20);
+    Duration callTimeout = Duration.ofSeconds(30);
+    Duration openDuration = Duration.ofSeconds(30);
+    int halfOpenProbes = 3;
+    boolean vendorFallback = true;
+    int maxFallbacks = 2;
+    Map<String, List<String>> fallbacks = new HashMap<>();
+}
@@ -0,0 +1,36 @@
+package com.epam.training.gen.ai.config;
+
+import com.epam.training.gen.ai.cache.SingleFlight;
+import com.epam.training.gen.ai.resilience.Served;
+import com.microsoft.semantickernel.orchestration.FunctionResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Configuration of the single-flight groups that coalesce identical concurrent model calls.
+ */
+@Configuration
+public class CoalescingConfiguration {
+
+    /**
+     * Coalesces identical concurrent embedding requests (same model and normalized input).
+     */
+    @Bean
+    public SingleFlight<List<Float>> embeddingSingleFlight(@Value("${coalescing.embeddings:true}") boolean enabled,
+                                                           MeterRegistry meterRegistry) {
+        return new SingleFlight<>("embeddings", enabled, meterRegistry);
+    }
+
+    /**
+     * Coalesces identical concurrent temperature-0 chat requests (same model, prompt and settings).
+     */
+    @Bean
+    public SingleFlight<Served<FunctionResult<String>>> chatSingleFlight(@Value("${coalescing.chat:true}") boolean enabled,
+                                                                         MeterRegistry meterRegistry) {
+        return new SingleFlight<>("chat", enabled, meterRegistry);
+    }
+}
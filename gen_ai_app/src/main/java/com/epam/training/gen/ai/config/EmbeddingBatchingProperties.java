@@ -0,0 +1,16 @@
+package com.epam.training.gen.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "embedding.batching")
+public class EmbeddingBatchingProperties {
+    boolean enabled = true;
+    Duration window = Duration.ofMillis(5);
+    int maxItems = 64;
+}
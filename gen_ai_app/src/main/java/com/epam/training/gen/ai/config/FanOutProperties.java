@@ -0,0 +1,15 @@
+package com.epam.training.gen.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "chat.fanout")
+public class FanOutProperties {
+    Duration perModelTimeout = Duration.ofSeconds(30);
+    int maxModels = 5;
+}
@@ -1,18 +1,58 @@
 package com.epam.training.gen.ai.config;
 
-import org.springframework.beans.factory.annotation.Value;
+import io.netty.channel.ChannelOption;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
-import java.net.http.HttpClient;
-
+/**
+ * Outbound HTTP transport shared by every client of the application.
+ * <p>
+ * The OpenAI client and the {@link org.springframework.web.client.RestTemplate} both run on the
+ * Reactor Netty {@link HttpClient} defined here, so they share one connection pool sized and timed by
+ * {@code http-client.*}. Connections are kept alive and reused until idle for {@code max-idle-time};
+ * the read and write timeouts are applied per request by the clients built on top of it. HTTP/2 is
+ * negotiated on https endpoints when {@code http-client.http2} is set, multiplexing concurrent
+ * requests to the proxy over few connections. With
+ * {@code http-client.metrics}, pool usage and request latencies are exported per remote host as the
+ * {@code reactor.netty.connection.provider.*} and {@code reactor.netty.http.client.*} meters.
+ */
 @Configuration
 public class HTTPClientConfiguration {
 
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider connectionProvider(HttpClientProperties httpClientProperties) {
+        return ConnectionProvider.builder("genai")
+                .maxConnections(httpClientProperties.getMaxConnections())
+                .pendingAcquireMaxCount(httpClientProperties.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(httpClientProperties.getPendingAcquireTimeout())
+                .maxIdleTime(httpClientProperties.getMaxIdleTime())
+                .maxLifeTime(httpClientProperties.getMaxLifeTime())
+                .evictInBackground(httpClientProperties.getEvictionInterval())
+                .metrics(httpClientProperties.isMetrics())
+                .build();
+    }
+
     @Bean
-    public HttpClient httpClient(@Value("${client.openai.key}") String openaiKey,
-                                 @Value("${client.openai.endpoint}") String openaiEndpoint){
-        return HttpClient.newHttpClient();
+    public HttpClient httpClient(ConnectionProvider connectionProvider, HttpClientProperties httpClientProperties) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .keepAlive(true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) httpClientProperties.getConnectTimeout().toMillis())
+                .responseTimeout(httpClientProperties.getResponseTimeout())
+                .metrics(httpClientProperties.isMetrics(), HTTPClientConfiguration::uriTag);
+        return httpClientProperties.isHttp2()
+                ? httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11)
+                : httpClient;
     }
 
+    /**
+     * Drops the query string, so API versions and keys do not multiply the latency meters.
+     */
+    private static String uriTag(String uri) {
+        int query = uri.indexOf('?');
+        return query < 0 ? uri : uri.substring(0, query);
+    }
 }
@@ -0,0 +1,26 @@
+package com.epam.training.gen.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "hedging")
+public class HedgingProperties {
+    boolean enabled = false;
+    boolean chat = true;
+    boolean embeddings = true;
+    double percentile = 0.95;
+    int minSamples = 20;
+    int sampleWindow = 256;
+    Duration minDelay = Duration.ofMillis(50);
+    Duration maxDelay = Duration.ofSeconds(10);
+    double budgetPercent = 10;
+    Duration budgetWindow = Duration.ofMinutes(1);
+    Map<String, String> equivalents = new HashMap<>();
+}
@@ -0,0 +1,25 @@
+package com.epam.training.gen.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "http-client")
+public class HttpClientProperties {
+    int maxConnections = 200;
+    int pendingAcquireMaxCount = 1000;
+    Duration pendingAcquireTimeout = Duration.ofSeconds(30);
+    Duration maxIdleTime = Duration.ofSeconds(30);
+    Duration maxLifeTime = Duration.ofMinutes(5);
+    Duration evictionInterval = Duration.ofSeconds(30);
+    Duration connectTimeout = Duration.ofSeconds(5);
+    Duration responseTimeout = Duration.ofSeconds(120);
+    Duration readTimeout = Duration.ofSeconds(120);
+    Duration writeTimeout = Duration.ofSeconds(30);
+    boolean http2 = true;
+    boolean metrics = true;
+}
@@ -0,0 +1,100 @@
+package com.epam.training.gen.ai.config;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.Nullable;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "rate-limiting")
+public class LimiterProperties {
+    boolean enabled = true;
+    int maxQueueSize = 1000;
+    Duration queueTimeout = Duration.ofSeconds(30);
+    double backoffRatio = 0.5;
+    double latencyBackoffRatio = 0.9;
+    double latencyTolerance = 2.0;
+    @Valid
+    LimitSettings defaults = LimitSettings.standard();
+    Map<String, @Valid LimitSettings> deployments = new HashMap<>();
+
+    /**
+     * Returns the limits of a deployment: its override, if any, merged onto the defaults.
+     *
+     * @param deployment the deployment id
+     * @return the effective limits
+     */
+    public LimitSettings settingsFor(String deployment) {
+        return defaults.overriddenBy(deployments.get(deployment));
+    }
+
+    /**
+     * Rate and concurrency limits. A field left {@code null} inherits the value it overrides.
+     */
+    @Data
+    public static class LimitSettings {
+        private static final int MAX_CONCURRENCY = 10_000;
+
+        @Min(1)
+        Integer requestsPerMinute;
+        @Min(1)
+        Integer tokensPerMinute;
+        @Min(1)
+        @Max(MAX_CONCURRENCY)
+        Integer initialConcurrency;
+        @Min(1)
+        @Max(MAX_CONCURRENCY)
+        Integer minConcurrency;
+        @Min(1)
+        @Max(MAX_CONCURRENCY)
+        Integer maxConcurrency;
+
+        static LimitSettings standard() {
+            LimitSettings settings = new LimitSettings();
+            settings.requestsPerMinute = 600;
+            settings.tokensPerMinute = 150_000;
+            settings.initialConcurrency = 8;
+            settings.minConcurrency = 1;
+            settings.maxConcurrency = 64;
+            return settings;
+        }
+
+        /**
+         * Returns a copy of these settings with every field that is set in the override replaced.
+         *
+         * @param override the settings to apply, may be {@code null}
+         * @return the merged settings
+         */
+        public LimitSettings overriddenBy(@Nullable LimitSettings override) {
+            LimitSettings merged = new LimitSettings();
+            merged.requestsPerMinute = pick(override == null ? null : override.requestsPerMinute, requestsPerMinute);
+            merged.tokensPerMinute = pick(override == null ? null : override.tokensPerMinute, tokensPerMinute);
+            merged.initialConcurrency = pick(override == null ? null : override.initialConcurrency, initialConcurrency);
+            merged.minConcurrency = pick(override == null ? null : override.minConcurrency, minConcurrency);
+            merged.maxConcurrency = pick(override == null ? null : override.maxConcurrency, maxConcurrency);
+            return merged;
+        }
+
+        @JsonIgnore
+        @AssertTrue(message = "minConcurrency must not exceed maxConcurrency")
+        public boolean isConcurrencyRangeValid() {
+            return minConcurrency == null || maxConcurrency == null || minConcurrency <= maxConcurrency;
+        }
+
+        private static Integer pick(@Nullable Integer override, Integer value) {
+            return override != null ? override : value;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.epam.training.gen.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "model-catalog")
+public class ModelCatalogProperties {
+    Duration refreshInterval = Duration.ofMinutes(5);
+    String snapshotPath = System.getProperty("java.io.tmpdir") + "/genai/model-catalog.json";
+}
@@ -3,12 +3,15 @@ package com.epam.training.gen.ai.config;
 import com.azure.ai.openai.OpenAIAsyncClient;
 import com.azure.ai.openai.OpenAIClientBuilder;
 import com.azure.core.credential.AzureKeyCredential;
+import com.azure.core.http.netty.NettyAsyncHttpClientBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ReactorNettyClientRequestFactory;
 import org.springframework.web.client.RestTemplate;
+import reactor.netty.http.client.HttpClient;
 
 import java.util.List;
 
@@ -26,16 +29,28 @@ public class OpenAIConfiguration {
     private String AZURE_CLIENT_KEY;
 
     @Bean
-    public OpenAIAsyncClient openAIAsyncClient(OpenAIClientProperties openAIClientProperties) {
+    public OpenAIAsyncClient openAIAsyncClient(OpenAIClientProperties openAIClientProperties,
+                                               HttpClient httpClient,
+                                               HttpClientProperties httpClientProperties) {
         return new OpenAIClientBuilder()
                 .credential(new AzureKeyCredential(openAIClientProperties.getKey()))
                 .endpoint(openAIClientProperties.getEndpoint())
+                .httpClient(new NettyAsyncHttpClientBuilder(httpClient)
+                        .connectTimeout(httpClientProperties.getConnectTimeout())
+                        .responseTimeout(httpClientProperties.getResponseTimeout())
+                        .readTimeout(httpClientProperties.getReadTimeout())
+                        .writeTimeout(httpClientProperties.getWriteTimeout())
+                        .build())
                 .buildAsyncClient();
     }
 
     @Bean
-    public RestTemplate restTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
+    public RestTemplate restTemplate(HttpClient httpClient, HttpClientProperties httpClientProperties) {
+        ReactorNettyClientRequestFactory requestFactory = new ReactorNettyClientRequestFactory(httpClient);
+        requestFactory.setConnectTimeout(httpClientProperties.getConnectTimeout());
+        requestFactory.setReadTimeout(httpClientProperties.getReadTimeout());
+        requestFactory.setExchangeTimeout(httpClientProperties.getResponseTimeout());
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
         restTemplate.setInterceptors(
                 List.of(
                         (request, body, execution) -> {
@@ -0,0 +1,16 @@
+package com.epam.training.gen.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "prompts")
+public class PromptProperties {
+    String location = "classpath*:prompts/*.prompt";
+    boolean hotReload = true;
+    Duration reloadInterval = Duration.ofSeconds(2);
+}
@@ -0,0 +1,67 @@
+package com.epam.training.gen.ai.config;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records the calls of one channel of the {@link QdrantChannelPool}: the number of calls in flight
+ * in the {@code genai.qdrant.channel.in_flight} gauge, and the latency of every call in the
+ * {@code genai.qdrant.calls} timer, tagged with the method and the status code. Both are tagged with
+ * the {@code host} and {@code channel} number.
+ */
+public class QdrantCallMetrics implements ClientInterceptor {
+
+    private final MeterRegistry meterRegistry;
+    private final Tags tags;
+    private final AtomicInteger inFlight;
+
+    public QdrantCallMetrics(MeterRegistry meterRegistry, String host, int channel) {
+        this.meterRegistry = meterRegistry;
+        this.tags = Tags.of("host", host, "channel", String.valueOf(channel));
+        this.inFlight = meterRegistry.gauge("genai.qdrant.channel.in_flight", tags, new AtomicInteger());
+    }
+
+    @Override
+    public <RequestT, ResponseT> ClientCall<RequestT, ResponseT> interceptCall(MethodDescriptor<RequestT, ResponseT> method,
+                                                                               CallOptions callOptions, Channel next) {
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+            @Override
+            public void start(Listener<ResponseT> responseListener, Metadata headers) {
+                long start = System.nanoTime();
+                inFlight.incrementAndGet();
+                try {
+                    startCall(responseListener, headers, start);
+                } catch (RuntimeException e) {
+                    inFlight.decrementAndGet();
+                    throw e;
+                }
+            }
+
+            private void startCall(Listener<ResponseT> responseListener, Metadata headers, long start) {
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        inFlight.decrementAndGet();
+                        meterRegistry.timer("genai.qdrant.calls", tags.and(
+                                        "method", String.valueOf(method.getBareMethodName()),
+                                        "status", status.getCode().name()))
+                                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+        };
+    }
+}
@@ -0,0 +1,121 @@
+package com.epam.training.gen.ai.config;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * A {@link ManagedChannel} that spreads calls over several channels, i.e. several HTTP/2
+ * connections, so concurrent calls are not limited by the stream limit of a single connection.
+ * <p>
+ * Calls that only read (searches, point and collection lookups) are assigned round-robin to all
+ * channels of all hosts, so replicas share the read load. All other calls go round-robin to the
+ * channels of the primary host, the first one, so writes and collection changes are always applied
+ * by the same node. With {@code compressUpserts}, point upserts and batch updates are sent gzip
+ * compressed.
+ */
+public class QdrantChannelPool extends ManagedChannel {
+
+    private static final String GZIP = "gzip";
+
+    private static final Set<String> READ_METHODS = Set.of(
+            "Search", "SearchBatch", "SearchGroups", "Scroll", "Get", "Count", "Recommend", "RecommendBatch",
+            "RecommendGroups", "Discover", "DiscoverBatch", "Query", "QueryBatch", "QueryGroups",
+            "List", "CollectionExists", "HealthCheck");
+
+    private static final Set<String> COMPRESSED_METHODS = Set.of("Upsert", "UpdateBatch");
+
+    @Getter
+    private final List<PooledChannel> channels;
+    private final List<PooledChannel> primaryChannels;
+    private final boolean compressUpserts;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Creates a pool over the given channels.
+     *
+     * @param channels        the channels, those of the primary host first
+     * @param compressUpserts whether to gzip upserts
+     */
+    public QdrantChannelPool(List<PooledChannel> channels, boolean compressUpserts) {
+        if (channels.isEmpty()) {
+            throw new IllegalArgumentException("At least one Qdrant channel is required");
+        }
+        String primaryHost = channels.get(0).host();
+        this.channels = List.copyOf(channels);
+        this.primaryChannels = channels.stream().filter(channel -> channel.host().equals(primaryHost)).toList();
+        this.compressUpserts = compressUpserts;
+    }
+
+    @Override
+    public <RequestT, ResponseT> ClientCall<RequestT, ResponseT> newCall(MethodDescriptor<RequestT, ResponseT> method,
+                                                                         CallOptions callOptions) {
+        String methodName = method.getBareMethodName();
+        List<PooledChannel> candidates = READ_METHODS.contains(methodName) ? channels : primaryChannels;
+        PooledChannel channel = candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+        CallOptions options = compressUpserts && COMPRESSED_METHODS.contains(methodName)
+                ? callOptions.withCompression(GZIP)
+                : callOptions;
+        return channel.channel().newCall(method, options);
+    }
+
+    @Override
+    public String authority() {
+        return primaryChannels.get(0).channel().authority();
+    }
+
+    @Override
+    public ManagedChannel shutdown() {
+        channels.forEach(channel -> channel.channel().shutdown());
+        return this;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return allChannels(ManagedChannel::isShutdown);
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return allChannels(ManagedChannel::isTerminated);
+    }
+
+    @Override
+    public ManagedChannel shutdownNow() {
+        channels.forEach(channel -> channel.channel().shutdownNow());
+        return this;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (PooledChannel channel : channels) {
+            if (!channel.channel().awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean allChannels(Predicate<ManagedChannel> predicate) {
+        return channels.stream().allMatch(channel -> predicate.test(channel.channel()));
+    }
+
+    /**
+     * A channel of the pool.
+     *
+     * @param host    the {@code host:port} the channel connects to
+     * @param index   the number of the channel among those of its host
+     * @param channel the channel
+     */
+    public record PooledChannel(String host, int index, ManagedChannel channel) {
+    }
+}
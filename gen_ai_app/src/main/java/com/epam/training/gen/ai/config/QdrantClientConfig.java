@@ -1,10 +1,20 @@
 package com.epam.training.gen.ai.config;
 
+import com.epam.training.gen.ai.service.ShardedVectorStoreService;
+import com.google.common.net.HostAndPort;
+import io.grpc.ManagedChannelBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.qdrant.client.QdrantClient;
 import io.qdrant.client.QdrantGrpcClient;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Configuration class for setting up the Qdrant client integration with the application.
@@ -50,15 +60,82 @@ public class QdrantClientConfig {
     @Value("${spring.ai.vectorstore.qdrant.use-tls}")
     private boolean useTLS;
 
+    /**
+     * Creates the pool of gRPC channels to the Qdrant hosts: {@code qdrant.channels-per-host}
+     * channels to the configured host, which receives all writes, and as many to each of the
+     * {@code qdrant.replicas} ({@code host:port}), which share the reads. Every channel keeps its
+     * connection alive with HTTP/2 pings every {@code qdrant.keep-alive-time}, so idle connections
+     * are not silently dropped by load balancers, and records per-channel metrics with
+     * {@code qdrant.metrics}.
+     *
+     * @param qdrantProperties the pool settings
+     * @param meterRegistry    the registry of the per-channel metrics
+     * @return the channel pool
+     */
+    @Bean(destroyMethod = "shutdown")
+    public QdrantChannelPool qdrantChannelPool(QdrantProperties qdrantProperties, MeterRegistry meterRegistry) {
+        List<String> hosts = new ArrayList<>();
+        hosts.add(host + ":" + port);
+        hosts.addAll(qdrantProperties.getReplicas());
+        List<QdrantChannelPool.PooledChannel> channels = new ArrayList<>();
+        for (String address : hosts) {
+            HostAndPort hostAndPort = HostAndPort.fromString(address).withDefaultPort(port);
+            for (int i = 0; i < Math.max(1, qdrantProperties.getChannelsPerHost()); i++) {
+                ManagedChannelBuilder<?> builder = ManagedChannelBuilder.forAddress(hostAndPort.getHost(), hostAndPort.getPort())
+                        .keepAliveTime(qdrantProperties.getKeepAliveTime().toMillis(), TimeUnit.MILLISECONDS)
+                        .keepAliveTimeout(qdrantProperties.getKeepAliveTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                        .keepAliveWithoutCalls(qdrantProperties.isKeepAliveWithoutCalls())
+                        .idleTimeout(qdrantProperties.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                        .maxInboundMessageSize(qdrantProperties.getMaxInboundMessageSize());
+                if (useTLS) {
+                    builder.useTransportSecurity();
+                } else {
+                    builder.usePlaintext();
+                }
+                if (qdrantProperties.isMetrics()) {
+                    builder.intercept(new QdrantCallMetrics(meterRegistry, hostAndPort.toString(), i));
+                }
+                channels.add(new QdrantChannelPool.PooledChannel(hostAndPort.toString(), i, builder.build()));
+            }
+        }
+        return new QdrantChannelPool(channels, qdrantProperties.isCompressUpserts());
+    }
+
     /**
      * Creates and provides a QdrantClient bean for interaction with Qdrant vector storage services.
-     * Configures the client using host, port, and TLS settings defined in application properties.
+     * The client sends its calls over the {@link QdrantChannelPool}, with {@code qdrant.deadline} as
+     * the deadline of calls that do not set their own timeout.
      *
+     * @param qdrantChannelPool the channels to the Qdrant hosts
+     * @param qdrantProperties  the client settings
      * @return a configured QdrantClient instance for communication with the Qdrant vector database
      */
     @Bean
-    public QdrantClient qdrantClient() {
-        QdrantGrpcClient grpcClient = QdrantGrpcClient.newBuilder(host, port, useTLS).build();
+    public QdrantClient qdrantClient(QdrantChannelPool qdrantChannelPool, QdrantProperties qdrantProperties) {
+        QdrantGrpcClient grpcClient = QdrantGrpcClient.newBuilder(qdrantChannelPool, false)
+                .withTimeout(qdrantProperties.getDeadline())
+                .build();
         return new QdrantClient(grpcClient);
     }
+
+    /**
+     * Creates the sharded vector store when {@code vector.sharding.enabled} is set; it then replaces
+     * the single-collection {@link com.epam.training.gen.ai.service.QdrantVectorStoreService} as the
+     * application's {@link com.epam.training.gen.ai.service.VectorStoreService}.
+     *
+     * @param qdrantClient       the Qdrant client
+     * @param collectionName     the prefix of the shard collection names
+     * @param shardingProperties the sharding settings
+     * @param meterRegistry      the registry of the shard metrics
+     * @return the sharded vector store
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "vector.sharding", name = "enabled", havingValue = "true")
+    public ShardedVectorStoreService shardedVectorStoreService(QdrantClient qdrantClient,
+                                                               @Value("${vector.collection.name}") String collectionName,
+                                                               ShardingProperties shardingProperties,
+                                                               MeterRegistry meterRegistry) {
+        return new ShardedVectorStoreService(qdrantClient, collectionName, shardingProperties, meterRegistry);
+    }
 }
@@ -0,0 +1,25 @@
+package com.epam.training.gen.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "qdrant")
+public class QdrantProperties {
+    List<String> replicas = new ArrayList<>();
+    int channelsPerHost = 2;
+    Duration keepAliveTime = Duration.ofSeconds(30);
+    Duration keepAliveTimeout = Duration.ofSeconds(10);
+    boolean keepAliveWithoutCalls = true;
+    Duration idleTimeout = Duration.ofMinutes(30);
+    Duration deadline = Duration.ofSeconds(5);
+    boolean compressUpserts = false;
+    int maxInboundMessageSize = 16 * 1024 * 1024;
+    boolean metrics = true;
+}
@@ -0,0 +1,18 @@
+package com.epam.training.gen.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "response-cache")
+public class ResponseCacheProperties {
+    boolean enabled = false;
+    DataSize maxSize = DataSize.ofMegabytes(64);
+    Duration ttl;
+    boolean deterministicOnly = true;
+}
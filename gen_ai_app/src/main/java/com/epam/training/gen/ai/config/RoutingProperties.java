@@ -0,0 +1,24 @@
+package com.epam.training.gen.ai.config;
+
+import com.epam.training.gen.ai.routing.RoutingPolicy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "chat.routing")
+public class RoutingProperties {
+    RoutingPolicy defaultPolicy = RoutingPolicy.LEAST_LOADED;
+    double ewmaAlpha = 0.2;
+    Duration initialLatency = Duration.ofSeconds(2);
+    double degradedErrorRate = 0.5;
+    double degradedLatencyFactor = 3.0;
+    double explorationRate = 0.05;
+    double defaultCostPer1kTokens = 1.0;
+    Map<String, Double> costPer1kTokens = new HashMap<>();
+}
@@ -0,0 +1,27 @@
+package com.epam.training.gen.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "semantic-cache")
+public class SemanticCacheProperties {
+    boolean enabled = false;
+    Store store = Store.IN_MEMORY;
+    String collectionName = "semantic-cache";
+    int maxEntries = 10_000;
+    String embeddingModel = "text-embedding-ada-002";
+    double defaultThreshold = 0.95;
+    double maxTemperature = 0.0;
+    Map<String, Double> thresholds = new HashMap<>();
+
+    public enum Store {
+        IN_MEMORY,
+        QDRANT
+    }
+}
@@ -2,7 +2,7 @@ package com.epam.training.gen.ai.config;
 
 import com.azure.ai.openai.OpenAIAsyncClient;
 import com.epam.training.gen.ai.plugins.LightsPlugin;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.epam.training.gen.ai.service.ToolMemo;
 import com.microsoft.semantickernel.Kernel;
 import com.microsoft.semantickernel.aiservices.openai.chatcompletion.OpenAIChatCompletion;
 import com.microsoft.semantickernel.orchestration.InvocationContext;
@@ -14,16 +14,9 @@ import com.microsoft.semantickernel.plugin.KernelPluginFactory;
 import com.microsoft.semantickernel.services.chatcompletion.ChatCompletionService;
 import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
 import lombok.Data;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.util.List;
 import java.util.Map;
 
@@ -35,12 +28,7 @@ public class SemanticKernelConfiguration {
      * @return an instance of {@link InvocationContext}
      */
 
-    @Autowired
-    private ObjectMapper objectMapper;
-
-    @Autowired
-    private HttpClient httpClient;
-
+    // tool calls are executed by the ChatGateway, concurrently per turn
     @Bean
     public InvocationContext invocationContext() {
         return InvocationContext.builder()
@@ -48,7 +36,7 @@ public class SemanticKernelConfiguration {
                         .withTemperature(1.0)
                         .build())
                 .withReturnMode(InvocationReturnMode.LAST_MESSAGE_ONLY)
-                .withToolCallBehavior(ToolCallBehavior.allowAllKernelFunctions(true))
+                .withToolCallBehavior(ToolCallBehavior.allowAllKernelFunctions(false))
                 .build();
     }
 
@@ -82,17 +70,6 @@ public class SemanticKernelConfiguration {
                 .build();
     }
 
-    @Bean
-    public List<Model> deployedModels(@Value("${epam.dial.deployment-names-api}") String modelListUrl, @Value("${client.openai.key}") String accessToken) throws IOException, InterruptedException {
-        var request = HttpRequest.newBuilder()
-                .uri(URI.create(modelListUrl))
-                .header("Content-Type", "application/json")
-                .header("Api-Key", accessToken)
-                .build();
-        var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        return objectMapper.readValue(response.body(), ModelListResponse.class).getData();
-    }
-
     @Data
     public static class ModelListResponse {
         List<Model> data;
@@ -112,6 +89,7 @@ public class SemanticKernelConfiguration {
         long created_at;
         long updated_at;
         Map<String, Boolean> features;
+        Map<String, Object> capabilities;
         Map<String, Object> defaults;
         List<String> description_keywords;
         int max_retry_attempts;
@@ -124,9 +102,10 @@ public class SemanticKernelConfiguration {
      * @return an instance of {@link KernelPlugin}
      */
     @Bean
-    public KernelPlugin kernelPlugin() {
-        return KernelPluginFactory.createFromObject(
-                new LightsPlugin(), "LightsPlugin");
+    public KernelPlugin kernelPlugin(ToolMemo toolMemo) {
+        LightsPlugin lightsPlugin = new LightsPlugin();
+        toolMemo.register("LightsPlugin", lightsPlugin);
+        return KernelPluginFactory.createFromObject(lightsPlugin, "LightsPlugin");
     }
 
     /**
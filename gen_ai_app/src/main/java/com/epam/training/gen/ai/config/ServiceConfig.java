@@ -1,10 +1,15 @@
 package com.epam.training.gen.ai.config;
 
+import com.epam.training.gen.ai.cache.ResponseCache;
+import com.epam.training.gen.ai.cache.SemanticCache;
+import com.epam.training.gen.ai.history.PromptAssembler;
+import com.epam.training.gen.ai.service.ChatGateway;
 import com.epam.training.gen.ai.service.SemanticKernelService;
+import com.epam.training.gen.ai.service.StructuredOutputService;
+import com.epam.training.gen.ai.service.ToolSelector;
 import com.epam.training.gen.ai.service.UserInputService;
 import com.microsoft.semantickernel.Kernel;
 import com.microsoft.semantickernel.orchestration.InvocationContext;
-import com.microsoft.semantickernel.services.chatcompletion.ChatCompletionService;
 import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,12 +23,20 @@ public class ServiceConfig {
     }
 
     @Bean
-    public SemanticKernelService semanticKernelService(ChatCompletionService chatCompletionService,
+    public SemanticKernelService semanticKernelService(ChatGateway chatGateway,
                                                        InvocationContext invocationContext,
                                                        ChatHistory chatHistory,
-                                                       Kernel kernel
+                                                       OpenAIClientProperties openAIClientProperties,
+                                                       ResponseCache responseCache,
+                                                       SemanticCache semanticCache,
+                                                       Kernel kernel,
+                                                       PromptAssembler promptAssembler,
+                                                       StructuredOutputService structuredOutputService,
+                                                       ToolSelector toolSelector
 
     ) {
-        return new SemanticKernelService(chatCompletionService, invocationContext, chatHistory, kernel);
+        return new SemanticKernelService(chatGateway, invocationContext, chatHistory,
+                openAIClientProperties.getDeploymentName(), responseCache, semanticCache, kernel, promptAssembler,
+                structuredOutputService, toolSelector);
     }
 }
\ No newline at end of file
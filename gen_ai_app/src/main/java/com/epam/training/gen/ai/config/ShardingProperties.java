@@ -0,0 +1,20 @@
+package com.epam.training.gen.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "vector.sharding")
+public class ShardingProperties {
+    boolean enabled = false;
+    int shards = 4;
+    int virtualNodes = 128;
+    Duration shardTimeout = Duration.ofSeconds(2);
+    boolean allowPartialResults = true;
+    int reshardBatchSize = 256;
+    int reshardConcurrency = 2;
+}
@@ -0,0 +1,19 @@
+package com.epam.training.gen.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "startup")
+public class StartupProperties {
+    Duration retryBackoff = Duration.ofSeconds(1);
+    Duration maxRetryBackoff = Duration.ofSeconds(30);
+    Duration retryAfter = Duration.ofSeconds(5);
+    List<String> probePhases = new ArrayList<>(List.of("warm-up"));
+}
@@ -0,0 +1,13 @@
+package com.epam.training.gen.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "structured-output")
+public class StructuredOutputProperties {
+    boolean enabled = false;
+    boolean strict = true;
+}
@@ -0,0 +1,23 @@
+package com.epam.training.gen.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "tool-calls")
+public class ToolCallProperties {
+    int maxIterations = 5;
+    int maxConcurrency = 8;
+    Duration callTimeout = Duration.ofSeconds(10);
+    Memo memo = new Memo();
+
+    @Data
+    public static class Memo {
+        boolean enabled = true;
+        long maxEntries = 10_000;
+    }
+}
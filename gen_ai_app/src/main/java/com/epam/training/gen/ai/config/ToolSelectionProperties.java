@@ -0,0 +1,19 @@
+package com.epam.training.gen.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "tool-selection")
+public class ToolSelectionProperties {
+    boolean enabled = true;
+    int topK = 5;
+    double minScore = 0.75;
+    List<String> alwaysInclude = new ArrayList<>();
+    String embeddingModel = "text-embedding-ada-002";
+}
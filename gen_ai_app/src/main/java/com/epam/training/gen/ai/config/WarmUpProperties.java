@@ -0,0 +1,21 @@
+package com.epam.training.gen.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "warm-up")
+public class WarmUpProperties {
+    boolean enabled = true;
+    boolean remoteCalls = true;
+    int iterations = 50;
+    int remoteIterations = 3;
+    int connections = 4;
+    String embeddingModel = "text-embedding-ada-002";
+    String collectionName = "genai-warm-up";
+    Duration timeout = Duration.ofSeconds(60);
+}
@@ -1,16 +1,23 @@
 package com.epam.training.gen.ai.controller;
 
+import com.epam.training.gen.ai.model.SearchFilter;
 import com.epam.training.gen.ai.service.EmbeddingService;
+import com.epam.training.gen.ai.startup.Readiness;
+import com.epam.training.gen.ai.startup.RequiresReady;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * REST controller responsible for handling embedding-related operations such as generating embeddings,
@@ -47,31 +54,58 @@ public class EmbeddingController {
     /**
      * Builds embeddings for the provided text input using the specified model and stores them in the vector store.
      *
-     * @param input the text input to be processed into embeddings
-     * @param model the name of the embedding model to use; defaults to "text-embedding-ada-002" if not specified
+     * @param input      the text input to be processed into embeddings
+     * @param model      the name of the embedding model to use; defaults to "text-embedding-ada-002" if not specified
+     * @param tenant     the tenant the text belongs to, if any
+     * @param documentId the id of the document the text was taken from, if any
      * @return a {@code Mono<Void>} indicating the completion of the build and store operation
      */
     @PostMapping("/store")
+    @RequiresReady(Readiness.VECTOR_STORE)
     @Operation(summary = "Build and store embedding from text")
     public Mono<Void> buildAndStore(@RequestParam String input,
-                                    @RequestParam(defaultValue = "text-embedding-ada-002") String model) {
-        return embeddingService.buildAndStoreChunks(input, model);
+                                    @RequestParam(defaultValue = "text-embedding-ada-002") String model,
+                                    @RequestParam(required = false) String tenant,
+                                    @RequestParam(required = false) String documentId) {
+        Map<String, String> metadata = new HashMap<>();
+        if (tenant != null) {
+            metadata.put(SearchFilter.TENANT_KEY, tenant);
+        }
+        if (documentId != null) {
+            metadata.put(SearchFilter.DOCUMENT_ID_KEY, documentId);
+        }
+        return embeddingService.buildAndStoreChunks(input, model, metadata);
     }
 
     /**
      * Searches for similar embeddings based on the provided input.
      *
-     * @param input the text input to search for similar embeddings
-     * @param limit the maximum number of results to retrieve; defaults to 5 if not specified
-     * @param model the embedding model to use for the search; defaults to "text-embedding-ada-002" if not specified
+     * @param input      the text input to search for similar embeddings
+     * @param limit      the maximum number of results to retrieve; defaults to 5 if not specified
+     * @param model      the embedding model to use for the search; defaults to "text-embedding-ada-002" if not specified
+     * @param tenant     restricts the search to the texts of this tenant
+     * @param documentId restricts the search to the texts of these documents
+     * @param from       restricts the search to texts stored at or after this instant
+     * @param to         restricts the search to texts stored before this instant
      * @return a {@code Mono} containing a list of strings representing the search results
      */
     @PostMapping("/search")
+    @RequiresReady(Readiness.VECTOR_STORE)
     @Operation(summary = "Search for similar embeddings")
     public Mono<List<String>> search(@RequestParam String input,
                                      @RequestParam(defaultValue = "5") int limit,
-                                     @RequestParam(defaultValue = "text-embedding-ada-002") String model) {
-        return embeddingService.search(input, limit, model);
+                                     @RequestParam(defaultValue = "text-embedding-ada-002") String model,
+                                     @RequestParam(required = false) String tenant,
+                                     @RequestParam(required = false) List<String> documentId,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        SearchFilter filter = SearchFilter.builder()
+                .tenant(tenant)
+                .documentIds(documentId == null ? List.of() : documentId)
+                .from(from)
+                .to(to)
+                .build();
+        return embeddingService.search(input, limit, model, filter);
     }
 }
 
@@ -0,0 +1,63 @@
+package com.epam.training.gen.ai.controller;
+
+import com.epam.training.gen.ai.config.LimiterProperties;
+import com.epam.training.gen.ai.resilience.AdaptiveLimiter;
+import com.epam.training.gen.ai.resilience.DeploymentLimiter;
+import com.epam.training.gen.ai.resilience.EndpointType;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+/**
+ * REST controller exposing the client-side limits of the model deployments, so they can be
+ * inspected and tuned at runtime without a restart.
+ */
+@RestController
+@RequestMapping("/api/v1/limits")
+@Tag(name = "LimiterController", description = "Per-deployment rate and concurrency limits")
+@RequiredArgsConstructor
+public class LimiterController {
+
+    private final DeploymentLimiter deploymentLimiter;
+
+    /**
+     * Returns the current state of every limiter created so far.
+     *
+     * @return the limiters keyed by {@code <endpoint type>/<deployment id>}
+     */
+    @GetMapping
+    @Operation(summary = "Show current limits, in-flight requests and queue lengths")
+    public Map<String, AdaptiveLimiter> getLimits() {
+        return deploymentLimiter.getLimiters();
+    }
+
+    /**
+     * Changes the limits of one deployment and endpoint type. Invalid limits are rejected with
+     * {@code 400 Bad Request}.
+     *
+     * @param type       the endpoint type, {@code CHAT} or {@code EMBEDDINGS}
+     * @param deployment the deployment id
+     * @param settings   the limits to change; fields left out keep their current value
+     */
+    @PutMapping("/{type}/{deployment}")
+    @Operation(summary = "Update the limits of a deployment")
+    public void updateLimits(@PathVariable EndpointType type, @PathVariable String deployment,
+                             @Validated @RequestBody LimiterProperties.LimitSettings settings) {
+        try {
+            deploymentLimiter.update(deployment, type, settings);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
@@ -1,86 +1,123 @@
 package com.epam.training.gen.ai.controller;
 
-import com.azure.ai.openai.OpenAIAsyncClient;
+import com.epam.training.gen.ai.config.FanOutProperties;
+import com.epam.training.gen.ai.config.RoutingProperties;
 import com.epam.training.gen.ai.config.SemanticKernelConfiguration;
+import com.epam.training.gen.ai.model.ModelReply;
+import com.epam.training.gen.ai.resilience.CircuitBreaker;
+import com.epam.training.gen.ai.resilience.FailoverExecutor;
+import com.epam.training.gen.ai.routing.DeploymentStats;
+import com.epam.training.gen.ai.routing.ModelRouter;
+import com.epam.training.gen.ai.routing.RoutingPolicy;
+import com.epam.training.gen.ai.service.MultiModelChatService;
+import com.epam.training.gen.ai.startup.Readiness;
+import com.epam.training.gen.ai.startup.RequiresReady;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.microsoft.semantickernel.Kernel;
-import com.microsoft.semantickernel.aiservices.openai.chatcompletion.OpenAIChatCompletion;
-import com.microsoft.semantickernel.orchestration.InvocationContext;
-import com.microsoft.semantickernel.services.chatcompletion.ChatCompletionService;
-import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
-import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/v1")
 public class MultiModuleChatBotController {
 
     @Autowired
-    private Kernel kernel;
+    private ObjectMapper objectMapper;
 
     @Autowired
-    private InvocationContext invocationContext;
+    private ModelRouter modelRouter;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private RoutingProperties routingProperties;
+
+    @Autowired
+    private MultiModelChatService multiModelChatService;
 
     @Autowired
-    private List<SemanticKernelConfiguration.Model> deployedModels;
+    private FanOutProperties fanOutProperties;
 
     @Autowired
-    private OpenAIAsyncClient openAIAsyncClient;
+    private FailoverExecutor failoverExecutor;
 
     @GetMapping(value = "mmchat")
-    public Map<String, String> getMMChatbotResponse(@RequestParam String input) {
-        ChatHistory history = new ChatHistory();
-
-        SemanticKernelConfiguration.Model model1 = deployedModels.get(getRandomIndex(deployedModels.size() - 1));
-        history.addUserMessage(input);
-        List<ChatMessageContent<?>> response1 = getChatMessageContents(model1.getId(), history);
-        history.addAll(response1);
-
-        SemanticKernelConfiguration.Model model2 = deployedModels.get(getRandomIndex(deployedModels.size() - 1));
-        history.addUserMessage(input);
-        List<ChatMessageContent<?>> response2 = getChatMessageContents(model2.getId(), history);
-        history.addAll(response2);
-
-        return Map.of("input of " + model1.getId(), input,
-                "response of " + model1.getId(), convertChatMessagesToJson(response1),
-                "input of " + model2.getId(), input,
-                "response of " + model2.getId(), convertChatMessagesToJson(response2));
+    @RequiresReady(Readiness.MODEL_CATALOG)
+    public Mono<Map<String, String>> getMMChatbotResponse(@RequestParam String input,
+                                                          @RequestParam(required = false) RoutingPolicy policy,
+                                                          @RequestParam(required = false) List<String> features) {
+        List<SemanticKernelConfiguration.Model> models = modelRouter.rank(
+                Objects.requireNonNullElse(policy, routingProperties.getDefaultPolicy()),
+                Objects.requireNonNullElse(features, List.of()), 2);
+        if (models.isEmpty()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "No chat deployment available"));
+        }
+        // with a single candidate it is asked once rather than twice under the same keys
+        List<String> modelIds = models.stream()
+                .map(SemanticKernelConfiguration.Model::getId)
+                .distinct()
+                .toList();
+
+        return Flux.fromIterable(modelIds)
+                .flatMapSequential(modelId -> multiModelChatService.ask(modelId, input))
+                .collectList()
+                .map(replies -> {
+                    Map<String, String> result = new LinkedHashMap<>();
+                    for (int i = 0; i < modelIds.size(); i++) {
+                        result.put("input of " + modelIds.get(i), input);
+                        result.put("response of " + modelIds.get(i), convertChatMessagesToJson(replies.get(i)));
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * Queries the given models concurrently, e.g.
+     * {@code /api/v1/mmchat/fanout?input=Hi&models=gpt-4&models=gpt-35-turbo&firstK=1&timeoutMs=5000}.
+     * Without models, the router picks them by policy and required features.
+     */
+    @GetMapping(value = "mmchat/fanout")
+    @RequiresReady(Readiness.MODEL_CATALOG)
+    public Mono<List<ModelReply>> getFanOutResponse(@RequestParam String input,
+                                                    @RequestParam(required = false) List<String> models,
+                                                    @RequestParam(required = false) Integer firstK,
+                                                    @RequestParam(required = false) Long timeoutMs,
+                                                    @RequestParam(required = false) RoutingPolicy policy,
+                                                    @RequestParam(required = false) List<String> features) {
+        List<String> modelIds = models != null && !models.isEmpty() ? models : modelRouter.rank(
+                        Objects.requireNonNullElse(policy, routingProperties.getDefaultPolicy()),
+                        Objects.requireNonNullElse(features, List.of()),
+                        fanOutProperties.getMaxModels()).stream()
+                .map(SemanticKernelConfiguration.Model::getId)
+                .toList();
+        return multiModelChatService.fanOut(input, modelIds, firstK,
+                timeoutMs == null ? null : Duration.ofMillis(timeoutMs));
     }
 
-    private List<ChatMessageContent<?>> getChatMessageContents(String modelId, ChatHistory chatHistory){
-        OpenAIChatCompletion openAIChatCompletion = OpenAIChatCompletion.builder()
-                .withModelId(modelId)
-                .withOpenAIAsyncClient(openAIAsyncClient)
-                .build();
-        return OpenAIChatCompletion.builder()
-                .withModelId(modelId)
-                .withOpenAIAsyncClient(openAIAsyncClient)
-                .build().getChatMessageContentsAsync(
-                        chatHistory,
-                        kernel.toBuilder().withAIService(ChatCompletionService.class, openAIChatCompletion).build(),
-                        invocationContext
-                ).block();
+    @GetMapping(value = "routing/stats")
+    public Map<String, DeploymentStats> getRoutingStats() {
+        return modelRouter.getStats();
     }
 
-    private int getRandomIndex(int maxIndex) {
-        return new Random().ints(0, maxIndex).findFirst().getAsInt();
+    @GetMapping(value = "routing/breakers")
+    public Map<String, CircuitBreaker> getCircuitBreakers() {
+        return failoverExecutor.getBreakers();
     }
 
 
-    private String convertChatMessagesToJson(List<ChatMessageContent<?>> messages) {
+    private String convertChatMessagesToJson(ModelReply reply) {
         try {
-            return objectMapper.writeValueAsString(messages.stream().map(msg -> msg.getContent()).toList());
+            return reply.getError() != null ? reply.getError() : objectMapper.writeValueAsString(reply.getMessages());
         } catch (Exception e) {
             throw new RuntimeException("Error converting messages to JSON", e);
         }
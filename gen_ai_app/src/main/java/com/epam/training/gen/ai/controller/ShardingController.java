@@ -0,0 +1,60 @@
+package com.epam.training.gen.ai.controller;
+
+import com.epam.training.gen.ai.service.ShardedVectorStoreService;
+import com.epam.training.gen.ai.startup.Readiness;
+import com.epam.training.gen.ai.startup.RequiresReady;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * REST controller exposing the shards of the vector store, available when
+ * {@code vector.sharding.enabled} is set.
+ */
+@RestController
+@RequestMapping("/api/v1/vector-store/shards")
+@Tag(name = "ShardingController", description = "Vector store shards and resharding")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "vector.sharding", name = "enabled", havingValue = "true")
+public class ShardingController {
+
+    private final ShardedVectorStoreService shardedVectorStoreService;
+
+    /**
+     * Returns the state of the current or last reshard.
+     *
+     * @return the reshard status
+     */
+    @GetMapping
+    @Operation(summary = "Show the number of shards and the resharding progress")
+    public ShardedVectorStoreService.ReshardStatus getStatus() {
+        return shardedVectorStoreService.getReshardStatus();
+    }
+
+    /**
+     * Starts moving the points to the given number of shards in the background.
+     *
+     * @param shards the new number of shards
+     * @return the status of the started reshard
+     */
+    @PostMapping
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @RequiresReady(Readiness.VECTOR_STORE)
+    @Operation(summary = "Reshard the vector store online")
+    public ShardedVectorStoreService.ReshardStatus reshard(@RequestParam int shards) {
+        try {
+            return shardedVectorStoreService.startReshard(shards);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+}
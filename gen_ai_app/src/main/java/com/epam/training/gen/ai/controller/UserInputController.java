@@ -1,17 +1,24 @@
 package com.epam.training.gen.ai.controller;
 
+import com.epam.training.gen.ai.config.SemanticKernelConfiguration;
 import com.epam.training.gen.ai.history.SimpleKernelHistory;
 import com.epam.training.gen.ai.model.Chat;
 import com.epam.training.gen.ai.model.ChatBotResponse;
 import com.epam.training.gen.ai.model.ChatRequest;
 import com.epam.training.gen.ai.model.ChatResponse;
+import com.epam.training.gen.ai.model.Vendor;
+import com.epam.training.gen.ai.service.ModelCatalogService;
 import com.epam.training.gen.ai.service.UserInputService;
+import com.epam.training.gen.ai.startup.Readiness;
+import com.epam.training.gen.ai.startup.RequiresReady;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.Optional;
@@ -23,34 +30,52 @@ public class UserInputController {
 
     private final UserInputService userInputService;
     private final SimpleKernelHistory kernelHistory;
-    private final RestTemplate restTemplate;
-
-    @Value("${epam.dial.deployment-names-api}")
-    private String DEPLOYMENT_NAMES_URL;
+    private final ModelCatalogService modelCatalogService;
 
 
+    // "Cache-Control: no-cache" bypasses the response cache
     @PostMapping("/processRequest")
-    public List<ChatResponse> getResponse(@RequestBody ChatRequest request){
-        return userInputService.getResponse(request.getInputPrompt());
+    public List<ChatResponse> getResponse(@RequestBody ChatRequest request,
+                                          @RequestHeader(value = HttpHeaders.CACHE_CONTROL, required = false) String cacheControl){
+        return userInputService.getResponse(request.getInputPrompt(), request.getConversationId(), isNoCache(cacheControl));
+    }
+
+    // streams the answer as server-sent events, each event carrying the fields generated so far
+    @PostMapping(value = "/processRequest/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ChatResponse> streamResponse(@RequestBody ChatRequest request) {
+        return userInputService.streamResponse(request.getInputPrompt());
     }
 
     // added PromptExecutionSettings
     @PostMapping(value = "/task2")
-    public ChatBotResponse getResponseFromHistory(@RequestBody Chat chat) {
+    public ChatBotResponse getResponseFromHistory(@RequestBody Chat chat,
+                                                  @RequestHeader(value = HttpHeaders.CACHE_CONTROL, required = false) String cacheControl) {
         return Optional.ofNullable(kernelHistory)
-                .map(kernelHistory -> kernelHistory.processWithHistory(chat))
+                .map(kernelHistory -> kernelHistory.processWithHistory(chat, isNoCache(cacheControl)))
                 .orElseGet(ChatBotResponse::new);
     }
 
-    // retrieved deployment names
+    // retrieved deployment names, served from the model catalog snapshot
     @GetMapping(value = "getDeploymentNames")
+    @RequiresReady(Readiness.MODEL_CATALOG)
     public ResponseEntity<String> getDeploymentNames() {
         return new ResponseEntity<>(
-                Optional.ofNullable(restTemplate.getForObject(DEPLOYMENT_NAMES_URL, String.class))
-                        .orElseThrow(),
+                modelCatalogService.getRawCatalog()
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Model catalog not loaded yet")),
                 HttpStatus.OK);
     }
 
+    // deployments of a vendor and/or with all the given features enabled
+    @GetMapping(value = "models")
+    @RequiresReady(Readiness.MODEL_CATALOG)
+    public List<SemanticKernelConfiguration.Model> getModels(@RequestParam(required = false) Vendor vendor,
+                                                             @RequestParam(required = false) List<String> features) {
+        List<SemanticKernelConfiguration.Model> models = modelCatalogService.getModels(Optional.ofNullable(features).orElse(List.of()));
+        return vendor == null ? models : models.stream()
+                .filter(modelCatalogService.getModels(vendor)::contains)
+                .toList();
+    }
+
     /*
   user prompt like below as we are using light Model
   1. Turn on light 2
@@ -61,4 +86,8 @@ public class UserInputController {
     public String chatHistory(@RequestParam String prompt){
         return userInputService.getChatHistory(prompt).toString();
     }
-}
\ No newline at end of file
+
+    private static boolean isNoCache(String cacheControl) {
+        return cacheControl != null && (cacheControl.contains("no-cache") || cacheControl.contains("no-store"));
+    }
+}
@@ -0,0 +1,38 @@
+package com.epam.training.gen.ai.history;
+
+import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
+import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the chat history sent to the model from fixed instructions and the conversation so far.
+ * <p>
+ * The instructions are a named template of the {@link PromptFunctionRegistry} and are always sent
+ * as the first message, with the system role, followed by the conversation turns in order. Nothing
+ * per-request (the question, timestamps, ids) is placed before or inside the instructions, so the
+ * serialized request of every turn starts with the same bytes as the previous one. Providers that
+ * cache prompt prefixes (Azure OpenAI from 1024 tokens on) then bill and process the repeated prefix
+ * as cached tokens, which are reported in {@code genai.tokens.prompt.cached}.
+ */
+@Component
+@RequiredArgsConstructor
+public class PromptAssembler {
+
+    private final PromptFunctionRegistry promptFunctionRegistry;
+
+    /**
+     * Assembles the request history.
+     *
+     * @param instructions the name of the template holding the system instructions
+     * @param conversation the user and assistant turns so far, without instructions; it is not modified
+     * @return a new history starting with the instructions followed by the conversation
+     */
+    public ChatHistory assemble(String instructions, ChatHistory conversation) {
+        ChatHistory request = new ChatHistory(promptFunctionRegistry.getTemplate(instructions));
+        for (ChatMessageContent<?> message : conversation.getMessages()) {
+            request.addMessage(message);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,158 @@
+package com.epam.training.gen.ai.history;
+
+import com.epam.training.gen.ai.config.PromptProperties;
+import com.microsoft.semantickernel.semanticfunctions.KernelFunction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of compiled prompt functions.
+ * <p>
+ * Parsing a prompt template and building its {@link KernelFunction} is done once per distinct
+ * template; afterwards the same function instance is reused by every request, which is safe because
+ * kernel functions are immutable. Named templates are loaded from {@code prompts.location}
+ * ({@code classpath*:prompts/*.prompt} by default), the name being the file name without extension.
+ * <p>
+ * With {@code prompts.hot-reload} enabled, templates that live on the file system (e.g. when running
+ * from an IDE or an exploded build) are checked every {@code prompts.reload-interval} and recompiled
+ * when their modification time changes, so prompt changes take effect without a restart. A template
+ * that cannot be read or compiled keeps its previous version until the file changes again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PromptFunctionRegistry {
+
+    private static final String PROMPT_EXTENSION = ".prompt";
+
+    private final PromptProperties promptProperties;
+    private final Map<String, KernelFunction<String>> compiled = new ConcurrentHashMap<>();
+    private final Map<String, NamedPrompt> named = new ConcurrentHashMap<>();
+    private Disposable reloadTask;
+
+    /**
+     * Loads and compiles the named templates and starts the hot reload.
+     *
+     * @throws IOException if the template location cannot be scanned
+     */
+    @PostConstruct
+    public void load() throws IOException {
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(promptProperties.getLocation())) {
+            String fileName = resource.getFilename();
+            if (fileName != null && fileName.endsWith(PROMPT_EXTENSION)) {
+                String name = fileName.substring(0, fileName.length() - PROMPT_EXTENSION.length());
+                named.put(name, read(resource));
+                log.info("Loaded prompt '{}' from {}", name, resource.getDescription());
+            }
+        }
+        if (promptProperties.isHotReload()) {
+            reloadTask = Flux.interval(promptProperties.getReloadInterval(), Schedulers.boundedElastic())
+                    .subscribe(tick -> {
+                        // a failing reload must not end the interval, or hot reload stops for good
+                        try {
+                            reload();
+                        } catch (RuntimeException e) {
+                            log.error("Reloading prompts failed", e);
+                        }
+                    });
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reloadTask != null) {
+            reloadTask.dispose();
+        }
+    }
+
+    /**
+     * Returns the compiled function of a named template.
+     *
+     * @param name the template name, i.e. the resource file name without {@code .prompt}
+     * @return the compiled function
+     * @throws IllegalArgumentException if no template with that name was loaded
+     */
+    public KernelFunction<String> get(String name) {
+        return namedPrompt(name).function();
+    }
+
+    /**
+     * Returns the text of a named template, e.g. to include it in cache keys.
+     *
+     * @param name the template name
+     * @return the current template text
+     * @throws IllegalArgumentException if no template with that name was loaded
+     */
+    public String getTemplate(String name) {
+        return namedPrompt(name).template();
+    }
+
+    /**
+     * Returns the compiled function of an inline template, compiling it on first use.
+     *
+     * @param template the prompt template
+     * @return the compiled function, shared by all callers using the same template
+     */
+    public KernelFunction<String> compile(String template) {
+        return compiled.computeIfAbsent(template, text -> KernelFunction.<String>createFromPrompt(text).build());
+    }
+
+    private NamedPrompt namedPrompt(String name) {
+        NamedPrompt prompt = named.get(name);
+        if (prompt == null) {
+            throw new IllegalArgumentException("Unknown prompt: " + name);
+        }
+        return prompt;
+    }
+
+    private NamedPrompt read(Resource resource) throws IOException {
+        String template = resource.getContentAsString(StandardCharsets.UTF_8);
+        return new NamedPrompt(resource, lastModified(resource), template, compile(template));
+    }
+
+    private void reload() {
+        named.replaceAll((name, prompt) -> {
+            if (!prompt.resource().isFile() || lastModified(prompt.resource()) == prompt.lastModified()) {
+                return prompt;
+            }
+            try {
+                NamedPrompt reloaded = read(prompt.resource());
+                if (!reloaded.template().equals(prompt.template())) {
+                    compiled.remove(prompt.template());
+                }
+                log.info("Reloaded prompt '{}'", name);
+                return reloaded;
+            } catch (IOException | RuntimeException e) {
+                // remember the modification time so the broken version is not retried on every tick
+                log.warn("Failed to reload prompt '{}', keeping the previous version: {}", name, e.toString());
+                return new NamedPrompt(prompt.resource(), lastModified(prompt.resource()), prompt.template(),
+                        prompt.function());
+            }
+        });
+    }
+
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.isFile() ? resource.lastModified() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private record NamedPrompt(Resource resource, long lastModified, String template,
+                               KernelFunction<String> function) {
+    }
+}
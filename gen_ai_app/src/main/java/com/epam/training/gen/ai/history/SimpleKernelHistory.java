@@ -1,8 +1,16 @@
 package com.epam.training.gen.ai.history;
 
+import com.epam.training.gen.ai.cache.CachedReply;
+import com.epam.training.gen.ai.cache.ResponseCache;
+import com.epam.training.gen.ai.cache.SemanticCache;
+import com.epam.training.gen.ai.cache.SingleFlight;
+import com.epam.training.gen.ai.config.OpenAIClientProperties;
 import com.epam.training.gen.ai.model.Chat;
 import com.epam.training.gen.ai.model.ChatBotResponse;
-import com.microsoft.semantickernel.Kernel;
+import com.epam.training.gen.ai.resilience.EndpointType;
+import com.epam.training.gen.ai.resilience.FailoverExecutor;
+import com.epam.training.gen.ai.resilience.Served;
+import com.epam.training.gen.ai.service.ChatCompletionRegistry;
 import com.microsoft.semantickernel.orchestration.FunctionResult;
 import com.microsoft.semantickernel.orchestration.PromptExecutionSettings;
 import com.microsoft.semantickernel.semanticfunctions.KernelFunction;
@@ -11,6 +19,7 @@ import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.Optional;
@@ -19,33 +28,102 @@ import java.util.Optional;
  * Service class for interacting with the AI kernel, maintaining chat history.
  *
  * <p>This service provides a method to process user prompts while preserving chat history. It uses
- * the {@link Kernel} to invoke AI responses based on the user's input and the previous chat
+ * the Semantic Kernel to invoke AI responses based on the user's input and the previous chat
  * context. The conversation history is updated after each interaction.
+ *
+ * <p>While the configured deployment's circuit breaker is open, the prompt is answered by one of its
+ * fallback deployments, and the response names the deployment that served it.
+ *
+ * <p>Deterministic (temperature 0) requests that are identical in prompt and settings are coalesced,
+ * so concurrent duplicates share a single completion call. With {@code response-cache.enabled}, their
+ * answers are also cached, so later repeats skip the model altogether. With
+ * {@code semantic-cache.enabled}, prompts that only differ in wording from an answered one are served
+ * from the {@link SemanticCache}.
  */
 @Slf4j
 @Service
 @AllArgsConstructor
 public class SimpleKernelHistory {
-  private final Kernel kernel;
+  private static final String CHAT_PROMPT = "chat-with-history";
+
+  private final ChatCompletionRegistry chatCompletionRegistry;
+  private final FailoverExecutor failoverExecutor;
+  private final SingleFlight<Served<FunctionResult<String>>> chatSingleFlight;
+  private final OpenAIClientProperties openAIClientProperties;
+  private final ResponseCache responseCache;
+  private final SemanticCache semanticCache;
+  private final PromptFunctionRegistry promptFunctionRegistry;
 
   public ChatBotResponse processWithHistory(Chat chat) {
+    return processWithHistory(chat, false);
+  }
+
+  /**
+   * Answers the prompt of the chat request, serving deterministic repeats from the response cache
+   * unless {@code bypassCache} is set.
+   *
+   * @param chat the chat request
+   * @param bypassCache whether to skip the response cache for this request
+   * @return the answer and the deployment that produced it
+   */
+  public ChatBotResponse processWithHistory(Chat chat, boolean bypassCache) {
 
     var chatHistory = new ChatHistory();
     String prompt = Optional.ofNullable(chat.getPrompt()).orElseThrow();
+    double temperature = Optional.ofNullable(chat.getTemperature()).orElse(0D);
+    int maxTokens = Optional.of(chat.getMaxTokens()).orElse(500);
+    List<String> stopSequences = Optional.ofNullable(chat.getStopSequences()).orElse(List.of());
+    String deploymentName = openAIClientProperties.getDeploymentName();
+    KernelFunction<String> chatFunction = getChat();
+    PromptExecutionSettings settings =
+        PromptExecutionSettings.builder()
+            .withTemperature(temperature)
+            .withMaxTokens(maxTokens)
+            .withStopSequences(stopSequences)
+            .build();
+    Mono<Served<FunctionResult<String>>> invocation =
+        failoverExecutor.execute(
+            deploymentName,
+            EndpointType.CHAT,
+            deployment ->
+                failoverExecutor.admitted(
+                    chatCompletionRegistry
+                        .getKernel(deployment)
+                        .invokeAsync(chatFunction)
+                        .withArguments(getKernelFunctionArguments(prompt, chatHistory))
+                        .withPromptExecutionSettings(settings)));
+    Mono<CachedReply> modelCall =
+        (temperature == 0
+                ? chatSingleFlight.execute(
+                    SingleFlight.key(deploymentName, prompt, maxTokens, stopSequences),
+                    () -> invocation)
+                : invocation)
+            .map(
+                served ->
+                    new CachedReply(
+                        Optional.ofNullable(served.value().getResult()).stream().toList(),
+                        served.servedBy()));
+    Mono<CachedReply> call =
+        semanticCache.isCacheable(settings, chatHistory, null, bypassCache)
+            ? semanticCache.get(deploymentName, prompt, () -> modelCall)
+            : modelCall;
     var response =
-        kernel
-            .invokeAsync(getChat())
-            .withArguments(getKernelFunctionArguments(prompt, chatHistory))
-            .withPromptExecutionSettings(
-                PromptExecutionSettings.builder()
-                    .withTemperature(Optional.ofNullable(chat.getTemperature()).orElse(0D))
-                    .withMaxTokens(Optional.of(chat.getMaxTokens()).orElse(500))
-                    .withStopSequences(
-                        Optional.ofNullable(chat.getStopSequences()).orElse(List.of()))
-                    .build())
-            .block();
+        responseCache.isCacheable(settings, null, bypassCache)
+            ? responseCache
+                .get(
+                    ResponseCache.key(
+                        deploymentName,
+                        promptFunctionRegistry.getTemplate(CHAT_PROMPT),
+                        prompt,
+                        settings,
+                        chatCompletionRegistry.getKernel(deploymentName)),
+                    () -> call)
+                .block()
+            : call.block();
     String result =
-        Optional.ofNullable(response).map(FunctionResult::getResult).orElse("No Response..!");
+        Optional.ofNullable(response)
+            .flatMap(reply -> reply.contents().stream().findFirst())
+            .orElse("No Response..!");
     chatHistory.addUserMessage(prompt);
     chatHistory.addAssistantMessage(result);
     chatHistory.addUserMessage("What do you know about me ?");
@@ -53,22 +131,23 @@ public class SimpleKernelHistory {
         "I know about you that your name is Vinayak and you're a backend developer.");
     chatHistory.forEach(chatMessageContent -> log.info(chatMessageContent.getContent()));
     log.info("AI answer : {}", result);
-    return ChatBotResponse.builder().userPrompt(prompt).chatBotResponse(result).build();
+    return ChatBotResponse.builder()
+        .userPrompt(prompt)
+        .chatBotResponse(result)
+        .servedBy(Optional.ofNullable(response).map(CachedReply::servedBy).orElse(null))
+        .build();
   }
 
   /**
-   * Creates a kernel function for generating a chat response using a predefined prompt template.
+   * Returns the kernel function for generating a chat response from the {@code chat-with-history}
+   * prompt resource. The function is compiled once by the {@link PromptFunctionRegistry} and reused.
    *
    * <p>The template includes the chat history and the user's message as variables.
    *
    * @return a {@link KernelFunction} for handling chat-based AI interactions
    */
   private KernelFunction<String> getChat() {
-    return KernelFunction.<String>createFromPrompt(
-            """
-                        {{$chatHistory}}
-                        <message role="user">{{$request}}</message>""")
-        .build();
+    return promptFunctionRegistry.get(CHAT_PROMPT);
   }
 
   /**
@@ -80,9 +159,11 @@ public class SimpleKernelHistory {
    */
   private KernelFunctionArguments getKernelFunctionArguments(
       String prompt, ChatHistory chatHistory) {
-    return KernelFunctionArguments.builder()
-        .withVariable("request", prompt)
-        .withVariable("chatHistory", chatHistory)
-        .build();
+    var arguments = KernelFunctionArguments.builder().withVariable("request", prompt);
+    // an empty history renders to nothing, skip converting it
+    if (!chatHistory.getMessages().isEmpty()) {
+      arguments.withVariable("chatHistory", chatHistory);
+    }
+    return arguments.build();
   }
 }
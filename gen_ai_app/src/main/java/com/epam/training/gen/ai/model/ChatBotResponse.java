@@ -12,4 +12,5 @@ import lombok.NoArgsConstructor;
 public class ChatBotResponse {
   private String userPrompt;
   private String chatBotResponse;
+  private String servedBy;
 }
@@ -5,4 +5,6 @@ import lombok.Data;
 @Data
 public class ChatRequest {
     String inputPrompt;
+    // optional, scopes memoized tool results to one conversation
+    String conversationId;
 }
@@ -6,4 +6,5 @@ import lombok.Data;
 public class ChatResponse {
     String inputPrompt;
     String response;
+    String servedBy;
 }
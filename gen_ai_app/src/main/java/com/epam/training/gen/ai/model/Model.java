@@ -524,6 +524,49 @@ public enum Model {
         return value;
     }
 
+    /**
+     * Returns the byte pair encoding used to count the tokens of this model.
+     *
+     * @return {@link TokenEncoding#O200K_BASE} for GPT-4o models, {@link TokenEncoding#CL100K_BASE}
+     * for all other models (an approximation for non-OpenAI models)
+     */
+    public TokenEncoding encoding() {
+        return TokenEncoding.forModelId(value);
+    }
+
+    /**
+     * Returns the maximum number of tokens of the model's context window, prompt and completion combined;
+     * for embedding models the maximum number of input tokens.
+     *
+     * @return the context window in tokens; {@code 4096} for models whose window is not known
+     */
+    public int contextWindow() {
+        return switch (this) {
+            case GPT_35_TURBO_0301, GPT_35_TURBO_0613 -> 4_096;
+            case GPT_35_TURBO_1106, GPT_35_TURBO_0125, GPT_35_TURBO, GPT_35_TURBO_16K -> 16_385;
+            case GPT_4_0613, GPT_4, AI21_J2_GRANDE_INSTRUCT, AI21_J2_JUMBO_INSTRUCT, AMAZON_TITAN_TG1_LARGE,
+                 AMAZON_TITAN_EMBED_TEXT_V1, AMAZON_TITAN_EMBED_TEXT_V2, META_LLAMA3_8B_INSTRUCT_V1,
+                 META_LLAMA3_70B_INSTRUCT_V1, META_LLAMA3, LLAMA_3_8B_INSTRUCT -> 8_192;
+            case TEXT_EMBEDDING_ADA_002, TEXT_EMBEDDING_3_LARGE, TEXT_EMBEDDING_3_SMALL -> 8_191;
+            case GPT_4_32K_0314, GPT_4_32K_0613, GPT_4_32K, CHAT_BISON_32K_002, CODECHAT_BISON_32K_002,
+                 MISTRAL_7B_INSTRUCT, MIXTRAL_8X7B_INSTRUCT_V0_1, DATABRICKS_MIXTRAL_8X7B_INSTRUCT, DATABRICKS_DBRX_INSTRUCT,
+                 MISTRAL_LARGE_AZURE, GEMINI_PRO, GEMINI_PRO_VISION -> 32_768;
+            case GPT_4_1106_PREVIEW, GPT_4_0125_PREVIEW, GPT_4_TURBO_20240409, GPT_4_TURBO, GPT_4_VISION_PREVIEW,
+                 GPT_4O_20240513, AMAZON_NOVA_MICRO_V1 -> 128_000;
+            case AMAZON_NOVA_LITE_V1, AMAZON_NOVA_PRO_V1 -> 300_000;
+            case CLAUDE_INSTANT_V1, CLAUDE_V2 -> 100_000;
+            case CLAUDE_V2_1, CLAUDE_V3_OPUS, CLAUDE_V3_HAIKU, CLAUDE_3_5_HAIKU, CLAUDE_V3_SONNET, CLAUDE_V3_5_SONNET,
+                 CLAUDE_3_5_SONNET, CLAUDE -> 200_000;
+            case GEMINI_1_5_PRO_PREVIEW, GEMINI_1_5_FLASH_001, GEMINI_2_0_FLASH_EXP, GEMINI_EXP_1206,
+                 GEMINI_2_0_FLASH_THINKING_EXP -> 1_000_000;
+            case META_LLAMA2_13B_CHAT_V1, META_LLAMA2_70B_CHAT_V1, META_LLAMA2, DATABRICKS_LLAMA_2_70B_CHAT,
+                 COHERE_COMMAND_TEXT_V14 -> 4_096;
+            case CODELLAMA_34B_INSTRUCT_HF -> 16_384;
+            case CHAT_BISON_001, CHAT_BISON, CODECHAT_BISON_001, CODECHAT_BISON -> 8_192;
+            default -> 4_096;
+        };
+    }
+
     /**
      * A static final map serving as a lookup table that associates string keys
      * with corresponding Model objects. This map is intended to provide efficient
@@ -0,0 +1,20 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class ModelReply {
+  private String modelId;
+  private String servedBy;
+  private List<String> messages;
+  private long latencyMillis;
+  private String error;
+}
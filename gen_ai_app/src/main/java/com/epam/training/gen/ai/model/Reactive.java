@@ -5,6 +5,13 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 /**
  * The Reactive interface provides utility methods for working with reactive
@@ -18,35 +25,100 @@ import reactor.core.publisher.Mono;
  * and Reactive Streams.
  * <p>
  * The conversion ensures proper propagation of success and failure signals
- * from the ListenableFuture to the Mono sink.
- *
- * @param <T> the type of result produced by the Mono
+ * from the ListenableFuture to the Mono sink, and of cancellation the other way: when the
+ * subscriber cancels, or the {@link #deadline()} passes, the future is cancelled, which for gRPC
+ * futures cancels the remote call. Signals are published on the {@link #scheduler()}, so
+ * downstream operators never run on the threads that complete the futures, e.g. gRPC event loops.
+ * The default is {@link Schedulers#boundedElastic()} because callers block downstream, e.g. on
+ * file I/O or {@code block()}; an implementation that overrides it with a non-blocking scheduler
+ * such as {@link Schedulers#parallel()} must keep its downstream operators non-blocking.
+ * Implementations may override both.
  */
 public interface Reactive {
 
     /**
-     * Converts an instance of {@link ListenableFuture} into a {@link Mono}.
-     * This allows bridging between Guava's asynchronous utilities and Project Reactor's
-     * reactive programming model.
+     * Deadline applied by {@link #toMono(ListenableFuture)} unless {@link #deadline()} is overridden.
+     */
+    Duration DEFAULT_DEADLINE = Duration.ofSeconds(30);
+
+    /**
+     * The scheduler the results of converted futures are published on.
+     *
+     * @return {@link Schedulers#boundedElastic()} unless overridden
+     */
+    default Scheduler scheduler() {
+        return Schedulers.boundedElastic();
+    }
+
+    /**
+     * The time after which a converted future is cancelled and the Mono fails with a
+     * {@link java.util.concurrent.TimeoutException}.
+     *
+     * @return {@link #DEFAULT_DEADLINE} unless overridden
+     */
+    default Duration deadline() {
+        return DEFAULT_DEADLINE;
+    }
+
+    /**
+     * Converts an instance of {@link ListenableFuture} into a {@link Mono}, publishing on the
+     * {@link #scheduler()} and bounded by the {@link #deadline()}.
      *
      * @param <T>    the type of the result contained in the ListenableFuture and the resulting Mono
      * @param future the ListenableFuture to be converted into a Mono; must not be null
      * @return a Mono that emits the value of the future upon completion or propagates
-     * an error if the future fails
+     * an error if the future fails; cancelling it cancels the future
      */
     default <T> Mono<T> toMono(ListenableFuture<T> future) {
-        return Mono.create(sink ->
-                Futures.addCallback(future, new FutureCallback<>() {
-                    @Override
-                    public void onSuccess(T result) {
-                        sink.success(result);
-                    }
-
-                    @Override
-                    public void onFailure(Throwable t) {
-                        sink.error(t);
-                    }
-                }, MoreExecutors.directExecutor())
-        );
+        return toMono(future, scheduler(), deadline());
+    }
+
+    /**
+     * Converts a {@link ListenableFuture} created on subscription into a {@link Mono}, so no work is
+     * started for a Mono that is never subscribed or cancelled before.
+     *
+     * @param <T>            the type of the result of the future
+     * @param futureSupplier creates the future; called once per subscription
+     * @return a Mono that emits the value of the future, see {@link #toMono(ListenableFuture)}
+     */
+    default <T> Mono<T> toMono(Supplier<ListenableFuture<T>> futureSupplier) {
+        return Mono.defer(() -> toMono(futureSupplier.get()));
+    }
+
+    /**
+     * Converts an instance of {@link ListenableFuture} into a {@link Mono}.
+     *
+     * @param <T>       the type of the result of the future
+     * @param future    the ListenableFuture to be converted into a Mono; must not be null
+     * @param scheduler the scheduler the result or error is published on
+     * @param deadline  the time after which the future is cancelled and the Mono fails with a
+     *                  {@link java.util.concurrent.TimeoutException}
+     * @return a Mono that emits the value of the future upon completion or propagates
+     * an error if the future fails; cancelling it cancels the future
+     */
+    static <T> Mono<T> toMono(ListenableFuture<T> future, Scheduler scheduler, Duration deadline) {
+        return Mono.<T>create(sink -> {
+                    AtomicBoolean cancelled = new AtomicBoolean();
+                    sink.onCancel(() -> {
+                        cancelled.set(true);
+                        future.cancel(true);
+                    });
+                    Futures.addCallback(future, new FutureCallback<>() {
+                        @Override
+                        public void onSuccess(T result) {
+                            sink.success(result);
+                        }
+
+                        @Override
+                        public void onFailure(Throwable t) {
+                            // the subscriber is gone once it cancelled the future itself
+                            if (!(cancelled.get() && t instanceof CancellationException)) {
+                                sink.error(t);
+                            }
+                        }
+                    }, MoreExecutors.directExecutor());
+                })
+                .timeout(deadline)
+                .publishOn(scheduler);
     }
 }
@@ -0,0 +1,19 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class ScoredText {
+  private String text;
+  private Map<String, String> payload;
+  private float score;
+  private String id;
+}
@@ -0,0 +1,121 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Restricts a vector search to the points of a tenant, a set of documents, a time range and exact
+ * payload values. All given conditions must hold; a filter without conditions matches every point.
+ * <p>
+ * The conditions apply to the payload fields {@link #TENANT_KEY}, {@link #DOCUMENT_ID_KEY} and
+ * {@link #CREATED_AT_KEY}, which the vector stores index so the filter is evaluated while the
+ * nearest neighbours are searched rather than on the top-k afterwards.
+ */
+@Value
+@Builder
+public class SearchFilter {
+
+  /**
+   * Payload field holding the tenant a point belongs to.
+   */
+  public static final String TENANT_KEY = "tenant";
+
+  /**
+   * Payload field holding the id of the document a chunk was taken from.
+   */
+  public static final String DOCUMENT_ID_KEY = "document_id";
+
+  /**
+   * Payload field holding the position of a chunk within its document.
+   */
+  public static final String CHUNK_INDEX_KEY = "chunk_index";
+
+  /**
+   * Payload field holding when a point was stored, as an ISO-8601 instant.
+   */
+  public static final String CREATED_AT_KEY = "created_at";
+
+  /**
+   * Filter that matches every point.
+   */
+  public static final SearchFilter NONE = SearchFilter.builder().build();
+
+  /**
+   * The tenant the points must belong to, or {@code null} for any tenant.
+   */
+  String tenant;
+
+  /**
+   * The documents the points must come from; empty for any document.
+   */
+  @Singular
+  List<String> documentIds;
+
+  /**
+   * The earliest storage time, inclusive, or {@code null}.
+   */
+  Instant from;
+
+  /**
+   * The latest storage time, exclusive, or {@code null}.
+   */
+  Instant to;
+
+  /**
+   * Other payload fields the points must match exactly.
+   */
+  @Singular
+  Map<String, String> keywords;
+
+  /**
+   * Creates a filter on exact payload values only.
+   *
+   * @param keywords the payload fields and the values they must have
+   * @return the filter
+   */
+  public static SearchFilter matching(Map<String, String> keywords) {
+    return SearchFilter.builder().keywords(keywords).build();
+  }
+
+  /**
+   * Tells whether the filter has no conditions.
+   *
+   * @return {@code true} if every point matches
+   */
+  public boolean isEmpty() {
+    return tenant == null && documentIds.isEmpty() && from == null && to == null && keywords.isEmpty();
+  }
+
+  /**
+   * Evaluates the filter on a payload, for stores that cannot evaluate it themselves.
+   *
+   * @param payload the payload of a point
+   * @return {@code true} if the point matches all conditions
+   */
+  public boolean matches(Map<String, String> payload) {
+    if (tenant != null && !tenant.equals(payload.get(TENANT_KEY))) {
+      return false;
+    }
+    if (!documentIds.isEmpty() && !documentIds.contains(payload.get(DOCUMENT_ID_KEY))) {
+      return false;
+    }
+    if (from != null || to != null) {
+      Instant createdAt;
+      try {
+        createdAt = Instant.parse(payload.getOrDefault(CREATED_AT_KEY, ""));
+      } catch (DateTimeParseException e) {
+        return false;
+      }
+      if ((from != null && createdAt.isBefore(from)) || (to != null && !createdAt.isBefore(to))) {
+        return false;
+      }
+    }
+    return payload.entrySet().containsAll(keywords.entrySet());
+  }
+}
@@ -0,0 +1,31 @@
+package com.epam.training.gen.ai.model;
+
+/**
+ * The {@code TokenEncoding} enum lists the byte pair encodings used to split text into model tokens.
+ * <p>
+ * Only OpenAI models publish their encodings. For models of other vendors {@link #CL100K_BASE} is
+ * used as an approximation, which is close enough for budgeting and rate limiting but not exact.
+ */
+public enum TokenEncoding {
+
+    /**
+     * The encoding of the GPT-3.5, GPT-4 and {@code text-embedding-*} models.
+     */
+    CL100K_BASE,
+
+    /**
+     * The encoding of the GPT-4o models.
+     */
+    O200K_BASE;
+
+    /**
+     * Returns the encoding of a model by its id, for models that are not listed in {@link Model}.
+     *
+     * @param modelId the model or deployment id
+     * @return {@link #O200K_BASE} for ids of the GPT-4o family ({@code gpt-4o}, {@code gpt-4o-mini}
+     * and their dated versions), {@link #CL100K_BASE} otherwise
+     */
+    public static TokenEncoding forModelId(String modelId) {
+        return modelId != null && modelId.startsWith("gpt-4o") ? O200K_BASE : CL100K_BASE;
+    }
+}
@@ -0,0 +1,63 @@
+package com.epam.training.gen.ai.model;
+
+import com.azure.ai.openai.models.CompletionsUsage;
+import com.azure.ai.openai.models.CompletionsUsagePromptTokensDetails;
+import com.microsoft.semantickernel.orchestration.FunctionResultMetadata;
+import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Token usage reported by the chat completions API for a single call.
+ */
+@Data
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class TokenUsage {
+    private long promptTokens;
+    /**
+     * Prompt tokens served from the provider's prompt prefix cache, included in {@link #promptTokens}.
+     */
+    private long cachedPromptTokens;
+    private long completionTokens;
+    private long totalTokens;
+
+    /**
+     * Extracts the usage from the metadata of the messages returned by Semantic Kernel.
+     * Usage is attached to each assistant message, so the last message carrying it wins.
+     *
+     * @param messages the messages returned by a chat completion call
+     * @return the token usage, or an empty usage if the service did not report any
+     */
+    public static TokenUsage from(List<ChatMessageContent<?>> messages) {
+        TokenUsage usage = new TokenUsage();
+        for (ChatMessageContent<?> message : messages) {
+            FunctionResultMetadata<?> metadata = message.getMetadata();
+            if (metadata != null && metadata.getUsage() instanceof CompletionsUsage completionsUsage) {
+                usage = from(completionsUsage);
+            }
+        }
+        return usage;
+    }
+
+    /**
+     * Converts the usage reported by the Azure OpenAI client.
+     *
+     * @param completionsUsage the usage returned with a chat completion
+     * @return the token usage
+     */
+    public static TokenUsage from(CompletionsUsage completionsUsage) {
+        CompletionsUsagePromptTokensDetails details = completionsUsage.getPromptTokensDetails();
+        return TokenUsage.builder()
+                .promptTokens(completionsUsage.getPromptTokens())
+                .cachedPromptTokens(details == null || details.getCachedTokens() == null ? 0 : details.getCachedTokens())
+                .completionTokens(completionsUsage.getCompletionTokens())
+                .totalTokens(completionsUsage.getTotalTokens())
+                .build();
+    }
+}
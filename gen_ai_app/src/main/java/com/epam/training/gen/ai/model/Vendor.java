@@ -2,7 +2,9 @@ package com.epam.training.gen.ai.model;
 
 import lombok.Getter;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * The {@code Vendor} enum represents a collection of vendors, each associated with a list of models.
@@ -244,4 +246,16 @@ public enum Vendor {
     public static Vendor fromString(String vendorName) {
         return Vendor.valueOf(vendorName.toUpperCase());
     }
+
+    /**
+     * Finds the vendor whose model list contains the given model.
+     *
+     * @param model the model to look up
+     * @return an Optional containing the vendor offering the model, otherwise an empty Optional
+     */
+    public static Optional<Vendor> of(Model model) {
+        return Arrays.stream(values())
+                .filter(vendor -> vendor.getModels().contains(model))
+                .findFirst();
+    }
 }
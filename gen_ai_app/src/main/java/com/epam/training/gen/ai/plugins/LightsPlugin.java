@@ -4,15 +4,21 @@ import com.epam.training.gen.ai.model.LightModel;
 import com.microsoft.semantickernel.semanticfunctions.annotations.DefineKernelFunction;
 import com.microsoft.semantickernel.semanticfunctions.annotations.KernelFunctionParameter;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mock smart-home plugin.
+ * <p>
+ * The plugin instance is shared by all requests, and the tool calls of one turn run concurrently, so
+ * the lights are kept in a {@link ConcurrentHashMap}: a state change is an atomic update of its entry,
+ * which only locks that entry, and readers get copies instead of the mutable entries.
+ */
 public class LightsPlugin {
 
   // Mock data for the lights
-  private final Map<Integer, LightModel> lights = new HashMap<>();
+  private final Map<Integer, LightModel> lights = new ConcurrentHashMap<>();
 
   public LightsPlugin() {
     lights.put(1, new LightModel(1, "Table Lamp", false));
@@ -20,23 +26,28 @@ public class LightsPlugin {
     lights.put(3, new LightModel(3, "Chandelier", true));
   }
 
+  @ReadOnly(entities = "light", ttlSeconds = 300)
   @DefineKernelFunction(name = "get_lights", description = "Gets a list of lights and their current state")
   public List<LightModel> getLights() {
     System.out.println("Getting lights");
-    return new ArrayList<>(lights.values());
+    return lights.values().stream().map(LightsPlugin::copyOf).toList();
   }
 
+  @Mutating(entities = "light")
   @DefineKernelFunction(name = "change_state", description = "Changes the state of the light")
   public LightModel changeState(
       @KernelFunctionParameter(name = "id", description = "The ID of the light to change") int id,
       @KernelFunctionParameter(name = "isOn", description = "The new state of the light") boolean isOn) {
     System.out.println("Changing light " + id + " " + isOn);
-    if (!lights.containsKey(id)) {
+    LightModel light = lights.computeIfPresent(id, (key, current) ->
+        new LightModel(current.getId(), current.getType(), isOn));
+    if (light == null) {
       throw new IllegalArgumentException("Light not found");
     }
+    return copyOf(light);
+  }
 
-    lights.get(id).setIsOn(isOn);
-
-    return lights.get(id);
+  private static LightModel copyOf(LightModel light) {
+    return new LightModel(light.getId(), light.getType(), light.getIsOn());
   }
-}
\ No newline at end of file
+}
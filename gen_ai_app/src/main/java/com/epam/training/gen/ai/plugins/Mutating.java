@@ -0,0 +1,22 @@
+package com.epam.training.gen.ai.plugins;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a kernel function that changes state. Calling it discards the memoized results of every
+ * {@link ReadOnly} function reading one of the same {@link #entities()}, in all sessions.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Mutating {
+
+    /**
+     * The kinds of entities the function changes, e.g. {@code "light"}.
+     */
+    String[] entities();
+}
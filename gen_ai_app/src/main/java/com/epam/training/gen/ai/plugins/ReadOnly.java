@@ -0,0 +1,30 @@
+package com.epam.training.gen.ai.plugins;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a kernel function that only reads state, so its results may be memoized.
+ * <p>
+ * A memoized result is reused for calls with the same arguments in the same session until it is
+ * older than {@link #ttlSeconds()} or a {@link Mutating} function touching one of its
+ * {@link #entities()} is called.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadOnly {
+
+    /**
+     * The kinds of entities the function reads, e.g. {@code "light"}.
+     */
+    String[] entities() default {};
+
+    /**
+     * How long a result may be reused, in seconds.
+     */
+    long ttlSeconds() default 60;
+}
@@ -0,0 +1,261 @@
+package com.epam.training.gen.ai.resilience;
+
+import com.epam.training.gen.ai.config.LimiterProperties;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Client-side limiter for one deployment and endpoint type.
+ * <p>
+ * A request is admitted when all three of the following allow it:
+ * <ul>
+ *     <li>a request token bucket refilled at {@code requestsPerMinute},</li>
+ *     <li>a token bucket refilled at {@code tokensPerMinute}, charged with the estimated tokens of
+ *     the request and corrected with the actual usage afterwards,</li>
+ *     <li>an AIMD concurrency limit: it grows by {@code 1/limit} per fast success, shrinks
+ *     multiplicatively when the upstream answers with 429 and slightly when latency exceeds
+ *     {@code latencyTolerance} times the slowly moving latency baseline.</li>
+ * </ul>
+ * Requests that cannot be admitted wait in a FIFO queue instead of failing, so callers are served in
+ * arrival order and nobody starves. Only a full queue or a request waiting longer than the queue
+ * timeout fails.
+ */
+public class AdaptiveLimiter {
+
+    private static final double NANOS_PER_MINUTE = 60_000_000_000.0;
+    private static final double BASELINE_ALPHA = 0.05;
+
+    private final LimiterProperties limiterProperties;
+    private final Deque<Waiter> queue = new ArrayDeque<>();
+    private LimiterProperties.LimitSettings settings;
+    private double limit;
+    private int inFlight;
+    private double requestBucket;
+    private double tokenBucket;
+    private long lastRefillNanos;
+    private double baselineLatencyMillis = Double.NaN;
+    private long throttled;
+
+    public AdaptiveLimiter(LimiterProperties limiterProperties, LimiterProperties.LimitSettings settings) {
+        this.limiterProperties = limiterProperties;
+        this.settings = settings;
+        this.limit = Math.clamp(settings.getInitialConcurrency(), settings.getMinConcurrency(), settings.getMaxConcurrency());
+        this.requestBucket = settings.getRequestsPerMinute();
+        this.tokenBucket = settings.getTokensPerMinute();
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Waits for admission of a request.
+     *
+     * @param estimatedTokens the number of tokens the request is expected to consume
+     * @return a {@link Mono} emitting a permit once the request is admitted; the permit must be
+     * released exactly once. Cancelling the {@code Mono} before admission leaves the queue.
+     */
+    public Mono<Permit> acquire(int estimatedTokens) {
+        return Mono.<Permit>create(sink -> {
+                    Waiter waiter = new Waiter(estimatedTokens, sink);
+                    boolean queued;
+                    synchronized (this) {
+                        queued = queue.size() < limiterProperties.getMaxQueueSize() && queue.add(waiter);
+                    }
+                    if (!queued) {
+                        sink.error(new LimitExceededException("Limiter queue is full"));
+                        return;
+                    }
+                    sink.onCancel(() -> {
+                        Permit permit;
+                        synchronized (this) {
+                            permit = queue.remove(waiter) ? null : waiter.permit;
+                        }
+                        if (permit != null) {
+                            // admitted concurrently with the cancellation, the permit will never be used
+                            permit.release(Outcome.CANCELLED, 0, 0);
+                        }
+                    });
+                    drain();
+                })
+                .timeout(limiterProperties.getQueueTimeout(),
+                        Mono.error(() -> new LimitExceededException("Timed out waiting for a limiter permit")));
+    }
+
+    /**
+     * Admits as many queued requests as the limits allow. Called on every release and periodically
+     * so that requests waiting for the token buckets are admitted as the buckets refill.
+     */
+    public void drain() {
+        List<Waiter> admitted = new ArrayList<>();
+        synchronized (this) {
+            refill();
+            while (!queue.isEmpty() && inFlight < Math.floor(limit) && requestBucket >= 1) {
+                Waiter head = queue.peek();
+                // a request larger than the whole bucket is admitted once the bucket is full
+                double tokens = Math.min(head.tokens, settings.getTokensPerMinute());
+                if (tokenBucket < tokens) {
+                    break;
+                }
+                queue.poll();
+                requestBucket -= 1;
+                tokenBucket -= tokens;
+                inFlight++;
+                head.permit = new Permit(head.tokens);
+                admitted.add(head);
+            }
+        }
+        admitted.forEach(waiter -> waiter.sink.success(waiter.permit));
+    }
+
+    /**
+     * Changes the limits at runtime. Fields left {@code null} keep their current value and the
+     * current concurrency limit is clamped to the new bounds.
+     *
+     * @param changes the limits to change
+     * @throws IllegalArgumentException if the resulting minimum concurrency exceeds the maximum
+     */
+    public void update(LimiterProperties.LimitSettings changes) {
+        synchronized (this) {
+            LimiterProperties.LimitSettings newSettings = settings.overriddenBy(changes);
+            if (!newSettings.isConcurrencyRangeValid()) {
+                throw new IllegalArgumentException("minConcurrency " + newSettings.getMinConcurrency()
+                        + " exceeds maxConcurrency " + newSettings.getMaxConcurrency());
+            }
+            this.settings = newSettings;
+            this.limit = Math.clamp(limit, newSettings.getMinConcurrency(), newSettings.getMaxConcurrency());
+            this.requestBucket = Math.min(requestBucket, newSettings.getRequestsPerMinute());
+            this.tokenBucket = Math.min(tokenBucket, newSettings.getTokensPerMinute());
+        }
+        drain();
+    }
+
+    public synchronized LimiterProperties.LimitSettings getSettings() {
+        return settings;
+    }
+
+    public synchronized double getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    public synchronized double getAvailableTokens() {
+        return tokenBucket;
+    }
+
+    public synchronized long getThrottled() {
+        return throttled;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double elapsedMinutes = (now - lastRefillNanos) / NANOS_PER_MINUTE;
+        lastRefillNanos = now;
+        requestBucket = Math.min(settings.getRequestsPerMinute(), requestBucket + elapsedMinutes * settings.getRequestsPerMinute());
+        tokenBucket = Math.min(settings.getTokensPerMinute(), tokenBucket + elapsedMinutes * settings.getTokensPerMinute());
+    }
+
+    private void onRelease(Permit permit, Outcome outcome, double latencyMillis, int actualTokens) {
+        synchronized (this) {
+            inFlight--;
+            if (actualTokens > 0) {
+                tokenBucket -= actualTokens - Math.min(permit.tokens(), settings.getTokensPerMinute());
+            }
+            switch (outcome) {
+                case THROTTLED -> {
+                    throttled++;
+                    limit = Math.max(settings.getMinConcurrency(), limit * limiterProperties.getBackoffRatio());
+                    // the upstream is out of capacity, stop admitting until the buckets refill a bit
+                    requestBucket = Math.min(requestBucket, 0);
+                }
+                case SUCCESS -> {
+                    boolean slow = latencyMillis > baselineLatencyMillis * limiterProperties.getLatencyTolerance();
+                    baselineLatencyMillis = Double.isNaN(baselineLatencyMillis)
+                            ? latencyMillis
+                            : baselineLatencyMillis + BASELINE_ALPHA * (latencyMillis - baselineLatencyMillis);
+                    if (slow) {
+                        limit = Math.max(settings.getMinConcurrency(), limit * limiterProperties.getLatencyBackoffRatio());
+                    } else if (inFlight + 1 >= Math.floor(limit)) {
+                        limit = Math.min(settings.getMaxConcurrency(), limit + 1 / limit);
+                    }
+                }
+                case FAILURE, CANCELLED -> {
+                    // failures other than throttling and cancellations say nothing about capacity
+                }
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Outcome of an admitted request, used to adapt the concurrency limit.
+     */
+    public enum Outcome {
+        SUCCESS,
+        THROTTLED,
+        FAILURE,
+        CANCELLED
+    }
+
+    /**
+     * Admission of a single request.
+     */
+    public final class Permit {
+        private final int tokens;
+        private boolean released;
+
+        private Permit(int tokens) {
+            this.tokens = tokens;
+        }
+
+        int tokens() {
+            return tokens;
+        }
+
+        /**
+         * Returns the permit and feeds the outcome into the adaptive limit.
+         *
+         * @param outcome       the outcome of the request
+         * @param latencyMillis the latency of the request
+         * @param actualTokens  the tokens actually consumed, or {@code 0} if unknown
+         */
+        public void release(Outcome outcome, double latencyMillis, int actualTokens) {
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            onRelease(this, outcome, latencyMillis, actualTokens);
+        }
+    }
+
+    private static final class Waiter {
+        private final int tokens;
+        private final MonoSink<Permit> sink;
+        private Permit permit;
+
+        private Waiter(int tokens, MonoSink<Permit> sink) {
+            this.tokens = tokens;
+            this.sink = sink;
+        }
+    }
+
+    /**
+     * Signals that a request was rejected by the limiter itself, without reaching the upstream.
+     */
+    public static class LimitExceededException extends RuntimeException {
+        public LimitExceededException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.epam.training.gen.ai.resilience;
+
+import com.epam.training.gen.ai.config.CircuitBreakerProperties;
+
+/**
+ * Count-based circuit breaker for one deployment.
+ * <p>
+ * While {@link State#CLOSED} the outcomes of the last {@code slidingWindowSize} calls are kept; once
+ * at least {@code minimumCalls} were recorded and the share of failures (errors and calls slower than
+ * {@code slowCallDuration}) reaches {@code failureRateThreshold}, the breaker opens. An open breaker
+ * rejects calls without touching the upstream until {@code openDuration} has passed, then lets up to
+ * {@code halfOpenProbes} calls through. If all probes succeed the breaker closes again, a single
+ * failing probe opens it for another {@code openDuration}.
+ */
+public class CircuitBreaker {
+
+    private final CircuitBreakerProperties circuitBreakerProperties;
+    private final boolean[] failures;
+    private State state = State.CLOSED;
+    private int next;
+    private int recorded;
+    private int failed;
+    private long openedAtNanos;
+    private int probesInFlight;
+    private int probesSucceeded;
+
+    public CircuitBreaker(CircuitBreakerProperties circuitBreakerProperties) {
+        this.circuitBreakerProperties = circuitBreakerProperties;
+        this.failures = new boolean[Math.max(circuitBreakerProperties.getSlidingWindowSize(), 1)];
+    }
+
+    /**
+     * Asks for permission to call the deployment. Every granted permission must be followed by
+     * exactly one of {@link #onSuccess}, {@link #onFailure} or {@link #onCancel}.
+     *
+     * @return {@code true} if the call may proceed, {@code false} if it must fail fast
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < circuitBreakerProperties.getOpenDuration().toNanos()) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+            probesSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight + probesSucceeded >= circuitBreakerProperties.getHalfOpenProbes()) {
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    /**
+     * Records a successful call.
+     *
+     * @param latencyMillis the latency of the call; calls slower than {@code slowCallDuration} count as failures
+     */
+    public synchronized void onSuccess(long latencyMillis) {
+        if (latencyMillis >= circuitBreakerProperties.getSlowCallDuration().toMillis()) {
+            onFailure();
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            probesInFlight = Math.max(probesInFlight - 1, 0);
+            if (++probesSucceeded >= circuitBreakerProperties.getHalfOpenProbes()) {
+                close();
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    /**
+     * Records a failed call.
+     */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= circuitBreakerProperties.getMinimumCalls()
+                    && failed >= circuitBreakerProperties.getFailureRateThreshold() * recorded) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * Returns the permission of a call that was cancelled before it completed; the call says nothing
+     * about the health of the deployment.
+     */
+    public synchronized void onCancel() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0 : (double) failed / recorded;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == failures.length) {
+            failed -= failures[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        failures[next] = failure;
+        failed += failure ? 1 : 0;
+        next = (next + 1) % failures.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtNanos = System.nanoTime();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failed = 0;
+    }
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    /**
+     * Signals that a call was rejected because the breakers of the deployment and all of its
+     * fallbacks are open.
+     */
+    public static class CallNotPermittedException extends RuntimeException {
+        public CallNotPermittedException(String message) {
+            super(message);
+        }
+    }
+}
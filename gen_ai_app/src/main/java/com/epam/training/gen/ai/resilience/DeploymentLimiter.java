@@ -0,0 +1,185 @@
+package com.epam.training.gen.ai.resilience;
+
+import com.azure.core.exception.HttpResponseException;
+import com.epam.training.gen.ai.config.LimiterProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Client-side limits for outbound model calls, one {@link AdaptiveLimiter} per deployment id and
+ * {@link EndpointType}.
+ * <p>
+ * Limits start from {@code rate-limiting.defaults}, can be overridden field by field per deployment
+ * in {@code rate-limiting.deployments} and changed at runtime through {@link #update}. The adaptive
+ * concurrency limit, in-flight requests, queue length, available tokens and the number of 429
+ * responses are exported as Micrometer gauges tagged with the deployment and endpoint type.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeploymentLimiter {
+
+    private static final Duration DRAIN_INTERVAL = Duration.ofMillis(50);
+
+    private final LimiterProperties limiterProperties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+    private Disposable drainTask;
+
+    /**
+     * Starts the periodic drain that admits queued requests as the token buckets refill.
+     */
+    @PostConstruct
+    public void start() {
+        drainTask = Flux.interval(DRAIN_INTERVAL)
+                .subscribe(tick -> limiters.forEach((key, limiter) -> {
+                    // a failing limiter must neither end the drain nor starve the other limiters
+                    try {
+                        if (limiter.getQueueSize() > 0) {
+                            limiter.drain();
+                        }
+                    } catch (RuntimeException e) {
+                        log.error("Draining limiter {} failed", key, e);
+                    }
+                }));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (drainTask != null) {
+            drainTask.dispose();
+        }
+    }
+
+    /**
+     * Runs the call once the limiter of the deployment admits it.
+     *
+     * @param deployment      the deployment id
+     * @param endpointType    the endpoint type
+     * @param estimatedTokens the number of tokens the call is expected to consume
+     * @param call            creates the call
+     * @param actualTokens    extracts the tokens actually consumed from the result, or returns {@code 0}
+     * @param <T>             the result type
+     * @return a {@link Mono} emitting the result of the call
+     */
+    public <T> Mono<T> execute(String deployment, EndpointType endpointType, int estimatedTokens,
+                               Supplier<Mono<T>> call, ToIntFunction<T> actualTokens) {
+        if (!limiterProperties.isEnabled()) {
+            return Mono.defer(call);
+        }
+        AdaptiveLimiter limiter = limiterFor(deployment, endpointType);
+        return Mono.usingWhen(
+                limiter.acquire(estimatedTokens).map(permit -> new Lease(permit, System.nanoTime())),
+                lease -> Mono.defer(call)
+                        .doOnNext(result -> lease.release(AdaptiveLimiter.Outcome.SUCCESS, actualTokens.applyAsInt(result)))
+                        .doOnError(e -> lease.release(isThrottled(e)
+                                ? AdaptiveLimiter.Outcome.THROTTLED
+                                : AdaptiveLimiter.Outcome.FAILURE, 0)),
+                lease -> Mono.fromRunnable(() -> lease.release(AdaptiveLimiter.Outcome.SUCCESS, 0)),
+                (lease, e) -> Mono.empty(),
+                lease -> Mono.fromRunnable(() -> lease.release(AdaptiveLimiter.Outcome.CANCELLED, 0)));
+    }
+
+    /**
+     * Runs a streaming call once the limiter of the deployment admits it. The permit is held until
+     * the stream terminates or is cancelled.
+     *
+     * @param deployment      the deployment id
+     * @param endpointType    the endpoint type
+     * @param estimatedTokens the number of tokens the call is expected to consume
+     * @param call            creates the call
+     * @param actualTokens    extracts the tokens consumed from an element, or returns {@code 0}; the
+     *                        values of all elements are summed
+     * @param <T>             the element type
+     * @return a {@link Flux} emitting the elements of the call
+     */
+    public <T> Flux<T> executeMany(String deployment, EndpointType endpointType, int estimatedTokens,
+                                   Supplier<Flux<T>> call, ToIntFunction<T> actualTokens) {
+        if (!limiterProperties.isEnabled()) {
+            return Flux.defer(call);
+        }
+        AdaptiveLimiter limiter = limiterFor(deployment, endpointType);
+        return Flux.usingWhen(
+                limiter.acquire(estimatedTokens).map(permit -> new Lease(permit, System.nanoTime())),
+                lease -> {
+                    AtomicInteger tokens = new AtomicInteger();
+                    return Flux.defer(call)
+                            .doOnNext(element -> tokens.addAndGet(actualTokens.applyAsInt(element)))
+                            .doOnComplete(() -> lease.release(AdaptiveLimiter.Outcome.SUCCESS, tokens.get()))
+                            .doOnError(e -> lease.release(isThrottled(e)
+                                    ? AdaptiveLimiter.Outcome.THROTTLED
+                                    : AdaptiveLimiter.Outcome.FAILURE, tokens.get()));
+                },
+                lease -> Mono.fromRunnable(() -> lease.release(AdaptiveLimiter.Outcome.SUCCESS, 0)),
+                (lease, e) -> Mono.empty(),
+                lease -> Mono.fromRunnable(() -> lease.release(AdaptiveLimiter.Outcome.CANCELLED, 0)));
+    }
+
+    /**
+     * Changes the limits of a deployment and endpoint type at runtime.
+     *
+     * @param deployment   the deployment id
+     * @param endpointType the endpoint type
+     * @param settings     the limits to change; fields left {@code null} keep their current value
+     * @throws IllegalArgumentException if the resulting minimum concurrency exceeds the maximum
+     */
+    public void update(String deployment, EndpointType endpointType, LimiterProperties.LimitSettings settings) {
+        limiterFor(deployment, endpointType).update(settings);
+    }
+
+    /**
+     * Returns the limiters created so far.
+     *
+     * @return the limiters keyed by {@code <endpoint type>/<deployment id>}, sorted by key
+     */
+    public Map<String, AdaptiveLimiter> getLimiters() {
+        return new TreeMap<>(limiters);
+    }
+
+    private AdaptiveLimiter limiterFor(String deployment, EndpointType endpointType) {
+        return limiters.computeIfAbsent(endpointType + "/" + deployment, key -> {
+            AdaptiveLimiter limiter = new AdaptiveLimiter(limiterProperties, limiterProperties.settingsFor(deployment));
+            Tags tags = Tags.of("deployment", deployment, "endpoint", endpointType.name().toLowerCase());
+            Gauge.builder("genai.limiter.limit", limiter, AdaptiveLimiter::getLimit).tags(tags).register(meterRegistry);
+            Gauge.builder("genai.limiter.inflight", limiter, AdaptiveLimiter::getInFlight).tags(tags).register(meterRegistry);
+            Gauge.builder("genai.limiter.queue", limiter, AdaptiveLimiter::getQueueSize).tags(tags).register(meterRegistry);
+            Gauge.builder("genai.limiter.tokens.available", limiter, AdaptiveLimiter::getAvailableTokens).tags(tags).register(meterRegistry);
+            Gauge.builder("genai.limiter.throttled", limiter, AdaptiveLimiter::getThrottled).tags(tags).register(meterRegistry);
+            return limiter;
+        });
+    }
+
+    private static boolean isThrottled(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpResponseException httpError
+                    && httpError.getResponse() != null
+                    && httpError.getResponse().getStatusCode() == 429) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Lease(AdaptiveLimiter.Permit permit, long startNanos) {
+        void release(AdaptiveLimiter.Outcome outcome, int actualTokens) {
+            permit.release(outcome, (System.nanoTime() - startNanos) / 1_000_000.0, actualTokens);
+        }
+    }
+}
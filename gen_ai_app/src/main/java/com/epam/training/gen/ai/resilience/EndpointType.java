@@ -0,0 +1,9 @@
+package com.epam.training.gen.ai.resilience;
+
+/**
+ * Kinds of upstream endpoints that are limited independently for each deployment.
+ */
+public enum EndpointType {
+    CHAT,
+    EMBEDDINGS
+}
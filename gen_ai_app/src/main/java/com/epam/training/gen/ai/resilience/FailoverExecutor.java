@@ -0,0 +1,221 @@
+package com.epam.training.gen.ai.resilience;
+
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.exception.ServiceResponseException;
+import com.epam.training.gen.ai.config.CircuitBreakerProperties;
+import com.epam.training.gen.ai.routing.ModelRouter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Guards model calls with a {@link CircuitBreaker} per deployment and fails over to alternative
+ * deployments while a breaker is open or a call fails.
+ * <p>
+ * The alternatives of a deployment are taken from {@code circuit-breaker.fallbacks} if configured.
+ * Otherwise chat calls fall back to the cheaper deployed models of the same vendor, see
+ * {@link ModelRouter#cheaperVendorAlternatives}. Embedding calls only use configured fallbacks,
+ * because vectors of different embedding models cannot be compared with each other.
+ * <p>
+ * An open breaker rejects the call immediately, and every call is bounded by
+ * {@code circuit-breaker.call-timeout}, so a degraded deployment costs a request at most one
+ * timeout instead of the full SDK timeout. The timeout and the latency reported to the breaker start
+ * when the {@link DeploymentLimiter} admits the call, see {@link #admitted}, so time spent queueing
+ * is not blamed on the deployment, and a call the limiter rejects or times out in its queue does not
+ * count against the breaker at all. Only errors that say the deployment is unhealthy, i.e.
+ * 5xx and 429 responses, timeouts and I/O errors, count against the breaker and fail over; other
+ * client errors such as 400, 401, 404 or content filter rejections would fail on every fallback as
+ * well and are propagated at once. Breaker states are exported as the
+ * {@code genai.circuit.state} gauge (0 closed, 1 half-open, 2 open).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FailoverExecutor {
+
+    private final CircuitBreakerProperties circuitBreakerProperties;
+    private final ModelRouter modelRouter;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the call against the deployment or, if its breaker is open or the call fails, against its
+     * alternatives in order.
+     *
+     * @param deployment   the requested deployment id
+     * @param endpointType the endpoint type, which decides whether vendor fallbacks apply
+     * @param call         creates the call for a given deployment id
+     * @param <T>          the result type
+     * @return a {@link Mono} emitting the result and the deployment that produced it; fails with
+     * {@link CircuitBreaker.CallNotPermittedException} if every breaker in the chain is open, or with
+     * the last error if every permitted attempt failed
+     */
+    public <T> Mono<Served<T>> execute(String deployment, EndpointType endpointType, Function<String, Mono<T>> call) {
+        if (!circuitBreakerProperties.isEnabled()) {
+            return Mono.defer(() -> call.apply(deployment)).map(value -> new Served<>(value, deployment));
+        }
+        return Mono.defer(() -> attempt(deployment, chain(deployment, endpointType), 0, call, null));
+    }
+
+    /**
+     * Bounds a call by {@code circuit-breaker.call-timeout} and starts the latency clock of the
+     * surrounding attempt. Callers apply it to the call they pass to the {@link DeploymentLimiter}, so
+     * both start once the call is admitted; a call made outside of {@link #execute} is returned as is.
+     *
+     * @param call the admitted call
+     * @param <T>  the result type
+     * @return the call, bounded by the call timeout
+     */
+    public <T> Mono<T> admitted(Mono<T> call) {
+        return Mono.deferContextual(context -> context.<Admission>getOrEmpty(Admission.class)
+                .map(admission -> {
+                    admission.admit();
+                    return call.timeout(circuitBreakerProperties.getCallTimeout());
+                })
+                .orElse(call));
+    }
+
+    /**
+     * Returns the breakers created so far.
+     *
+     * @return the breakers keyed by deployment id, sorted by key
+     */
+    public Map<String, CircuitBreaker> getBreakers() {
+        return new TreeMap<>(breakers);
+    }
+
+    private <T> Mono<Served<T>> attempt(String requested, List<String> chain, int index,
+                                        Function<String, Mono<T>> call, Throwable lastError) {
+        for (int i = index; i < chain.size(); i++) {
+            String candidate = chain.get(i);
+            CircuitBreaker breaker = breakerFor(candidate);
+            if (!breaker.tryAcquire()) {
+                meterRegistry.counter("genai.circuit.rejected", "model", candidate).increment();
+                continue;
+            }
+            int nextIndex = i + 1;
+            Admission admission = new Admission();
+            return Mono.defer(() -> call.apply(candidate))
+                    .contextWrite(Context.of(Admission.class, admission))
+                    .doOnSuccess(value -> breaker.onSuccess(admission.elapsedMillis()))
+                    .doOnCancel(breaker::onCancel)
+                    .map(value -> {
+                        if (!candidate.equals(requested)) {
+                            meterRegistry.counter("genai.failover.served", "requested", requested, "served", candidate).increment();
+                            log.info("Request for '{}' was served by '{}'", requested, candidate);
+                        }
+                        return new Served<>(value, candidate);
+                    })
+                    .onErrorResume(e -> {
+                        if (isLimiterRejection(e)) {
+                            // rejected or timed out in the local queue, the deployment itself was never asked
+                            breaker.onCancel();
+                        } else if (isDeploymentFailure(e)) {
+                            breaker.onFailure();
+                        } else {
+                            // the request itself was rejected, and every fallback would reject it too
+                            breaker.onCancel();
+                            return Mono.error(e);
+                        }
+                        if (nextIndex < chain.size()) {
+                            log.warn("Call to '{}' failed, failing over: {}", candidate, e.toString());
+                        }
+                        return attempt(requested, chain, nextIndex, call, e);
+                    });
+        }
+        return Mono.error(lastError != null
+                ? lastError
+                : new CircuitBreaker.CallNotPermittedException("Circuit is open for '" + requested + "' and its fallbacks"));
+    }
+
+    /**
+     * Tells whether an error says the deployment is unhealthy rather than the request being invalid.
+     *
+     * @param error the error of a call
+     * @return {@code true} for 5xx and 429 responses, timeouts and I/O errors
+     */
+    static boolean isDeploymentFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpResponseException httpError && httpError.getResponse() != null) {
+                int status = httpError.getResponse().getStatusCode();
+                return status == 429 || status >= 500;
+            }
+            if (cause instanceof TimeoutException || cause instanceof IOException
+                    || cause instanceof ServiceResponseException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLimiterRejection(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof AdaptiveLimiter.LimitExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<String> chain(String deployment, EndpointType endpointType) {
+        List<String> alternatives = circuitBreakerProperties.getFallbacks().get(deployment);
+        if (alternatives == null) {
+            alternatives = endpointType == EndpointType.CHAT && circuitBreakerProperties.isVendorFallback()
+                    ? modelRouter.cheaperVendorAlternatives(deployment)
+                    : List.of();
+        }
+        List<String> chain = new ArrayList<>();
+        chain.add(deployment);
+        alternatives.stream()
+                .filter(alternative -> !alternative.equals(deployment))
+                .distinct()
+                .limit(circuitBreakerProperties.getMaxFallbacks())
+                .forEach(chain::add);
+        return chain;
+    }
+
+    private CircuitBreaker breakerFor(String deployment) {
+        return breakers.computeIfAbsent(deployment, id -> {
+            CircuitBreaker breaker = new CircuitBreaker(circuitBreakerProperties);
+            Gauge.builder("genai.circuit.state", breaker, b -> b.getState().ordinal())
+                    .tag("model", id)
+                    .register(meterRegistry);
+            return breaker;
+        });
+    }
+
+    /**
+     * Start of the call of an attempt: the admission of its first request, or the start of the
+     * attempt if the call never went through {@link #admitted}.
+     */
+    private static final class Admission {
+
+        private static final long NOT_ADMITTED = Long.MIN_VALUE;
+
+        private final long attemptNanos = System.nanoTime();
+        private final AtomicLong admittedNanos = new AtomicLong(NOT_ADMITTED);
+
+        void admit() {
+            admittedNanos.compareAndSet(NOT_ADMITTED, System.nanoTime());
+        }
+
+        long elapsedMillis() {
+            long admitted = admittedNanos.get();
+            return (System.nanoTime() - (admitted == NOT_ADMITTED ? attemptNanos : admitted)) / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.epam.training.gen.ai.resilience;
+
+import com.epam.training.gen.ai.config.HedgingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.OptionalDouble;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Issues hedged requests for idempotent model calls to cut tail latency.
+ * <p>
+ * Only calls without side effects may be hedged: a chat call that lets the kernel auto-invoke
+ * functions would run them once per attempt, so callers must run such calls directly.
+ * <p>
+ * The primary request is sent immediately. If it has not answered after the observed latency
+ * percentile (p95 by default) of its deployment, a second request is sent to the same deployment or
+ * to the configured equivalent one. Whichever answers first wins and the other one is cancelled.
+ * <p>
+ * Hedges are limited by a budget: within each budget window at most {@code hedging.budget-percent}
+ * percent of the requests may trigger a hedge, so a slow upstream cannot be hit with double load.
+ * Requests, issued hedges, hedge wins and budget rejections are exported as Micrometer counters
+ * tagged with the deployment id.
+ */
+@Slf4j
+@Component
+public class HedgingExecutor {
+
+    private final HedgingProperties hedgingProperties;
+    private final MeterRegistry meterRegistry;
+    private final LatencyTracker latencyTracker;
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicLong windowRequests = new AtomicLong();
+    private final AtomicLong windowHedges = new AtomicLong();
+
+    public HedgingExecutor(HedgingProperties hedgingProperties, MeterRegistry meterRegistry) {
+        this.hedgingProperties = hedgingProperties;
+        this.meterRegistry = meterRegistry;
+        this.latencyTracker = new LatencyTracker(hedgingProperties.getSampleWindow());
+    }
+
+    /**
+     * Runs a chat call, hedging it if hedging is enabled for chat.
+     *
+     * @param modelId the deployment id of the primary request
+     * @param call    creates the request for a given deployment id; must be idempotent, i.e. must
+     *                not auto-invoke kernel functions
+     * @param <T>     the result type
+     * @return a {@link Mono} emitting the first result
+     */
+    public <T> Mono<T> chat(String modelId, Function<String, Mono<T>> call) {
+        return hedgingProperties.isChat() ? execute(modelId, call) : call.apply(modelId);
+    }
+
+    /**
+     * Runs an embedding call, hedging it if hedging is enabled for embeddings.
+     *
+     * @param modelId the deployment id of the primary request
+     * @param call    creates the request for a given deployment id
+     * @param <T>     the result type
+     * @return a {@link Mono} emitting the first result
+     */
+    public <T> Mono<T> embeddings(String modelId, Function<String, Mono<T>> call) {
+        return hedgingProperties.isEmbeddings() ? execute(modelId, call) : call.apply(modelId);
+    }
+
+    /**
+     * Runs the call for the given deployment and hedges it once it is slower than the configured
+     * latency percentile of that deployment.
+     *
+     * @param modelId the deployment id of the primary request
+     * @param call    creates the request for a given deployment id; must be idempotent
+     * @param <T>     the result type
+     * @return a {@link Mono} emitting the result of whichever request answers first
+     */
+    public <T> Mono<T> execute(String modelId, Function<String, Mono<T>> call) {
+        if (!hedgingProperties.isEnabled()) {
+            return timed(modelId, call);
+        }
+        return Mono.defer(() -> {
+            onRequest();
+            meterRegistry.counter("genai.hedge.requests", "model", modelId).increment();
+
+            Mono<Attempt<T>> primary = timed(modelId, call).map(value -> new Attempt<>(value, false));
+            OptionalDouble threshold = latencyTracker.percentile(
+                    modelId, hedgingProperties.getPercentile(), hedgingProperties.getMinSamples());
+            if (threshold.isEmpty()) {
+                return primary.map(Attempt::value);
+            }
+
+            String hedgeModelId = hedgingProperties.getEquivalents().getOrDefault(modelId, modelId);
+            Mono<Attempt<T>> hedge = Mono.delay(hedgeDelay(threshold.getAsDouble()))
+                    .flatMap(tick -> {
+                        if (!tryAcquireHedge()) {
+                            meterRegistry.counter("genai.hedge.budget.exhausted", "model", modelId).increment();
+                            return Mono.<Attempt<T>>never();
+                        }
+                        meterRegistry.counter("genai.hedge.issued", "model", modelId).increment();
+                        log.debug("Hedging request to '{}' with '{}'", modelId, hedgeModelId);
+                        return timed(hedgeModelId, call).map(value -> new Attempt<>(value, true));
+                    })
+                    // a failed hedge must not fail the request while the primary may still answer
+                    .onErrorResume(e -> Mono.never());
+
+            return Mono.firstWithSignal(primary, hedge)
+                    .map(attempt -> {
+                        if (attempt.hedged()) {
+                            meterRegistry.counter("genai.hedge.wins", "model", modelId).increment();
+                        }
+                        return attempt.value();
+                    });
+        });
+    }
+
+    private <T> Mono<T> timed(String modelId, Function<String, Mono<T>> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.apply(modelId)
+                    .doOnSuccess(value -> latencyTracker.record(modelId, (System.nanoTime() - start) / 1_000_000.0));
+        });
+    }
+
+    private Duration hedgeDelay(double thresholdMillis) {
+        Duration delay = Duration.ofNanos((long) (thresholdMillis * 1_000_000));
+        if (delay.compareTo(hedgingProperties.getMinDelay()) < 0) {
+            return hedgingProperties.getMinDelay();
+        }
+        return delay.compareTo(hedgingProperties.getMaxDelay()) > 0 ? hedgingProperties.getMaxDelay() : delay;
+    }
+
+    private void onRequest() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start > hedgingProperties.getBudgetWindow().toNanos() && windowStart.compareAndSet(start, now)) {
+            windowRequests.set(0);
+            windowHedges.set(0);
+        }
+        windowRequests.incrementAndGet();
+    }
+
+    private boolean tryAcquireHedge() {
+        long allowed = (long) (windowRequests.get() * hedgingProperties.getBudgetPercent() / 100.0);
+        long hedges;
+        do {
+            hedges = windowHedges.get();
+            if (hedges >= allowed) {
+                return false;
+            }
+        } while (!windowHedges.compareAndSet(hedges, hedges + 1));
+        return true;
+    }
+
+    private record Attempt<T>(T value, boolean hedged) {
+    }
+}
@@ -0,0 +1,81 @@
+package com.epam.training.gen.ai.resilience;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the most recent latencies per key (typically a deployment id) in fixed-size ring buffers
+ * and computes percentiles over them.
+ * <p>
+ * The window is small enough that sorting a copy on every percentile query is cheaper than
+ * maintaining a streaming quantile sketch, and recent samples dominate, so the percentile follows
+ * changes in the upstream latency quickly.
+ */
+public class LatencyTracker {
+
+    private final int windowSize;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a tracker that keeps the given number of samples per key.
+     *
+     * @param windowSize the number of most recent samples used for percentiles
+     */
+    public LatencyTracker(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Records a latency sample for the given key.
+     *
+     * @param key           the key, e.g. a deployment id
+     * @param latencyMillis the observed latency in milliseconds
+     */
+    public void record(String key, double latencyMillis) {
+        windows.computeIfAbsent(key, k -> new Window(windowSize)).add(latencyMillis);
+    }
+
+    /**
+     * Returns the given percentile of the recorded latencies.
+     *
+     * @param key        the key, e.g. a deployment id
+     * @param percentile the percentile in {@code (0, 1]}, e.g. {@code 0.95}
+     * @param minSamples the minimum number of samples required for a meaningful answer
+     * @return the percentile in milliseconds, or empty if fewer than {@code minSamples} were recorded
+     */
+    public OptionalDouble percentile(String key, double percentile, int minSamples) {
+        Window window = windows.get(key);
+        return window == null ? OptionalDouble.empty() : window.percentile(percentile, minSamples);
+    }
+
+    private static final class Window {
+        private final double[] samples;
+        private int next;
+        private int size;
+
+        private Window(int capacity) {
+            this.samples = new double[capacity];
+        }
+
+        private synchronized void add(double sample) {
+            samples[next] = sample;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        private OptionalDouble percentile(double percentile, int minSamples) {
+            double[] copy;
+            synchronized (this) {
+                if (size < Math.max(minSamples, 1)) {
+                    return OptionalDouble.empty();
+                }
+                copy = Arrays.copyOf(samples, size);
+            }
+            Arrays.sort(copy);
+            int index = (int) Math.ceil(percentile * copy.length) - 1;
+            return OptionalDouble.of(copy[Math.clamp(index, 0, copy.length - 1)]);
+        }
+    }
+}
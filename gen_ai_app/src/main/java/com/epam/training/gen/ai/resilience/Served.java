@@ -0,0 +1,12 @@
+package com.epam.training.gen.ai.resilience;
+
+/**
+ * Result of a call together with the deployment that actually produced it, which differs from the
+ * requested deployment when the call failed over.
+ *
+ * @param value    the result
+ * @param servedBy the deployment id that produced the result
+ * @param <T>      the result type
+ */
+public record Served<T>(T value, String servedBy) {
+}
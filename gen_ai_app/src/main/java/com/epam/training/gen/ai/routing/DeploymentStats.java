@@ -0,0 +1,100 @@
+package com.epam.training.gen.ai.routing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exponentially weighted runtime statistics of a single deployment.
+ * <p>
+ * Latency, error rate and token throughput are smoothed with the same factor {@code alpha}, so a
+ * deployment that slows down or starts failing loses traffic within a handful of requests, and one
+ * that recovers regains it the same way. In-flight requests are counted exactly.
+ */
+public class DeploymentStats {
+
+    private final double alpha;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private double latencyMillis;
+    private double errorRate;
+    private double tokensPerSecond;
+    private long samples;
+
+    /**
+     * Creates statistics seeded with an optimistic prior, so unseen deployments still get traffic.
+     *
+     * @param alpha                 the smoothing factor in {@code (0, 1]}; higher reacts faster
+     * @param initialLatencyMillis  the latency assumed before the first sample
+     */
+    public DeploymentStats(double alpha, double initialLatencyMillis) {
+        this.alpha = alpha;
+        this.latencyMillis = initialLatencyMillis;
+    }
+
+    /**
+     * Marks the start of a request.
+     */
+    public void onStart() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Records a successful request.
+     *
+     * @param latencyMillis the observed end-to-end latency
+     * @param tokens        the number of tokens processed, or {@code 0} if unknown
+     */
+    public synchronized void onSuccess(double latencyMillis, long tokens) {
+        inFlight.decrementAndGet();
+        this.latencyMillis = smooth(this.latencyMillis, latencyMillis);
+        this.errorRate = smooth(this.errorRate, 0);
+        if (tokens > 0 && latencyMillis > 0) {
+            double throughput = tokens * 1000.0 / latencyMillis;
+            this.tokensPerSecond = samples == 0 ? throughput : smooth(this.tokensPerSecond, throughput);
+        }
+        samples++;
+    }
+
+    /**
+     * Records a failed request. The latency is still taken into account, so deployments that fail
+     * slowly look slow as well as unreliable.
+     *
+     * @param latencyMillis the time until the failure was observed
+     */
+    public synchronized void onError(double latencyMillis) {
+        inFlight.decrementAndGet();
+        this.latencyMillis = smooth(this.latencyMillis, Math.max(this.latencyMillis, latencyMillis));
+        this.errorRate = smooth(this.errorRate, 1);
+        samples++;
+    }
+
+    /**
+     * Records a request that was cancelled by the caller before it completed, e.g. because another
+     * deployment answered first. Cancellation says nothing about the deployment's health.
+     */
+    public void onCancel() {
+        inFlight.decrementAndGet();
+    }
+
+    public synchronized double getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public synchronized double getErrorRate() {
+        return errorRate;
+    }
+
+    public synchronized double getTokensPerSecond() {
+        return tokensPerSecond;
+    }
+
+    public synchronized long getSamples() {
+        return samples;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private double smooth(double current, double sample) {
+        return current + alpha * (sample - current);
+    }
+}
@@ -0,0 +1,228 @@
+package com.epam.training.gen.ai.routing;
+
+import com.epam.training.gen.ai.config.RoutingProperties;
+import com.epam.training.gen.ai.config.SemanticKernelConfiguration;
+import com.epam.training.gen.ai.model.Model;
+import com.epam.training.gen.ai.model.Vendor;
+import com.epam.training.gen.ai.service.EmbeddingService;
+import com.epam.training.gen.ai.service.ModelCatalogService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Chooses chat deployments from the {@link ModelCatalogService} based on their observed behaviour.
+ * <p>
+ * The router keeps {@link DeploymentStats} per deployment id (EWMA latency, error rate, token
+ * throughput and in-flight requests) and ranks the deployments that support the requested
+ * {@code features} according to a {@link RoutingPolicy}. Deployments whose error rate or latency is
+ * far off the rest are considered degraded and only used when nothing healthy is left, while a
+ * small exploration share of requests keeps their statistics fresh so they regain traffic once they
+ * recover.
+ */
+@Component
+@RequiredArgsConstructor
+public class ModelRouter {
+
+    /**
+     * Capability flag reported by the deployments API for models that serve chat completions.
+     */
+    public static final String CHAT_COMPLETION_CAPABILITY = "chat_completion";
+
+    private final ModelCatalogService modelCatalogService;
+    private final RoutingProperties routingProperties;
+    private final Map<String, DeploymentStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the best deployment for the given policy.
+     *
+     * @param policy           the routing policy
+     * @param requiredFeatures feature flags (keys of the model's {@code features} map) that must be enabled
+     * @return the selected deployment, or empty if no chat deployment supports the features
+     */
+    public Optional<SemanticKernelConfiguration.Model> route(RoutingPolicy policy, Collection<String> requiredFeatures) {
+        return rank(policy, requiredFeatures, 1).stream().findFirst();
+    }
+
+    /**
+     * Returns up to {@code count} distinct deployments, best first, for the given policy.
+     *
+     * @param policy           the routing policy
+     * @param requiredFeatures feature flags that must be enabled on every returned deployment
+     * @param count            the maximum number of deployments to return
+     * @return the ranked deployments; healthy ones always precede degraded ones
+     */
+    public List<SemanticKernelConfiguration.Model> rank(RoutingPolicy policy, Collection<String> requiredFeatures, int count) {
+        List<SemanticKernelConfiguration.Model> candidates = modelCatalogService.getModels(requiredFeatures).stream()
+                .filter(ModelRouter::isChatModel)
+                .toList();
+        if (candidates.isEmpty() || count <= 0) {
+            return List.of();
+        }
+
+        double medianLatency = candidates.stream()
+                .mapToDouble(model -> statsFor(model.getId()).getLatencyMillis())
+                .sorted()
+                .skip(candidates.size() / 2)
+                .findFirst()
+                .orElse(routingProperties.getInitialLatency().toMillis());
+
+        List<SemanticKernelConfiguration.Model> healthy = new ArrayList<>();
+        List<SemanticKernelConfiguration.Model> degraded = new ArrayList<>();
+        for (SemanticKernelConfiguration.Model model : candidates) {
+            (isDegraded(statsFor(model.getId()), medianLatency) ? degraded : healthy).add(model);
+        }
+
+        List<SemanticKernelConfiguration.Model> ranked = new ArrayList<>(order(policy, healthy));
+        ranked.addAll(order(RoutingPolicy.FASTEST, degraded));
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (ranked.size() > 1 && random.nextDouble() < routingProperties.getExplorationRate()) {
+            ranked.addFirst(ranked.remove(random.nextInt(1, ranked.size())));
+        }
+        return List.copyOf(ranked.subList(0, Math.min(count, ranked.size())));
+    }
+
+    /**
+     * Returns the deployed chat models of the same {@link Vendor} that cost no more than the given one,
+     * in the vendor's model list order starting after the given model.
+     *
+     * @param modelId the deployment id
+     * @return the alternative deployment ids, or an empty list if the model is not a known vendor model
+     */
+    public List<String> cheaperVendorAlternatives(String modelId) {
+        Optional<Model> model = Model.fromValue(modelId);
+        Optional<Vendor> vendor = model.flatMap(Vendor::of);
+        if (vendor.isEmpty()) {
+            return List.of();
+        }
+        List<Model> vendorModels = vendor.get().getModels();
+        int position = vendorModels.indexOf(model.get());
+        double cost = costOf(modelId);
+        List<String> alternatives = new ArrayList<>();
+        for (int i = 1; i < vendorModels.size(); i++) {
+            String candidate = vendorModels.get((position + i) % vendorModels.size()).value();
+            Optional<SemanticKernelConfiguration.Model> deployedModel = modelCatalogService.getModel(candidate);
+            if (deployedModel.isPresent() && isChatModel(deployedModel.get()) && costOf(candidate) <= cost) {
+                alternatives.add(candidate);
+            }
+        }
+        return alternatives;
+    }
+
+    /**
+     * Marks the start of a request to the given deployment.
+     *
+     * @param modelId the deployment id
+     */
+    public void onStart(String modelId) {
+        statsFor(modelId).onStart();
+    }
+
+    /**
+     * Records a successful request to the given deployment.
+     *
+     * @param modelId       the deployment id
+     * @param latencyMillis the observed latency
+     * @param tokens        the total number of tokens, or {@code 0} if unknown
+     */
+    public void onSuccess(String modelId, long latencyMillis, long tokens) {
+        statsFor(modelId).onSuccess(latencyMillis, tokens);
+    }
+
+    /**
+     * Records a failed request to the given deployment.
+     *
+     * @param modelId       the deployment id
+     * @param latencyMillis the time until the failure was observed
+     */
+    public void onError(String modelId, long latencyMillis) {
+        statsFor(modelId).onError(latencyMillis);
+    }
+
+    /**
+     * Records a request to the given deployment that was cancelled before completion.
+     *
+     * @param modelId the deployment id
+     */
+    public void onCancel(String modelId) {
+        statsFor(modelId).onCancel();
+    }
+
+    /**
+     * Returns the live statistics of all deployments seen so far.
+     *
+     * @return an unmodifiable view of the statistics keyed by deployment id
+     */
+    public Map<String, DeploymentStats> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    private DeploymentStats statsFor(String modelId) {
+        return stats.computeIfAbsent(modelId, id -> new DeploymentStats(
+                routingProperties.getEwmaAlpha(), routingProperties.getInitialLatency().toMillis()));
+    }
+
+    private boolean isDegraded(DeploymentStats deploymentStats, double medianLatency) {
+        return deploymentStats.getErrorRate() > routingProperties.getDegradedErrorRate()
+                || deploymentStats.getLatencyMillis() > medianLatency * routingProperties.getDegradedLatencyFactor();
+    }
+
+    private List<SemanticKernelConfiguration.Model> order(RoutingPolicy policy, List<SemanticKernelConfiguration.Model> models) {
+        Comparator<SemanticKernelConfiguration.Model> byLatency =
+                Comparator.comparingDouble(model -> statsFor(model.getId()).getLatencyMillis());
+        return switch (policy) {
+            case FASTEST -> models.stream().sorted(byLatency).toList();
+            case CHEAPEST_CAPABLE -> models.stream()
+                    .sorted(Comparator.comparingDouble(this::costOf).thenComparing(byLatency))
+                    .toList();
+            case LEAST_LOADED -> weightedShuffle(models);
+        };
+    }
+
+    /**
+     * Orders the models randomly with probabilities proportional to their load weight
+     * (Efraimidis–Spirakis sampling without replacement, with keys kept in log space).
+     */
+    private List<SemanticKernelConfiguration.Model> weightedShuffle(List<SemanticKernelConfiguration.Model> models) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<String, Double> keys = new HashMap<>();
+        for (SemanticKernelConfiguration.Model model : models) {
+            keys.put(model.getId(), Math.log(random.nextDouble()) / loadWeight(statsFor(model.getId())));
+        }
+        return models.stream()
+                .sorted(Comparator.comparingDouble((SemanticKernelConfiguration.Model model) -> keys.get(model.getId())).reversed())
+                .toList();
+    }
+
+    private static double loadWeight(DeploymentStats deploymentStats) {
+        double latency = Math.max(deploymentStats.getLatencyMillis(), 1);
+        return 1.0 / (latency * (1 + deploymentStats.getInFlight()) * (1 + 10 * deploymentStats.getErrorRate()));
+    }
+
+    private double costOf(SemanticKernelConfiguration.Model model) {
+        return costOf(model.getId());
+    }
+
+    private double costOf(String modelId) {
+        return routingProperties.getCostPer1kTokens()
+                .getOrDefault(modelId, routingProperties.getDefaultCostPer1kTokens());
+    }
+
+    private static boolean isChatModel(SemanticKernelConfiguration.Model model) {
+        if (model.getCapabilities() != null && model.getCapabilities().containsKey(CHAT_COMPLETION_CAPABILITY)) {
+            return Boolean.TRUE.equals(model.getCapabilities().get(CHAT_COMPLETION_CAPABILITY));
+        }
+        return model.getId() != null && !model.getId().contains(EmbeddingService.EMBEDDING_MARKER_WORD);
+    }
+}
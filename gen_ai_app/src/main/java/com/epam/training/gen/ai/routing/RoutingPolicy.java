@@ -0,0 +1,22 @@
+package com.epam.training.gen.ai.routing;
+
+/**
+ * Strategies available to the {@link ModelRouter} for choosing a chat deployment.
+ */
+public enum RoutingPolicy {
+
+    /**
+     * Picks the deployment with the lowest observed (EWMA) latency.
+     */
+    FASTEST,
+
+    /**
+     * Picks the cheapest deployment that satisfies the requested features, using latency as a tie-breaker.
+     */
+    CHEAPEST_CAPABLE,
+
+    /**
+     * Picks a deployment at random, weighted towards low latency, few in-flight requests and a low error rate.
+     */
+    LEAST_LOADED
+}
@@ -0,0 +1,70 @@
+package com.epam.training.gen.ai.service;
+
+import com.azure.ai.openai.OpenAIAsyncClient;
+import com.microsoft.semantickernel.Kernel;
+import com.microsoft.semantickernel.aiservices.openai.chatcompletion.OpenAIChatCompletion;
+import com.microsoft.semantickernel.services.chatcompletion.ChatCompletionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of per-deployment {@link ChatCompletionService} and {@link Kernel} instances.
+ * <p>
+ * Building an {@link OpenAIChatCompletion} and deriving a {@link Kernel} from the shared one is
+ * comparatively expensive, so each deployment gets exactly one instance of both, created on first
+ * use and reused by every subsequent request. All instances share the application's
+ * {@link OpenAIAsyncClient} and the plugins registered on the base kernel.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChatCompletionRegistry {
+
+    /**
+     * Shared asynchronous OpenAI client used by every chat completion service in the registry.
+     */
+    private final OpenAIAsyncClient openAIAsyncClient;
+
+    /**
+     * Base kernel whose plugins and configuration are inherited by every per-deployment kernel.
+     */
+    private final Kernel kernel;
+
+    /**
+     * Chat completion services keyed by deployment id.
+     */
+    private final Map<String, ChatCompletionService> chatCompletionServices = new ConcurrentHashMap<>();
+
+    /**
+     * Kernels keyed by deployment id, each bound to the matching chat completion service.
+     */
+    private final Map<String, Kernel> kernels = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the chat completion service for the given deployment, creating it on first use.
+     *
+     * @param modelId the deployment id of the chat model
+     * @return a cached {@link ChatCompletionService} bound to the deployment
+     */
+    public ChatCompletionService getChatCompletionService(String modelId) {
+        return chatCompletionServices.computeIfAbsent(modelId, id -> OpenAIChatCompletion.builder()
+                .withModelId(id)
+                .withOpenAIAsyncClient(openAIAsyncClient)
+                .build());
+    }
+
+    /**
+     * Returns a kernel that uses the given deployment as its chat completion service,
+     * creating it on first use.
+     *
+     * @param modelId the deployment id of the chat model
+     * @return a cached {@link Kernel} bound to the deployment
+     */
+    public Kernel getKernel(String modelId) {
+        return kernels.computeIfAbsent(modelId, id -> kernel.toBuilder()
+                .withAIService(ChatCompletionService.class, getChatCompletionService(id))
+                .build());
+    }
+}
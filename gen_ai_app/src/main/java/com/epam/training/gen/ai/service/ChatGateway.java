@@ -0,0 +1,232 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.config.ToolCallProperties;
+import com.epam.training.gen.ai.model.TokenUsage;
+import com.epam.training.gen.ai.resilience.DeploymentLimiter;
+import com.epam.training.gen.ai.resilience.EndpointType;
+import com.epam.training.gen.ai.resilience.FailoverExecutor;
+import com.epam.training.gen.ai.resilience.HedgingExecutor;
+import com.epam.training.gen.ai.resilience.Served;
+import com.epam.training.gen.ai.routing.ModelRouter;
+import com.microsoft.semantickernel.aiservices.openai.chatcompletion.OpenAIFunctionToolCall;
+import com.microsoft.semantickernel.orchestration.FunctionResultMetadata;
+import com.microsoft.semantickernel.orchestration.InvocationContext;
+import com.microsoft.semantickernel.orchestration.InvocationReturnMode;
+import com.microsoft.semantickernel.orchestration.PromptExecutionSettings;
+import com.microsoft.semantickernel.services.chatcompletion.AuthorRole;
+import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
+import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Single entry point for chat completion calls made through Semantic Kernel.
+ * <p>
+ * Calls are guarded by the circuit breakers of the {@link FailoverExecutor}, which fail over to an
+ * alternative deployment while the requested one is unhealthy. The gateway resolves the
+ * per-deployment service and kernel from the {@link ChatCompletionRegistry}, hedges slow calls
+ * through the {@link HedgingExecutor} and reports every attempt to the {@link ModelRouter}. Every
+ * attempt, hedges included, is admitted by the {@link DeploymentLimiter} of its deployment first.
+ * <p>
+ * Tool calls are not auto-invoked by the kernel. When the model asks for tools, the gateway
+ * executes all calls of the turn concurrently through the {@link ToolCallExecutor}, appends the
+ * results to a copy of the conversation and calls the model again, at most
+ * {@code tool-calls.max-iterations} times. Tools therefore run once per turn, however many hedged
+ * attempts were made. Calls whose context lets the kernel auto-invoke functions are never hedged,
+ * as a second attempt would run the functions again. Only the functions chosen by the
+ * {@link ToolSelector} for the latest user message are offered.
+ * <p>
+ * Token usage reported by the service is counted per deployment in {@code genai.tokens.prompt},
+ * {@code genai.tokens.prompt.cached} (prompt tokens served from the provider's prefix cache) and
+ * {@code genai.tokens.completion}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatGateway {
+
+    private final ChatCompletionRegistry chatCompletionRegistry;
+    private final FailoverExecutor failoverExecutor;
+    private final HedgingExecutor hedgingExecutor;
+    private final ModelRouter modelRouter;
+    private final DeploymentLimiter deploymentLimiter;
+    private final TokenCounter tokenCounter;
+    private final MeterRegistry meterRegistry;
+    private final ToolCallExecutor toolCallExecutor;
+    private final ToolSelector toolSelector;
+    private final ToolCallProperties toolCallProperties;
+
+    /**
+     * Sends the chat history to the given deployment.
+     *
+     * @param modelId           the deployment id of the chat model
+     * @param chatHistory       the conversation to complete; it is not modified
+     * @param invocationContext the invocation context (execution settings, tool call behaviour)
+     * @return a {@link Mono} emitting the messages produced by the model
+     */
+    public Mono<List<ChatMessageContent<?>>> complete(String modelId, ChatHistory chatHistory,
+                                                      InvocationContext invocationContext) {
+        return serve(modelId, chatHistory, invocationContext).map(Served::value);
+    }
+
+    /**
+     * Sends the chat history to the given deployment, or to one of its fallbacks if the deployment is
+     * unhealthy, and reports which deployment answered.
+     *
+     * @param modelId           the deployment id of the chat model
+     * @param chatHistory       the conversation to complete; it is not modified
+     * @param invocationContext the invocation context (execution settings, tool call behaviour)
+     * @return a {@link Mono} emitting the messages produced by the model and the deployment that served them
+     */
+    public Mono<Served<List<ChatMessageContent<?>>>> serve(String modelId, ChatHistory chatHistory,
+                                                            InvocationContext invocationContext) {
+        return serve(modelId, chatHistory, invocationContext, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Sends the chat history to the given deployment, or to one of its fallbacks, within a session.
+     * Memoized results of read-only tools are shared by the calls of a session, see {@link ToolMemo}.
+     *
+     * @param modelId           the deployment id of the chat model
+     * @param chatHistory       the conversation to complete; it is not modified
+     * @param invocationContext the invocation context (execution settings, tool call behaviour)
+     * @param session           identifies the conversation across turns
+     * @return a {@link Mono} emitting the messages produced by the model and the deployment that served them
+     */
+    public Mono<Served<List<ChatMessageContent<?>>>> serve(String modelId, ChatHistory chatHistory,
+                                                            InvocationContext invocationContext, String session) {
+        if (invocationContext == null) {
+            return Mono.defer(() -> converse(modelId, copyOf(chatHistory), null, session, new HashMap<>(), 1));
+        }
+        return toolSelector.select(invocationContext, chatHistory)
+                .flatMap(context -> serveSelected(modelId, chatHistory, context, session));
+    }
+
+    /**
+     * Like {@link #serve(String, ChatHistory, InvocationContext, String)}, for a context whose tools
+     * were already chosen by {@link ToolSelector#select}; the tools it offers are offered as they are.
+     *
+     * @param modelId         the deployment id of the chat model
+     * @param chatHistory     the conversation to complete; it is not modified
+     * @param selectedContext the invocation context returned by the tool selector, or {@code null}
+     * @param session         identifies the conversation across turns
+     * @return a {@link Mono} emitting the messages produced by the model and the deployment that served them
+     */
+    public Mono<Served<List<ChatMessageContent<?>>>> serveSelected(String modelId, ChatHistory chatHistory,
+                                                                    InvocationContext selectedContext, String session) {
+        return Mono.defer(() -> converse(modelId, copyOf(chatHistory), selectedContext, session, new HashMap<>(), 1));
+    }
+
+    /**
+     * Calls the model and, while it asks for tools, executes the tool calls and calls it again with
+     * their results. The last permitted iteration offers no tools, so the model has to answer. A
+     * result the model has already seen for the same call in this turn is replaced by a reference to
+     * the earlier call, so repeated reads do not grow the prompt.
+     */
+    private Mono<Served<List<ChatMessageContent<?>>>> converse(String modelId, ChatHistory conversation,
+                                                               InvocationContext invocationContext, String session,
+                                                               Map<String, String> answered, int iteration) {
+        boolean lastIteration = iteration >= toolCallProperties.getMaxIterations();
+        InvocationContext context = lastIteration ? withoutTools(invocationContext) : invocationContext;
+        return failoverExecutor.execute(modelId, EndpointType.CHAT, deployment -> autoInvokesTools(context)
+                        ? attempt(deployment, conversation, context)
+                        : hedgingExecutor.chat(deployment, hedgeDeployment -> attempt(hedgeDeployment, conversation, context)))
+                .flatMap(served -> {
+                    List<OpenAIFunctionToolCall> toolCalls = ToolCallExecutor.toolCalls(served.value());
+                    if (toolCalls.isEmpty() || lastIteration) {
+                        return Mono.just(served);
+                    }
+                    return toolCallExecutor.execute(chatCompletionRegistry.getKernel(served.servedBy()), toolCalls, session)
+                            .flatMap(results -> {
+                                served.value().forEach(conversation::addMessage);
+                                for (ToolCallExecutor.ToolResult result : results) {
+                                    String earlierCall = answered.putIfAbsent(result.call() + '=' + result.content(), result.callId());
+                                    String content = earlierCall == null
+                                            ? result.content()
+                                            : "Unchanged, same result as tool call " + earlierCall;
+                                    conversation.addMessage(AuthorRole.TOOL, content,
+                                            StandardCharsets.UTF_8, FunctionResultMetadata.build(result.callId()));
+                                }
+                                return converse(modelId, conversation, invocationContext, session, answered, iteration + 1);
+                            });
+                });
+    }
+
+    private Mono<List<ChatMessageContent<?>>> attempt(String modelId, ChatHistory chatHistory,
+                                                      InvocationContext invocationContext) {
+        return deploymentLimiter.execute(modelId, EndpointType.CHAT, estimateTokens(modelId, chatHistory, invocationContext), () -> {
+            long start = System.nanoTime();
+            modelRouter.onStart(modelId);
+            return failoverExecutor.admitted(chatCompletionRegistry.getChatCompletionService(modelId)
+                            .getChatMessageContentsAsync(chatHistory, chatCompletionRegistry.getKernel(modelId), invocationContext))
+                    .doOnSuccess(messages -> {
+                        TokenUsage usage = messages == null ? new TokenUsage() : TokenUsage.from(messages);
+                        recordUsage(modelId, usage);
+                        modelRouter.onSuccess(modelId, elapsedMillis(start), usage.getTotalTokens());
+                    })
+                    .doOnError(e -> modelRouter.onError(modelId, elapsedMillis(start)))
+                    .doOnCancel(() -> modelRouter.onCancel(modelId));
+        }, messages -> Math.toIntExact(TokenUsage.from(messages).getTotalTokens()));
+    }
+
+    /**
+     * Estimates the tokens of a chat call as its prompt plus the completion it may generate. A call
+     * never consumes more than the context window of the deployment, so the estimate is capped there
+     * rather than charging the limiter for a {@code max_tokens} the model cannot honour.
+     */
+    private int estimateTokens(String modelId, ChatHistory chatHistory, InvocationContext invocationContext) {
+        int promptTokens = tokenCounter.countMessages(chatHistory.getMessages(), modelId);
+        PromptExecutionSettings settings = invocationContext == null ? null : invocationContext.getPromptExecutionSettings();
+        int completionTokens = settings == null ? 0 : Math.max(settings.getMaxTokens(), 0);
+        return Math.min(promptTokens + completionTokens, Math.max(tokenCounter.contextWindow(modelId), promptTokens));
+    }
+
+    private void recordUsage(String modelId, TokenUsage usage) {
+        meterRegistry.counter("genai.tokens.prompt", "model", modelId).increment(usage.getPromptTokens());
+        meterRegistry.counter("genai.tokens.prompt.cached", "model", modelId).increment(usage.getCachedPromptTokens());
+        meterRegistry.counter("genai.tokens.completion", "model", modelId).increment(usage.getCompletionTokens());
+        if (usage.getCachedPromptTokens() > 0) {
+            log.debug("{} served {} of {} prompt tokens from its prompt cache",
+                    modelId, usage.getCachedPromptTokens(), usage.getPromptTokens());
+        }
+    }
+
+    private static ChatHistory copyOf(ChatHistory chatHistory) {
+        ChatHistory copy = new ChatHistory();
+        chatHistory.getMessages().forEach(copy::addMessage);
+        return copy;
+    }
+
+    private static InvocationContext withoutTools(InvocationContext invocationContext) {
+        if (invocationContext == null) {
+            return null;
+        }
+        return InvocationContext.builder()
+                .withPromptExecutionSettings(invocationContext.getPromptExecutionSettings())
+                .withReturnMode(InvocationReturnMode.LAST_MESSAGE_ONLY)
+                .build();
+    }
+
+    /**
+     * Tells whether the kernel itself would run the tools the model asks for; such calls have side
+     * effects and must not be hedged.
+     */
+    private static boolean autoInvokesTools(InvocationContext invocationContext) {
+        return invocationContext != null
+                && invocationContext.getToolCallBehavior() != null
+                && invocationContext.getToolCallBehavior().isAutoInvokeAllowed();
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,274 @@
+package com.epam.training.gen.ai.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Local key-value store of chunk texts, keyed by vector store point id, so the vector store only
+ * has to hold the vectors and the filterable payload.
+ * <p>
+ * Texts are appended to memory-mapped segment files of a fixed size in the store directory; an
+ * in-heap index maps every id to the position of its latest record, and is rebuilt by scanning the
+ * segments when the store is opened. Texts of at least the compression threshold are stored
+ * deflated when that makes them smaller. Reads work directly on the mapped segments: stored texts
+ * are decoded from the mapping without an intermediate copy, and compressed ones are inflated from
+ * it. Replacing a text leaves the old record behind; segments are never compacted.
+ * <p>
+ * Each record is {@code int idLength, id, byte codec, int textLength, int dataLength, data}. Every
+ * put forces the rest of the record to disk before it writes and forces the id length, so a record
+ * torn by a crash of the process or the machine reads as the end of the segment, and a text is
+ * durable before the point referring to it is upserted.
+ */
+@Slf4j
+public class ChunkTextStore implements Closeable {
+
+    private static final byte RAW = 0;
+    private static final byte DEFLATED = 1;
+    private static final int HEADER_SIZE = Integer.BYTES + 1 + Integer.BYTES + Integer.BYTES;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int compressionThreshold;
+    private final int compressionLevel;
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private int writeOffset;
+
+    /**
+     * Opens the store in the given directory, creating it if needed.
+     *
+     * @param directory            the directory of the segment files
+     * @param segmentSize          the size of every segment file, and the maximum size of a record
+     * @param compressionThreshold the size in bytes from which texts are compressed
+     * @param compressionLevel     the {@link Deflater} level
+     * @throws IOException if the segments cannot be created or mapped
+     */
+    public ChunkTextStore(Path directory, int segmentSize, int compressionThreshold, int compressionLevel) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.compressionThreshold = compressionThreshold;
+        this.compressionLevel = compressionLevel;
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(file -> file.getFileName().toString().matches("segment-\\d+\\.dat")).sorted().toList();
+        }
+        for (Path file : files) {
+            segments.add(map(file, Files.size(file)));
+            writeOffset = load(segments.size() - 1);
+        }
+        if (segments.isEmpty()) {
+            addSegment();
+        }
+        log.info("Opened chunk text store {} with {} texts in {} segments", directory, index.size(), segments.size());
+    }
+
+    /**
+     * Stores the text of a point, replacing its previous text.
+     *
+     * @param id   the point id
+     * @param text the chunk text
+     */
+    public synchronized void put(String id, String text) {
+        if (text.equals(get(id))) {
+            return;
+        }
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        byte codec = RAW;
+        byte[] data = raw;
+        if (raw.length >= compressionThreshold) {
+            byte[] deflated = deflate(raw);
+            if (deflated.length < raw.length) {
+                codec = DEFLATED;
+                data = deflated;
+            }
+        }
+        int recordSize = HEADER_SIZE + key.length + data.length;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("Chunk text of " + raw.length + " bytes does not fit into a segment");
+        }
+        if (writeOffset + recordSize > segments.get(segments.size() - 1).capacity()) {
+            addSegment();
+        }
+        MappedByteBuffer segment = segments.get(segments.size() - 1);
+        int offset = writeOffset;
+        int dataOffset = offset + HEADER_SIZE + key.length;
+        segment.put(offset + Integer.BYTES, key)
+                .put(offset + Integer.BYTES + key.length, codec)
+                .putInt(offset + Integer.BYTES + key.length + 1, raw.length)
+                .putInt(offset + Integer.BYTES + key.length + 1 + Integer.BYTES, data.length)
+                .put(dataOffset, data);
+        segment.force(offset, recordSize);
+        segment.putInt(offset, key.length);
+        segment.force(offset, Integer.BYTES);
+        writeOffset = dataOffset + data.length;
+        index.put(id, new Location(segments.size() - 1, dataOffset, codec, raw.length, data.length));
+    }
+
+    /**
+     * Returns the text of a point.
+     *
+     * @param id the point id
+     * @return the text, or {@code null} if the store has no text for the id
+     */
+    public String get(String id) {
+        Location location = index.get(id);
+        if (location == null) {
+            return null;
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            return read(location, inflater);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Returns the texts of several points.
+     *
+     * @param ids the point ids
+     * @return the texts by id; ids without a text are missing from the map
+     */
+    public Map<String, String> getAll(Collection<String> ids) {
+        Map<String, String> texts = new HashMap<>();
+        Inflater inflater = new Inflater(true);
+        try {
+            for (String id : ids) {
+                Location location = index.get(id);
+                if (location != null) {
+                    texts.put(id, read(location, inflater));
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+        return texts;
+    }
+
+    /**
+     * Returns the number of stored texts.
+     *
+     * @return the number of ids with a text
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Writes the mapped segments back to disk.
+     */
+    @Override
+    public synchronized void close() {
+        segments.forEach(MappedByteBuffer::force);
+    }
+
+    private String read(Location location, Inflater inflater) {
+        ByteBuffer data = segments.get(location.segment()).slice(location.offset(), location.dataLength());
+        if (location.codec() == RAW) {
+            return StandardCharsets.UTF_8.decode(data).toString();
+        }
+        byte[] text = new byte[location.textLength()];
+        inflater.reset();
+        inflater.setInput(data);
+        try {
+            int length = 0;
+            while (length < text.length && !inflater.finished()) {
+                int inflated = inflater.inflate(text, length, text.length - length);
+                if (inflated == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("truncated record");
+                }
+                length += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt chunk text in " + directory, e);
+        }
+        return new String(text, StandardCharsets.UTF_8);
+    }
+
+    private byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(compressionLevel, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] buffer = new byte[raw.length];
+            int length = 0;
+            while (!deflater.finished() && length < buffer.length) {
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return deflater.finished() ? Arrays.copyOf(buffer, length) : raw;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Indexes the records of a segment.
+     *
+     * @return the offset after the last complete record
+     */
+    private int load(int segmentIndex) {
+        MappedByteBuffer segment = segments.get(segmentIndex);
+        int offset = 0;
+        while (offset + HEADER_SIZE <= segment.capacity()) {
+            int keyLength = segment.getInt(offset);
+            if (keyLength <= 0 || offset + HEADER_SIZE + keyLength > segment.capacity()) {
+                break;
+            }
+            byte[] key = new byte[keyLength];
+            segment.get(offset + Integer.BYTES, key);
+            int codecOffset = offset + Integer.BYTES + keyLength;
+            byte codec = segment.get(codecOffset);
+            int textLength = segment.getInt(codecOffset + 1);
+            int dataLength = segment.getInt(codecOffset + 1 + Integer.BYTES);
+            int dataOffset = offset + HEADER_SIZE + keyLength;
+            if (dataLength < 0 || dataOffset + dataLength > segment.capacity()) {
+                break;
+            }
+            index.put(new String(key, StandardCharsets.UTF_8), new Location(segmentIndex, dataOffset, codec, textLength, dataLength));
+            offset = dataOffset + dataLength;
+        }
+        return offset;
+    }
+
+    private void addSegment() {
+        Path file = directory.resolve(String.format("segment-%05d.dat", segments.size()));
+        try {
+            segments.add(map(file, segmentSize));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create chunk text segment " + file, e);
+        }
+        writeOffset = 0;
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private record Location(int segment, int offset, byte codec, int textLength, int dataLength) {
+    }
+}
@@ -0,0 +1,61 @@
+package com.epam.training.gen.ai.service;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Consistent hash ring assigning keys to nodes.
+ * <p>
+ * Every node is placed on the ring {@code virtualNodes} times, at the murmur3 hashes of its name
+ * and a replica number, and a key belongs to the first node at or after its own hash. Virtual nodes
+ * spread the keys evenly; adding or removing one of {@code n} nodes only moves about {@code 1/n}
+ * of the keys. The ring is immutable.
+ *
+ * @param <T> the type of the nodes
+ */
+public class ConsistentHashRing<T> {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final NavigableMap<Long, T> ring = new TreeMap<>();
+
+    /**
+     * Creates a ring over the given nodes.
+     *
+     * @param nodes        the nodes, at least one
+     * @param name         the stable name of a node, which decides its positions on the ring
+     * @param virtualNodes the number of positions of every node
+     */
+    public ConsistentHashRing(List<T> nodes, Function<T, String> name, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A hash ring needs at least one node");
+        }
+        for (T node : nodes) {
+            for (int i = 0; i < Math.max(1, virtualNodes); i++) {
+                ring.put(hash(name.apply(node) + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * Returns the node a key belongs to.
+     *
+     * @param key the key, e.g. a point id
+     * @return the node owning the key
+     */
+    public T get(String key) {
+        Map.Entry<Long, T> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    private static long hash(String value) {
+        return HASH.hashString(value, StandardCharsets.UTF_8).asLong();
+    }
+}
@@ -0,0 +1,137 @@
+package com.epam.training.gen.ai.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Gathers single-text embedding requests from concurrent callers into multi-input embedding calls.
+ * <p>
+ * Requests are queued per model and flushed either when {@code maxItems} texts are waiting or when
+ * the oldest one has waited for {@code window}, whichever comes first. Each flush sends one request
+ * with all distinct texts of the batch and routes every vector back to the callers that asked for
+ * it, so the added latency is bounded by the window while the number of upstream requests drops by
+ * up to the batch size. Batch sizes are recorded in {@code genai.embedding.batch.size}.
+ * <p>
+ * Every request completes: a batch whose call fails, returns nothing or returns a different number
+ * of vectors than texts fails all of its requests, and {@link #dispose()} fails the requests that
+ * have not been answered yet.
+ */
+@Slf4j
+public class EmbeddingBatcher {
+
+    private final BiFunction<String, List<String>, Mono<List<List<Float>>>> embedder;
+    private final Duration window;
+    private final int maxItems;
+    private final DistributionSummary batchSize;
+    private final Map<String, Sinks.Many<Pending>> queues = new ConcurrentHashMap<>();
+    private final Disposable.Composite subscriptions = Disposables.composite();
+    private final Set<Pending> unanswered = ConcurrentHashMap.newKeySet();
+    private volatile boolean disposed;
+
+    /**
+     * Creates a batcher.
+     *
+     * @param embedder      performs a multi-input embedding call for a model and returns the vectors
+     *                      in input order
+     * @param window        the maximum time a request waits for other requests to join its batch
+     * @param maxItems      the maximum number of texts per batch
+     * @param meterRegistry the registry the batch size distribution is published to
+     */
+    public EmbeddingBatcher(BiFunction<String, List<String>, Mono<List<List<Float>>>> embedder,
+                            Duration window, int maxItems, MeterRegistry meterRegistry) {
+        this.embedder = embedder;
+        this.window = window;
+        this.maxItems = maxItems;
+        this.batchSize = DistributionSummary.builder("genai.embedding.batch.size")
+                .publishPercentiles(0.5, 0.95)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a text for embedding with the given model.
+     *
+     * @param model the embedding deployment
+     * @param text  the text to embed
+     * @return a {@link Mono} emitting the vector once the batch containing the text has been embedded
+     */
+    public Mono<List<Float>> submit(String model, String text) {
+        return Mono.create(sink -> {
+            Pending pending = new Pending(text, sink);
+            unanswered.add(pending);
+            sink.onDispose(() -> unanswered.remove(pending));
+            if (disposed) {
+                sink.error(new IllegalStateException("Embedding batcher stopped"));
+                return;
+            }
+            Sinks.Many<Pending> queue = queueFor(model);
+            Sinks.EmitResult result;
+            synchronized (queue) {
+                result = queue.tryEmitNext(pending);
+            }
+            if (result.isFailure()) {
+                sink.error(new IllegalStateException("Embedding batcher rejected request: " + result));
+            }
+        });
+    }
+
+    /**
+     * Stops batching; requests that are still queued or in flight fail.
+     */
+    public void dispose() {
+        disposed = true;
+        subscriptions.dispose();
+        IllegalStateException stopped = new IllegalStateException("Embedding batcher stopped");
+        List.copyOf(unanswered).forEach(pending -> pending.sink().error(stopped));
+    }
+
+    private Sinks.Many<Pending> queueFor(String model) {
+        return queues.computeIfAbsent(model, m -> {
+            Sinks.Many<Pending> queue = Sinks.many().unicast().onBackpressureBuffer();
+            subscriptions.add(queue.asFlux()
+                    .bufferTimeout(maxItems, window)
+                    .flatMap(batch -> dispatch(m, batch), Integer.MAX_VALUE)
+                    .subscribe());
+            return queue;
+        });
+    }
+
+    private Mono<Void> dispatch(String model, List<Pending> batch) {
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            positions.putIfAbsent(pending.text(), positions.size());
+        }
+        batchSize.record(positions.size());
+        return Mono.defer(() -> embedder.apply(model, new ArrayList<>(positions.keySet())))
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Embedding call returned no vectors")))
+                .flatMap(vectors -> vectors.size() == positions.size()
+                        ? Mono.just(vectors)
+                        : Mono.error(new IllegalStateException(
+                        "Embedding call returned " + vectors.size() + " vectors for " + positions.size() + " texts")))
+                .doOnNext(vectors -> batch.forEach(pending ->
+                        pending.sink().success(vectors.get(positions.get(pending.text())))))
+                .doOnError(e -> batch.forEach(pending -> pending.sink().error(e)))
+                .onErrorResume(e -> {
+                    log.warn("Embedding batch of {} texts for '{}' failed: {}", batch.size(), model, e.toString());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private record Pending(String text, MonoSink<List<Float>> sink) {
+    }
+}
@@ -1,16 +1,38 @@
 package com.epam.training.gen.ai.service;
 
 import com.azure.ai.openai.OpenAIAsyncClient;
+import com.azure.ai.openai.models.EmbeddingItem;
 import com.azure.ai.openai.models.EmbeddingsOptions;
+import com.epam.training.gen.ai.cache.SingleFlight;
+import com.epam.training.gen.ai.config.ChunkTextStoreProperties;
+import com.epam.training.gen.ai.config.EmbeddingBatchingProperties;
 import com.epam.training.gen.ai.model.SmartChunker;
 import com.epam.training.gen.ai.model.Model;
+import com.epam.training.gen.ai.model.ScoredText;
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.epam.training.gen.ai.resilience.DeploymentLimiter;
+import com.epam.training.gen.ai.resilience.EndpointType;
+import com.epam.training.gen.ai.resilience.FailoverExecutor;
+import com.epam.training.gen.ai.resilience.HedgingExecutor;
+import com.epam.training.gen.ai.resilience.Served;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service class responsible for handling text embeddings using AI-based models and providing
@@ -22,6 +44,7 @@ import java.util.List;
  * It also includes logic for splitting input text into manageable chunks and processing
  * them individually.
  */
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class EmbeddingService {
@@ -60,18 +83,139 @@ public class EmbeddingService {
      * efficient retrieval and storage of vectorized data.
      */
     private final VectorStoreService vectorStoreService;
+    /**
+     * Executor that hedges slow embedding calls with a second request to the same or an
+     * equivalent deployment once the call exceeds the observed latency percentile of the model.
+     */
+    private final HedgingExecutor hedgingExecutor;
+    /**
+     * Circuit breakers per embedding deployment; while a deployment is unhealthy, calls fail over to
+     * the deployments configured in {@code circuit-breaker.fallbacks}, or fail fast.
+     */
+    private final FailoverExecutor failoverExecutor;
+    /**
+     * Per-deployment limiter that queues embedding calls once the request rate, token rate or
+     * adaptive concurrency limit of the deployment is reached.
+     */
+    private final DeploymentLimiter deploymentLimiter;
+    /**
+     * Local tokenizer used to charge the limiter with the exact number of input tokens.
+     */
+    private final TokenCounter tokenCounter;
+    /**
+     * Single-flight group that lets concurrent requests for the same model and normalized text
+     * share one in-flight embedding call instead of each issuing its own.
+     */
+    private final SingleFlight<List<Float>> embeddingSingleFlight;
+    /**
+     * Settings of the cross-request micro-batching of single-text embedding requests.
+     */
+    private final EmbeddingBatchingProperties batchingProperties;
+    /**
+     * Registry used to publish the batch size distribution of the {@link EmbeddingBatcher} and the
+     * search results whose chunk text is missing.
+     */
+    private final MeterRegistry meterRegistry;
+    /**
+     * Settings of the local store of chunk texts.
+     */
+    private final ChunkTextStoreProperties chunkTextStoreProperties;
+    /**
+     * Batcher that merges single-text requests from concurrent callers into multi-input calls;
+     * {@code null} when batching is disabled.
+     */
+    private EmbeddingBatcher embeddingBatcher;
+    /**
+     * Local store that keeps the chunk texts out of the vector store; {@code null} when disabled.
+     */
+    private ChunkTextStore chunkTextStore;
+
+    /**
+     * Starts the micro-batcher if batching is enabled.
+     */
+    @PostConstruct
+    public void startBatching() {
+        if (batchingProperties.isEnabled()) {
+            embeddingBatcher = new EmbeddingBatcher(this::embedAll, batchingProperties.getWindow(),
+                    batchingProperties.getMaxItems(), meterRegistry);
+        }
+    }
+
+    /**
+     * Opens the chunk text store if it is enabled.
+     *
+     * @throws IOException if the store cannot be opened
+     */
+    @PostConstruct
+    public void openChunkTextStore() throws IOException {
+        if (chunkTextStoreProperties.isEnabled()) {
+            chunkTextStore = new ChunkTextStore(Path.of(chunkTextStoreProperties.getPath()),
+                    (int) chunkTextStoreProperties.getSegmentSize().toBytes(),
+                    (int) chunkTextStoreProperties.getCompressionThreshold().toBytes(),
+                    chunkTextStoreProperties.getCompressionLevel());
+        }
+    }
+
+    /**
+     * Stops the micro-batcher.
+     */
+    @PreDestroy
+    public void stopBatching() {
+        if (embeddingBatcher != null) {
+            embeddingBatcher.dispose();
+        }
+    }
+
+    /**
+     * Writes the chunk text store back to disk.
+     */
+    @PreDestroy
+    public void closeChunkTextStore() {
+        if (chunkTextStore != null) {
+            chunkTextStore.close();
+        }
+    }
 
     /**
      * Generates embeddings for a given text using the specified model.
+     * Concurrent requests for the same model and normalized text are coalesced into a single call,
+     * and with batching enabled, distinct texts requested within the batching window share one
+     * multi-input call.
      *
      * @param text       the input text for which embeddings need to be generated
      * @param modelValue the model identifier used for generating embeddings; if null, a default model is selected
      * @return a {@code Mono} emitting a list of {@code Float} values representing the embeddings for the input text
      */
     public Mono<List<Float>> getEmbeddings(String text, @Nullable String modelValue) {
-        EmbeddingsOptions options = new EmbeddingsOptions(List.of(text));
-        return Mono.from(openAIAsyncClient.getEmbeddings(getSelectedModel(modelValue), options))
-                .map(result -> result.getData().get(0).getEmbedding());
+        String selectedModel = getSelectedModel(modelValue);
+        return embeddingSingleFlight.execute(SingleFlight.key(selectedModel, text), () -> embeddingBatcher != null
+                ? embeddingBatcher.submit(selectedModel, text)
+                : embedAll(selectedModel, List.of(text)).map(vectors -> vectors.get(0)));
+    }
+
+    /**
+     * Generates embeddings for several texts with a single multi-input call.
+     *
+     * @param model the embedding deployment
+     * @param texts the input texts
+     * @return a {@code Mono} emitting one embedding per input text, in input order
+     */
+    private Mono<List<List<Float>>> embedAll(String model, List<String> texts) {
+        // an input longer than the context window is rejected by the service, so embed its prefix instead
+        int contextWindow = tokenCounter.contextWindow(model);
+        List<String> inputs = texts.stream().map(text -> tokenCounter.truncate(text, contextWindow, model)).toList();
+        EmbeddingsOptions options = new EmbeddingsOptions(inputs);
+        int estimatedTokens = inputs.stream().mapToInt(text -> tokenCounter.count(text, model)).sum();
+        return failoverExecutor.execute(model, EndpointType.EMBEDDINGS, target -> hedgingExecutor.embeddings(
+                        target, deployment -> deploymentLimiter.execute(
+                                deployment, EndpointType.EMBEDDINGS, estimatedTokens,
+                                () -> failoverExecutor.admitted(Mono.from(openAIAsyncClient.getEmbeddings(deployment, options))),
+                                result -> result.getUsage() == null ? 0 : result.getUsage().getTotalTokens())))
+                .map(Served::value)
+                .map(result -> result.getData().stream()
+                        .sorted(Comparator.comparingInt(EmbeddingItem::getPromptIndex))
+                        .map(EmbeddingItem::getEmbedding)
+                        .toList());
     }
 
     /**
@@ -99,10 +243,38 @@ public class EmbeddingService {
      * @return a {@link Mono} that completes when all chunks and their embeddings are successfully stored
      */
     public Mono<Void> buildAndStoreChunks(String input, String modelValue) {
+        return buildAndStoreChunks(input, modelValue, Map.of());
+    }
+
+    /**
+     * Splits the given input text into chunks and stores them with their embeddings and the given
+     * metadata, e.g. the {@link SearchFilter#TENANT_KEY tenant} and
+     * {@link SearchFilter#DOCUMENT_ID_KEY document id}; every chunk also gets its
+     * {@link SearchFilter#CHUNK_INDEX_KEY position} in the input. With {@code vector.chunk-text.enabled},
+     * the texts are kept in the local {@link ChunkTextStore} under their point ids and the vector
+     * store only receives the vectors and metadata.
+     *
+     * @param input      the input text to be split into chunks and processed
+     * @param modelValue the model identifier used for generating embeddings; if null, a default model is selected
+     * @param metadata   payload fields stored with every chunk
+     * @return a {@link Mono} that completes when all chunks and their embeddings are successfully stored
+     */
+    public Mono<Void> buildAndStoreChunks(String input, String modelValue, Map<String, String> metadata) {
         List<String> chunks = SmartChunker.chunk(input);
-        return Flux.fromIterable(chunks)
-                .concatMap(chunk -> getEmbeddings(chunk, modelValue)
-                        .flatMap(embedding -> vectorStoreService.upsert(chunk, embedding)))
+        return Flux.range(0, chunks.size())
+                .concatMap(index -> getEmbeddings(chunks.get(index), modelValue)
+                        .flatMap(embedding -> {
+                            Map<String, String> payload = new HashMap<>(metadata);
+                            payload.put(SearchFilter.CHUNK_INDEX_KEY, Integer.toString(index));
+                            if (chunkTextStore == null) {
+                                return vectorStoreService.upsert(chunks.get(index), embedding, payload);
+                            }
+                            String id = VectorStoreService.contentId(chunks.get(index), payload);
+                            // the store writes to memory-mapped files, which may page in from disk
+                            return Mono.fromRunnable(() -> chunkTextStore.put(id, chunks.get(index)))
+                                    .subscribeOn(Schedulers.boundedElastic())
+                                    .then(vectorStoreService.upsert(id, null, embedding, payload));
+                        }))
                 .then();
     }
 
@@ -116,10 +288,49 @@ public class EmbeddingService {
      * @return a {@link Mono} emitting a list of search results represented as strings
      */
     public Mono<List<String>> search(String input, int limit, @Nullable String modelValue) {
-        EmbeddingsOptions options = new EmbeddingsOptions(List.of(input));
-        return Mono.from(openAIAsyncClient.getEmbeddings(getSelectedModel(modelValue), options))
-                .map(result -> result.getData().get(0).getEmbedding())
-                .flatMap(embedding -> vectorStoreService.search(input, embedding, limit));
+        return search(input, limit, modelValue, SearchFilter.NONE);
+    }
+
+    /**
+     * Performs a semantic search among the entries matching the filter. Entries stored without their
+     * text get it from the {@link ChunkTextStore}, in one batch for all results; entries whose text
+     * is in neither store are left out, logged and counted in {@code genai.vector.chunk_text.missing}.
+     *
+     * @param input      the search query string used to generate embeddings for similarity comparison
+     * @param limit      the maximum number of search results to retrieve
+     * @param modelValue the model identifier used for generating embeddings (can be null to select a default model)
+     * @param filter     the tenant, documents, time range or payload values the entries must match
+     * @return a {@link Mono} emitting up to {@code limit} matching entries, most similar first
+     */
+    public Mono<List<String>> search(String input, int limit, @Nullable String modelValue, SearchFilter filter) {
+        return getEmbeddings(input, modelValue)
+                .flatMap(embedding -> chunkTextStore == null
+                        ? vectorStoreService.search(input, embedding, limit, filter)
+                        : vectorStoreService.searchWithScores(embedding, limit, filter)
+                        .flatMap(results -> Mono.fromCallable(() -> withTexts(results))
+                                .subscribeOn(Schedulers.boundedElastic())));
+    }
+
+    private List<String> withTexts(List<ScoredText> results) {
+        Map<String, String> texts = chunkTextStore.getAll(results.stream()
+                .filter(result -> result.getText() == null && result.getId() != null)
+                .map(ScoredText::getId)
+                .toList());
+        List<String> found = new ArrayList<>(results.size());
+        List<String> missing = new ArrayList<>();
+        for (ScoredText result : results) {
+            String text = result.getText() != null ? result.getText() : texts.get(result.getId());
+            if (text != null) {
+                found.add(text);
+            } else {
+                missing.add(result.getId());
+            }
+        }
+        if (!missing.isEmpty()) {
+            meterRegistry.counter("genai.vector.chunk_text.missing").increment(missing.size());
+            log.warn("Dropped {} search results without a stored chunk text: {}", missing.size(), missing);
+        }
+        return found;
     }
 
     /**
@@ -0,0 +1,120 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.model.ScoredText;
+import com.epam.training.gen.ai.model.SearchFilter;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Small in-process {@link VectorStoreService} that keeps at most {@code maxEntries} vectors in
+ * memory and searches them exhaustively.
+ * <p>
+ * Vectors are normalized once on insert, so cosine similarity is a plain dot product at query time.
+ * When the store is full, the oldest entry is dropped. A linear scan over a few thousand
+ * 1536-dimensional vectors takes well under a millisecond, which is fast enough for an answer
+ * cache and needs no external service.
+ * <p>
+ * Like the Qdrant store, every entry is stored with its {@link SearchFilter#CREATED_AT_KEY} time
+ * unless the payload has one, so time range filters apply to it.
+ */
+public class InMemoryVectorStoreService implements VectorStoreService {
+
+    private final int maxEntries;
+    private final Deque<Entry> entries = new ArrayDeque<>();
+
+    /**
+     * Creates an empty store.
+     *
+     * @param maxEntries the maximum number of entries kept; older entries are evicted first
+     */
+    public InMemoryVectorStoreService(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public Mono<Void> upsert(String text, List<Float> embedding) {
+        return upsert(text, embedding, Map.of());
+    }
+
+    @Override
+    public Mono<Void> upsert(String text, List<Float> embedding, Map<String, String> payload) {
+        return upsert(VectorStoreService.contentId(text, payload), text, embedding, payload);
+    }
+
+    @Override
+    public Mono<Void> upsert(String id, String text, List<Float> embedding, Map<String, String> payload) {
+        return Mono.fromRunnable(() -> {
+            Map<String, String> stored = new HashMap<>(payload);
+            stored.putIfAbsent(SearchFilter.CREATED_AT_KEY, Instant.now().toString());
+            Entry entry = new Entry(id, text, normalize(embedding), Map.copyOf(stored));
+            synchronized (entries) {
+                entries.removeIf(existing -> existing.id().equals(id));
+                entries.addLast(entry);
+                while (entries.size() > maxEntries) {
+                    entries.removeFirst();
+                }
+            }
+        });
+    }
+
+    @Override
+    public Mono<List<ScoredText>> searchWithScores(List<Float> queryEmbedding, int limit, SearchFilter filter) {
+        return Mono.fromCallable(() -> {
+            float[] query = normalize(queryEmbedding);
+            List<Entry> snapshot;
+            synchronized (entries) {
+                snapshot = new ArrayList<>(entries);
+            }
+            PriorityQueue<ScoredText> best = new PriorityQueue<>(Comparator.comparingDouble(ScoredText::getScore));
+            for (Entry entry : snapshot) {
+                if (entry.vector().length != query.length || !filter.matches(entry.payload())) {
+                    continue;
+                }
+                float score = dot(query, entry.vector());
+                if (best.size() < limit) {
+                    best.add(new ScoredText(entry.text(), entry.payload(), score, entry.id()));
+                } else if (limit > 0 && score > best.peek().getScore()) {
+                    best.poll();
+                    best.add(new ScoredText(entry.text(), entry.payload(), score, entry.id()));
+                }
+            }
+            List<ScoredText> results = new ArrayList<>(best);
+            results.sort(Comparator.comparingDouble(ScoredText::getScore).reversed());
+            return results;
+        });
+    }
+
+    private static float[] normalize(List<Float> embedding) {
+        float[] vector = new float[embedding.size()];
+        double norm = 0;
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = embedding.get(i);
+            norm += vector[i] * vector[i];
+        }
+        float scale = norm == 0 ? 0 : (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private record Entry(String id, String text, float[] vector, Map<String, String> payload) {
+    }
+}
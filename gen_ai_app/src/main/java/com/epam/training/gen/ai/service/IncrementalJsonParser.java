@@ -0,0 +1,197 @@
+package com.epam.training.gen.ai.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parser for a flat JSON object whose text arrives in arbitrary chunks, e.g. the deltas of a
+ * streamed completion.
+ * <p>
+ * A field becomes visible as soon as the opening quote of its value has been read, and a string
+ * value grows with every chunk until its closing quote, so callers can show the answer while it is
+ * still being generated. Chunks may split the text anywhere, including inside escape sequences.
+ * Only objects whose values are strings, numbers, booleans or {@code null} are supported; nested
+ * objects and arrays are rejected. Instances are not thread-safe and parse a single object.
+ */
+public class IncrementalJsonParser {
+
+    private enum State {
+        BEFORE_OBJECT, BEFORE_KEY, KEY, AFTER_KEY, BEFORE_VALUE, STRING_VALUE, SCALAR_VALUE, AFTER_VALUE, DONE
+    }
+
+    private final Map<String, String> fields = new LinkedHashMap<>();
+    private final StringBuilder text = new StringBuilder();
+    private final StringBuilder token = new StringBuilder();
+    private State state = State.BEFORE_OBJECT;
+    private String key;
+    /**
+     * Characters of the escape sequence being read, without the backslash, or {@code null} outside one.
+     */
+    private StringBuilder escape;
+
+    /**
+     * Parses the next chunk of text.
+     *
+     * @param chunk the chunk
+     * @return {@code true} if a field was added or its value changed
+     * @throws IllegalArgumentException if the text is not a flat JSON object
+     */
+    public boolean feed(CharSequence chunk) {
+        text.append(chunk);
+        boolean changed = false;
+        for (int i = 0; i < chunk.length(); i++) {
+            changed |= accept(chunk.charAt(i));
+        }
+        if (changed && state == State.STRING_VALUE) {
+            fields.put(key, token.toString());
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the fields read so far; the value of the last field may still be incomplete.
+     *
+     * @return the fields in the order they appeared
+     */
+    public Map<String, String> getFields() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(fields));
+    }
+
+    /**
+     * Returns the text fed so far.
+     *
+     * @return the raw text
+     */
+    public String getText() {
+        return text.toString();
+    }
+
+    /**
+     * Tells whether the closing brace of the object has been read.
+     *
+     * @return {@code true} if the object is complete
+     */
+    public boolean isComplete() {
+        return state == State.DONE;
+    }
+
+    private boolean accept(char c) {
+        switch (state) {
+            case BEFORE_OBJECT -> {
+                if (c == '{') {
+                    state = State.BEFORE_KEY;
+                } else {
+                    expectWhitespace(c);
+                }
+            }
+            case BEFORE_KEY -> {
+                if (c == '"') {
+                    token.setLength(0);
+                    state = State.KEY;
+                } else if (c == '}') {
+                    state = State.DONE;
+                } else {
+                    expectWhitespace(c);
+                }
+            }
+            case KEY -> {
+                if (readString(c)) {
+                    key = token.toString();
+                    state = State.AFTER_KEY;
+                }
+            }
+            case AFTER_KEY -> {
+                if (c == ':') {
+                    state = State.BEFORE_VALUE;
+                } else {
+                    expectWhitespace(c);
+                }
+            }
+            case BEFORE_VALUE -> {
+                if (c == '"') {
+                    token.setLength(0);
+                    fields.put(key, "");
+                    state = State.STRING_VALUE;
+                    return true;
+                }
+                if (c == '{' || c == '[') {
+                    throw new IllegalArgumentException("Nested value of field '" + key + "' is not supported");
+                }
+                if (!Character.isWhitespace(c)) {
+                    token.setLength(0);
+                    token.append(c);
+                    state = State.SCALAR_VALUE;
+                }
+            }
+            case STRING_VALUE -> {
+                if (readString(c)) {
+                    fields.put(key, token.toString());
+                    state = State.AFTER_VALUE;
+                }
+                return true;
+            }
+            case SCALAR_VALUE -> {
+                if (c == ',' || c == '}' || Character.isWhitespace(c)) {
+                    String value = token.toString();
+                    fields.put(key, "null".equals(value) ? null : value);
+                    state = c == ',' ? State.BEFORE_KEY : c == '}' ? State.DONE : State.AFTER_VALUE;
+                    return true;
+                }
+                token.append(c);
+            }
+            case AFTER_VALUE -> {
+                if (c == ',') {
+                    state = State.BEFORE_KEY;
+                } else if (c == '}') {
+                    state = State.DONE;
+                } else {
+                    expectWhitespace(c);
+                }
+            }
+            case DONE -> expectWhitespace(c);
+        }
+        return false;
+    }
+
+    /**
+     * Reads one character of a string.
+     *
+     * @return {@code true} if the character is the closing quote
+     */
+    private boolean readString(char c) {
+        if (escape != null) {
+            escape.append(c);
+            if (escape.charAt(0) != 'u') {
+                token.append(switch (c) {
+                    case 'b' -> '\b';
+                    case 'f' -> '\f';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    case 't' -> '\t';
+                    default -> c;
+                });
+                escape = null;
+            } else if (escape.length() == 5) {
+                token.append((char) Integer.parseInt(escape, 1, 5, 16));
+                escape = null;
+            }
+            return false;
+        }
+        if (c == '\\') {
+            escape = new StringBuilder(5);
+            return false;
+        }
+        if (c == '"') {
+            return true;
+        }
+        token.append(c);
+        return false;
+    }
+
+    private void expectWhitespace(char c) {
+        if (!Character.isWhitespace(c)) {
+            throw new IllegalArgumentException("Unexpected '" + c + "' in state " + state);
+        }
+    }
+}
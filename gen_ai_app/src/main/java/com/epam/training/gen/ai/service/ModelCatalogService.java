@@ -0,0 +1,288 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.config.ModelCatalogProperties;
+import com.epam.training.gen.ai.config.SemanticKernelConfiguration;
+import com.epam.training.gen.ai.model.Model;
+import com.epam.training.gen.ai.model.Vendor;
+import com.epam.training.gen.ai.startup.Readiness;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory catalog of the deployments offered by the proxy.
+ * <p>
+ * The deployments list is fetched from {@code epam.dial.deployment-names-api} in the background every
+ * {@code model-catalog.refresh-interval}, with {@code If-None-Match} and {@code If-Modified-Since}
+ * taken from the previous response, so an unchanged list costs a {@code 304} and no parsing. Every
+ * change replaces an immutable snapshot indexed by deployment id, {@link Vendor} and enabled feature,
+ * which endpoints and the {@link com.epam.training.gen.ai.routing.ModelRouter} read without any
+ * remote call. The last snapshot is written to {@code model-catalog.snapshot-path} and loaded at
+ * startup, so the application starts with the previous catalog and does not wait on the network;
+ * without a snapshot the catalog is empty, and the {@link Readiness#MODEL_CATALOG} phase pending,
+ * until a first fetch succeeds; that fetch starts immediately and is retried with the startup backoff.
+ * Refreshes are counted in {@code genai.model-catalog.refresh}, tagged
+ * {@code result=updated|not_modified|error}.
+ */
+@Slf4j
+@Service
+public class ModelCatalogService {
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final ModelCatalogProperties modelCatalogProperties;
+    private final MeterRegistry meterRegistry;
+    private final Readiness readiness;
+    private final String modelListUrl;
+    private volatile Catalog catalog = Catalog.EMPTY;
+    private Disposable refreshTask;
+
+    public ModelCatalogService(RestTemplate restTemplate, ObjectMapper objectMapper,
+                               ModelCatalogProperties modelCatalogProperties, MeterRegistry meterRegistry,
+                               Readiness readiness, @Value("${epam.dial.deployment-names-api}") String modelListUrl) {
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.modelCatalogProperties = modelCatalogProperties;
+        this.meterRegistry = meterRegistry;
+        this.readiness = readiness;
+        this.modelListUrl = modelListUrl;
+    }
+
+    /**
+     * Loads the snapshot from disk and starts the background refresh.
+     */
+    @PostConstruct
+    public void start() {
+        loadSnapshot();
+        if (isLoaded()) {
+            readiness.ready(Readiness.MODEL_CATALOG);
+        } else {
+            // no snapshot: fetch now, retrying with the startup backoff rather than the refresh interval
+            readiness.track(Readiness.MODEL_CATALOG, Mono.fromCallable(() -> refresh() || isLoaded())
+                            .filter(Boolean::booleanValue)
+                            .switchIfEmpty(Mono.error(() -> new IllegalStateException("Model catalog not loaded")))
+                            .subscribeOn(Schedulers.boundedElastic()))
+                    .subscribe();
+        }
+        Duration interval = modelCatalogProperties.getRefreshInterval();
+        refreshTask = Flux.interval(interval, interval, Schedulers.boundedElastic())
+                .subscribe(tick -> refresh());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refreshTask != null) {
+            refreshTask.dispose();
+        }
+    }
+
+    /**
+     * Tells whether a catalog has been loaded, from disk or from the proxy.
+     *
+     * @return {@code true} once a deployments list is available
+     */
+    public boolean isLoaded() {
+        return catalog.body() != null;
+    }
+
+    /**
+     * Returns the deployments list as last received from the proxy.
+     *
+     * @return the response body of the deployments API, or empty if no catalog has been loaded yet
+     */
+    public Optional<String> getRawCatalog() {
+        return Optional.ofNullable(catalog.body());
+    }
+
+    /**
+     * Returns all deployments.
+     *
+     * @return the deployments, in the order of the deployments API
+     */
+    public List<SemanticKernelConfiguration.Model> getModels() {
+        return catalog.models();
+    }
+
+    /**
+     * Returns the deployment with the given id.
+     *
+     * @param id the deployment id
+     * @return the deployment, or empty if it is not deployed
+     */
+    public Optional<SemanticKernelConfiguration.Model> getModel(String id) {
+        return Optional.ofNullable(catalog.byId().get(id));
+    }
+
+    /**
+     * Returns the deployments of a vendor's models.
+     *
+     * @param vendor the vendor
+     * @return the deployments whose id is one of the vendor's {@link Model}s
+     */
+    public List<SemanticKernelConfiguration.Model> getModels(Vendor vendor) {
+        return catalog.byVendor().getOrDefault(vendor, List.of());
+    }
+
+    /**
+     * Returns the deployments that have all the given features enabled.
+     *
+     * @param features feature flags (keys of the deployment's {@code features} map)
+     * @return the matching deployments, in the order of the deployments API; all of them if no
+     * feature is given
+     */
+    public List<SemanticKernelConfiguration.Model> getModels(Collection<String> features) {
+        Catalog current = catalog;
+        if (features.isEmpty()) {
+            return current.models();
+        }
+        // start from the rarest feature, then check the others on its few deployments
+        return features.stream()
+                .map(feature -> current.byFeature().getOrDefault(feature, List.of()))
+                .min(Comparator.comparingInt(List::size))
+                .orElse(List.of())
+                .stream()
+                .filter(model -> features.stream().allMatch(feature -> Boolean.TRUE.equals(model.getFeatures().get(feature))))
+                .toList();
+    }
+
+    /**
+     * Fetches the deployments list if it changed since the last fetch.
+     *
+     * @return {@code true} if a new catalog was installed
+     */
+    public synchronized boolean refresh() {
+        Catalog current = catalog;
+        HttpHeaders headers = new HttpHeaders();
+        if (current.etag() != null) {
+            headers.setIfNoneMatch(current.etag());
+        }
+        if (current.lastModified() != null) {
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, current.lastModified());
+        }
+        try {
+            ResponseEntity<String> response = restTemplate.exchange(
+                    modelListUrl, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+            if (response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value() && current.body() != null) {
+                meterRegistry.counter("genai.model-catalog.refresh", "result", "not_modified").increment();
+                return false;
+            }
+            if (response.getBody() == null) {
+                throw new IOException("Empty deployments list, status " + response.getStatusCode());
+            }
+            Catalog updated = parse(response.getBody(), response.getHeaders().getETag(),
+                    response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED));
+            catalog = updated;
+            readiness.ready(Readiness.MODEL_CATALOG);
+            meterRegistry.counter("genai.model-catalog.refresh", "result", "updated").increment();
+            log.info("Model catalog refreshed, {} deployments", updated.models().size());
+            writeSnapshot(updated);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // also covers unexpected failures, e.g. in parsing: one escaping would end the refresh interval
+            meterRegistry.counter("genai.model-catalog.refresh", "result", "error").increment();
+            log.warn("Model catalog refresh failed, keeping {} deployments: {}", current.models().size(), e.toString());
+            return false;
+        }
+    }
+
+    private void loadSnapshot() {
+        Path path = Path.of(modelCatalogProperties.getSnapshotPath());
+        if (!Files.isReadable(path)) {
+            return;
+        }
+        try {
+            StoredCatalog stored = objectMapper.readValue(path.toFile(), StoredCatalog.class);
+            catalog = parse(stored.body(), stored.etag(), stored.lastModified());
+            log.info("Loaded model catalog snapshot with {} deployments from {}", catalog.models().size(), path);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable model catalog snapshot {}: {}", path, e.toString());
+        }
+    }
+
+    private void writeSnapshot(Catalog snapshot) {
+        Path path = Path.of(modelCatalogProperties.getSnapshotPath()).toAbsolutePath();
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            objectMapper.writeValue(temp.toFile(), new StoredCatalog(snapshot.etag(), snapshot.lastModified(), snapshot.body()));
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write model catalog snapshot {}: {}", path, e.toString());
+        }
+    }
+
+    private Catalog parse(String body, String etag, String lastModified) throws IOException {
+        List<SemanticKernelConfiguration.Model> models = Optional.ofNullable(
+                        objectMapper.readValue(body, SemanticKernelConfiguration.ModelListResponse.class).getData())
+                .orElse(List.of());
+        Map<String, SemanticKernelConfiguration.Model> byId = new LinkedHashMap<>();
+        Map<Vendor, List<SemanticKernelConfiguration.Model>> byVendor = new EnumMap<>(Vendor.class);
+        Map<String, List<SemanticKernelConfiguration.Model>> byFeature = new HashMap<>();
+        for (SemanticKernelConfiguration.Model model : models) {
+            if (model.getFeatures() == null) {
+                model.setFeatures(Map.of());
+            }
+            if (model.getId() != null) {
+                byId.put(model.getId(), model);
+            }
+            Model.fromValue(model.getId()).flatMap(Vendor::of)
+                    .ifPresent(vendor -> byVendor.computeIfAbsent(vendor, key -> new ArrayList<>()).add(model));
+            model.getFeatures().forEach((feature, enabled) -> {
+                if (Boolean.TRUE.equals(enabled)) {
+                    byFeature.computeIfAbsent(feature, key -> new ArrayList<>()).add(model);
+                }
+            });
+        }
+        byVendor.replaceAll((vendor, list) -> List.copyOf(list));
+        byFeature.replaceAll((feature, list) -> List.copyOf(list));
+        return new Catalog(body, etag, lastModified, List.copyOf(models),
+                Map.copyOf(byId), byVendor, Map.copyOf(byFeature));
+    }
+
+    /**
+     * Immutable catalog snapshot with its indexes.
+     */
+    private record Catalog(String body, String etag, String lastModified,
+                           List<SemanticKernelConfiguration.Model> models,
+                           Map<String, SemanticKernelConfiguration.Model> byId,
+                           Map<Vendor, List<SemanticKernelConfiguration.Model>> byVendor,
+                           Map<String, List<SemanticKernelConfiguration.Model>> byFeature) {
+
+        static final Catalog EMPTY = new Catalog(null, null, null, List.of(), Map.of(), Map.of(), Map.of());
+    }
+
+    /**
+     * On-disk form of a snapshot; the indexes are rebuilt when it is loaded.
+     */
+    private record StoredCatalog(String etag, String lastModified, String body) {
+    }
+}
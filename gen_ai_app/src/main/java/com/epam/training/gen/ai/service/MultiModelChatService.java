@@ -0,0 +1,112 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.config.FanOutProperties;
+import com.epam.training.gen.ai.model.ModelReply;
+import com.microsoft.semantickernel.orchestration.InvocationContext;
+import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
+import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Service that sends the same prompt to several chat deployments concurrently.
+ * <p>
+ * Every model gets its own {@link ChatHistory}, so the calls are independent and the overall
+ * latency is bounded by the slowest (or, with a first-k cutoff, the k-th fastest) model instead of
+ * the sum of all of them. Calls go through the {@link ChatGateway}, which reuses the per-deployment
+ * kernels and reports every call to the model router.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MultiModelChatService {
+
+    private final ChatGateway chatGateway;
+    private final InvocationContext invocationContext;
+    private final FanOutProperties fanOutProperties;
+
+    /**
+     * Queries all given models concurrently and collects their replies.
+     *
+     * @param input           the user prompt sent to every model
+     * @param modelIds        the deployment ids to query; capped at {@code chat.fanout.max-models}
+     * @param firstK          if set, completes as soon as this many models answered successfully and
+     *                        cancels the remaining calls; if {@code null}, waits for every model
+     * @param perModelTimeout the timeout applied to each model individually; defaults to
+     *                        {@code chat.fanout.per-model-timeout} when {@code null}
+     * @return a {@link Mono} emitting the replies in completion order; failed or timed out models
+     * are reported with an error unless a first-k cutoff is requested
+     */
+    public Mono<List<ModelReply>> fanOut(String input, List<String> modelIds,
+                                         @Nullable Integer firstK, @Nullable Duration perModelTimeout) {
+        Duration timeout = Objects.requireNonNullElse(perModelTimeout, fanOutProperties.getPerModelTimeout());
+        List<Mono<ModelReply>> calls = modelIds.stream()
+                .distinct()
+                .limit(fanOutProperties.getMaxModels())
+                .map(modelId -> ask(modelId, input, timeout))
+                .toList();
+
+        Flux<ModelReply> replies = Flux.merge(calls);
+        if (firstK != null && firstK > 0) {
+            replies = replies.filter(reply -> reply.getError() == null).take(firstK);
+        }
+        return replies.collectList();
+    }
+
+    /**
+     * Sends the prompt to a single model using the default per-model timeout.
+     *
+     * @param modelId the deployment id of the chat model
+     * @param input   the user prompt
+     * @return a {@link Mono} that always emits exactly one reply
+     */
+    public Mono<ModelReply> ask(String modelId, String input) {
+        return ask(modelId, input, fanOutProperties.getPerModelTimeout());
+    }
+
+    /**
+     * Sends the prompt to a single model and converts the outcome, including failures and
+     * timeouts, into a {@link ModelReply}.
+     *
+     * @param modelId the deployment id of the chat model
+     * @param input   the user prompt
+     * @param timeout the maximum time to wait for the model
+     * @return a {@link Mono} that always emits exactly one reply
+     */
+    public Mono<ModelReply> ask(String modelId, String input, Duration timeout) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            ChatHistory history = new ChatHistory();
+            history.addUserMessage(input);
+            return chatGateway.serve(modelId, history, invocationContext)
+                    .timeout(timeout)
+                    .map(served -> ModelReply.builder()
+                            .modelId(modelId)
+                            .servedBy(served.servedBy())
+                            .messages(served.value().stream().map(ChatMessageContent::getContent).toList())
+                            .latencyMillis(elapsedMillis(start))
+                            .build())
+                    .onErrorResume(e -> {
+                        log.warn("Model '{}' failed: {}", modelId, e.toString());
+                        return Mono.just(ModelReply.builder()
+                                .modelId(modelId)
+                                .messages(List.of())
+                                .latencyMillis(elapsedMillis(start))
+                                .error(e.toString())
+                                .build());
+                    });
+        });
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+    }
+}
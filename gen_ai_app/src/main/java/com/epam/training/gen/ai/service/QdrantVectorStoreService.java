@@ -1,22 +1,25 @@
 package com.epam.training.gen.ai.service;
 
 import com.epam.training.gen.ai.model.Reactive;
+import com.epam.training.gen.ai.model.ScoredText;
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.google.protobuf.Timestamp;
+import io.qdrant.client.ConditionFactory;
 import io.qdrant.client.QdrantClient;
 import io.qdrant.client.grpc.Collections;
 import io.qdrant.client.grpc.JsonWithInt;
 import io.qdrant.client.grpc.Points.*;
-import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 /**
  * Service implementation for managing vector-based storage and retrieval using Qdrant.
@@ -28,6 +31,10 @@ import java.util.stream.Collectors;
  * - Creating and ensuring the existence of collections in the Qdrant system.
  * - Adding or updating vector data points with associated payloads.
  * - Searching for vector matches based on query embeddings and associated text payloads.
+ * <p>
+ * The {@link SearchFilter} fields are indexed in every collection ({@link #PAYLOAD_INDEXES}), so
+ * searches scoped to a tenant, documents or a time range are filtered inside the HNSW traversal.
+ * Every point is stored with its {@link SearchFilter#CREATED_AT_KEY} time.
  */
 @Slf4j
 @Service
@@ -56,6 +63,16 @@ public class QdrantVectorStoreService implements VectorStoreService, Reactive {
      */
     public static final int DEFAULT_TIMEOUT = 5;
 
+    /**
+     * Payload fields indexed in every collection, with the type of their index. Values of
+     * {@code Integer} fields are stored as integers, all other values as strings.
+     */
+    public static final Map<String, Collections.PayloadSchemaType> PAYLOAD_INDEXES = Map.of(
+            SearchFilter.TENANT_KEY, Collections.PayloadSchemaType.Keyword,
+            SearchFilter.DOCUMENT_ID_KEY, Collections.PayloadSchemaType.Keyword,
+            SearchFilter.CHUNK_INDEX_KEY, Collections.PayloadSchemaType.Integer,
+            SearchFilter.CREATED_AT_KEY, Collections.PayloadSchemaType.Datetime);
+
     /**
      * A client for interacting with a Qdrant vector database.
      * Provides operations for managing vector collections, inserting/upserting vectors,
@@ -75,63 +92,70 @@ public class QdrantVectorStoreService implements VectorStoreService, Reactive {
      * The value of this property is typically configured using the `vector.collection.name`
      * property in the application's environment or configuration files.
      */
-    @Value("${vector.collection.name}")
-    private String collectionName;
+    private final String collectionName;
 
     /**
      * Constructs a new instance of QdrantVectorStoreService.
      *
-     * @param qdrantClient the Qdrant client used for interacting with the Qdrant database
+     * @param qdrantClient   the Qdrant client used for interacting with the Qdrant database
+     * @param collectionName the name of the Qdrant collection holding the vectors
      */
-    public QdrantVectorStoreService(QdrantClient qdrantClient) {
+    public QdrantVectorStoreService(QdrantClient qdrantClient, @Value("${vector.collection.name}") String collectionName) {
         this.qdrantClient = qdrantClient;
+        this.collectionName = collectionName;
     }
 
     /**
      * Ensures that a collection with the configured name exists within the Qdrant system.
-     * If the collection does not exist, it attempts to create a new one with the specified
+     * If the collection does not exist, it creates a new one with the specified
      * configuration, including vector size and distance metric.
      * <p>
-     * Logging is performed to indicate whether the collection already exists or is being created.
-     * In case of an error during collection creation, an error message is logged.
-     * <p>
-     * This method is executed automatically after the construction of the bean, as annotated by {@code @PostConstruct}.
+     * Nothing happens until the returned {@link Mono} is subscribed, and it only completes once the
+     * collection exists, so callers can run it in the background and wait for it where needed. Every
+     * remote call is bounded by {@link #DEFAULT_TIMEOUT}; failures are propagated so the caller can
+     * retry, e.g. while Qdrant is still starting.
      * <p>
      * The collection configuration includes:
      * - Vector size: 1536
      * - Distance metric: Cosine similarity
-     * <p>
-     * Exceptions encountered during the process are logged but not propagated, allowing the application to continue running.
+     * - Payload indexes: {@link #PAYLOAD_INDEXES}, also added to existing collections that lack them
+     *
+     * @return a {@link Mono} that completes when the collection and its payload indexes exist
      */
-    @PostConstruct
-    public void ensureCollectionExists() {
-        Collections.Distance distance = Collections.Distance.Cosine;
-
-        try {
-            qdrantClient.getCollectionInfoAsync(collectionName, Duration.ofSeconds(DEFAULT_TIMEOUT))
-                    .get(DEFAULT_TIMEOUT, TimeUnit.SECONDS);
-
-            log.info("Qdrant collection '{}' already exists — skipping creation.", collectionName);
-        } catch (Exception ex) {
-            log.warn("Qdrant collection '{}' not found or failed to fetch. Attempting to create...", collectionName);
-
-            Collections.CreateCollection request = Collections.CreateCollection.newBuilder()
-                    .setCollectionName(collectionName)
-                    .setVectorsConfig(Collections.VectorsConfig.newBuilder()
-                            .setParams(Collections.VectorParams.newBuilder()
-                                    .setSize(DEFAULT_VECTOR_SIZE)
-                                    .setDistance(distance)
+    public Mono<Void> ensureCollection() {
+        Duration timeout = Duration.ofSeconds(DEFAULT_TIMEOUT);
+        return this.toMono(() -> qdrantClient.collectionExistsAsync(collectionName, timeout))
+                .flatMap(exists -> {
+                    if (exists) {
+                        log.info("Qdrant collection '{}' already exists — skipping creation.", collectionName);
+                        return Mono.<Void>empty();
+                    }
+                    log.info("Qdrant collection '{}' not found. Creating...", collectionName);
+                    Collections.CreateCollection request = Collections.CreateCollection.newBuilder()
+                            .setCollectionName(collectionName)
+                            .setVectorsConfig(Collections.VectorsConfig.newBuilder()
+                                    .setParams(Collections.VectorParams.newBuilder()
+                                            .setSize(DEFAULT_VECTOR_SIZE)
+                                            .setDistance(Collections.Distance.Cosine)
+                                            .build())
                                     .build())
-                            .build())
-                    .build();
-
-            try {
-                qdrantClient.createCollectionAsync(request);
-                log.info("Created Qdrant collection '{}'.", collectionName);
-            } catch (Exception createEx) {
-                log.error("Failed to create Qdrant collection '{}': {}", collectionName, createEx.getMessage(), createEx);
-            }
-        }
+                            .build();
+                    return this.toMono(() -> qdrantClient.createCollectionAsync(request, timeout))
+                            .doOnNext(response -> log.info("Created Qdrant collection '{}'.", collectionName))
+                            .then();
+                })
+                .then(Mono.defer(() -> ensurePayloadIndexes(timeout)));
+    }
+
+    private Mono<Void> ensurePayloadIndexes(Duration timeout) {
+        return this.toMono(() -> qdrantClient.getCollectionInfoAsync(collectionName, timeout))
+                .flatMapMany(info -> Flux.fromIterable(PAYLOAD_INDEXES.entrySet())
+                        .filter(index -> !info.containsPayloadSchema(index.getKey())))
+                .concatMap(index -> this.toMono(() -> qdrantClient.createPayloadIndexAsync(
+                                collectionName, index.getKey(), index.getValue(), null, true, null, timeout))
+                        .doOnNext(result -> log.info("Created {} payload index '{}' in Qdrant collection '{}'.",
+                                index.getValue(), index.getKey(), collectionName)))
+                .then();
     }
 
     /**
@@ -140,61 +164,241 @@ public class QdrantVectorStoreService implements VectorStoreService, Reactive {
      */
     @Override
     public Mono<Void> upsert(String text, List<Float> embedding) {
-        PointStruct point = PointStruct.newBuilder()
-                .setId(PointId.newBuilder().setUuid(UUID.randomUUID().toString()).build())
-                .setVectors(Vectors.newBuilder()
-                        .setVector(Vector.newBuilder()
-                                .addAllData(embedding)
-                                .build())
-                        .build())
-                .putAllPayload(Map.of(
-                        VECTOR_STORE_TEXT_KEY, JsonWithInt.Value.newBuilder().setStringValue(text).build()
-                ))
-                .build();
+        return upsert(text, embedding, Map.of());
+    }
 
+    /**
+     * Upserts a data point with the text and additional string attributes as payload. The point id
+     * is the {@link VectorStoreService#contentId content id}, so storing the same text and payload
+     * again replaces the point instead of adding a duplicate.
+     *
+     * @param text      the text to be stored
+     * @param embedding the vector representation of the text
+     * @param payload   additional attributes stored as payload fields, see {@link #PAYLOAD_INDEXES}
+     * @return a {@link Mono} that completes when the operation is done
+     */
+    @Override
+    public Mono<Void> upsert(String text, List<Float> embedding, Map<String, String> payload) {
+        return upsert(VectorStoreService.contentId(text, payload), text, embedding, payload);
+    }
+
+    /**
+     * Upserts a data point with the given id, replacing the point with that id if it exists.
+     *
+     * @param id        the point id, a UUID or an unsigned integer
+     * @param text      the text to be stored, or {@code null} to store the vector and payload only
+     * @param embedding the vector representation of the text
+     * @param payload   additional attributes stored as payload fields, see {@link #PAYLOAD_INDEXES}
+     * @return a {@link Mono} that completes when the operation is done, or fails with an
+     * {@link IllegalArgumentException} if an {@code Integer} field holds no integer
+     */
+    @Override
+    public Mono<Void> upsert(String id, String text, List<Float> embedding, Map<String, String> payload) {
+        return Mono.fromCallable(() -> {
+                    PointStruct.Builder point = PointStruct.newBuilder()
+                            .setId(pointId(id))
+                            .setVectors(Vectors.newBuilder()
+                                    .setVector(Vector.newBuilder()
+                                            .addAllData(embedding)
+                                            .build())
+                                    .build());
+                    payload.forEach((key, value) -> point.putPayload(key, payloadValue(key, value)));
+                    if (!payload.containsKey(SearchFilter.CREATED_AT_KEY)) {
+                        point.putPayload(SearchFilter.CREATED_AT_KEY,
+                                payloadValue(SearchFilter.CREATED_AT_KEY, Instant.now().toString()));
+                    }
+                    if (text != null) {
+                        point.putPayload(VECTOR_STORE_TEXT_KEY, JsonWithInt.Value.newBuilder().setStringValue(text).build());
+                    }
+                    return point.build();
+                })
+                .flatMap(point -> upsertPoints(List.of(point)));
+    }
+
+    /**
+     * Upserts points as they are, e.g. points read from another collection by {@link #scrollAll}.
+     *
+     * @param points the points
+     * @return a {@link Mono} that completes when the operation is done
+     */
+    public Mono<Void> upsertPoints(List<PointStruct> points) {
         UpsertPoints upsert = UpsertPoints.newBuilder()
                 .setCollectionName(collectionName)
-                .addPoints(point)
+                .addAllPoints(points)
                 .build();
 
-        try {
-            return this.toMono(qdrantClient.upsertAsync(upsert))
-                    .doOnNext(result -> log.info("Qdrant upsert status: {}", result.getStatus()))
-                    .then();
-        } catch (Exception e) {
-            return Mono.error(new RuntimeException("Qdrant upsert failed", e));
+        return this.toMono(() -> qdrantClient.upsertAsync(upsert))
+                .doOnNext(result -> log.info("Qdrant upsert status: {}", result.getStatus()))
+                .then();
+    }
+
+    /**
+     * Deletes the points with the given ids.
+     *
+     * @param ids the point ids
+     * @return a {@link Mono} that completes when the operation is done
+     */
+    public Mono<Void> delete(List<PointId> ids) {
+        return this.toMono(() -> qdrantClient.deleteAsync(collectionName, ids)).then();
+    }
+
+    /**
+     * Reads all points of the collection, with their vectors and payloads, page by page.
+     *
+     * @param pageSize the number of points per page
+     * @return a {@link Flux} of pages, ready to be upserted into another collection
+     */
+    public Flux<List<PointStruct>> scrollAll(int pageSize) {
+        return scroll(null, pageSize)
+                .expand(page -> page.next() == null ? Mono.empty() : scroll(page.next(), pageSize))
+                .map(ScrollPage::points)
+                .filter(points -> !points.isEmpty());
+    }
+
+    /**
+     * Deletes the collection.
+     *
+     * @return a {@link Mono} that completes when the collection is deleted
+     */
+    public Mono<Void> dropCollection() {
+        return this.toMono(() -> qdrantClient.deleteCollectionAsync(collectionName))
+                .doOnNext(response -> log.info("Deleted Qdrant collection '{}'.", collectionName))
+                .then();
+    }
+
+    public String getCollectionName() {
+        return collectionName;
+    }
+
+    @Override
+    public Mono<Void> initialize() {
+        return ensureCollection();
+    }
+
+    /**
+     * Returns the string form of a point id, as accepted by {@link #pointId(String)}.
+     *
+     * @param id the point id
+     * @return the UUID or the number of the id
+     */
+    public static String idOf(PointId id) {
+        return id.getPointIdOptionsCase() == PointId.PointIdOptionsCase.NUM ? Long.toUnsignedString(id.getNum()) : id.getUuid();
+    }
+
+    /**
+     * Parses a point id.
+     *
+     * @param id a UUID or an unsigned integer
+     * @return the point id
+     */
+    public static PointId pointId(String id) {
+        return !id.isEmpty() && id.chars().allMatch(Character::isDigit)
+                ? PointId.newBuilder().setNum(Long.parseUnsignedLong(id)).build()
+                : PointId.newBuilder().setUuid(id).build();
+    }
+
+    private Mono<ScrollPage> scroll(PointId offset, int pageSize) {
+        ScrollPoints.Builder request = ScrollPoints.newBuilder()
+                .setCollectionName(collectionName)
+                .setLimit(pageSize)
+                .setWithPayload(WithPayloadSelector.newBuilder().setEnable(true).build())
+                .setWithVectors(WithVectorsSelector.newBuilder().setEnable(true).build());
+        if (offset != null) {
+            request.setOffset(offset);
         }
+        return this.toMono(() -> qdrantClient.scrollAsync(request.build()))
+                .map(response -> new ScrollPage(
+                        response.getResultList().stream()
+                                .map(point -> PointStruct.newBuilder()
+                                        .setId(point.getId())
+                                        .setVectors(point.getVectors())
+                                        .putAllPayload(point.getPayloadMap())
+                                        .build())
+                                .toList(),
+                        response.hasNextPageOffset() ? response.getNextPageOffset() : null));
     }
 
     /**
-     * Searches for relevant text entities based on the provided query embedding and a text parameter.
+     * Searches for the points closest to the query embedding, restricted to the points matching the
+     * filter; Qdrant applies the filter while traversing the index.
      *
-     * @param text           the text describing the search context or additional information for the query
-     * @param queryEmbedding a list of floating-point values representing the vector embedding for the search query
+     * @param queryEmbedding the vector representation of the query
      * @param limit          the maximum number of results to return
-     * @return a Mono that emits a list of strings representing the retrieved text entities corresponding to the search results
+     * @param filter         the conditions on the points' payload
+     * @return a Mono that emits the texts, payloads and cosine similarities of the matching points
      */
     @Override
-    public Mono<List<String>> search(String text, List<Float> queryEmbedding, int limit) {
-        SearchPoints request = SearchPoints.newBuilder()
+    public Mono<List<ScoredText>> searchWithScores(List<Float> queryEmbedding, int limit, SearchFilter filter) {
+        SearchPoints.Builder request = SearchPoints.newBuilder()
                 .setCollectionName(collectionName)
                 .addAllVector(queryEmbedding)
                 .setLimit(limit)
-                .setWithPayload(
-                        WithPayloadSelector.newBuilder()
-                                .setEnable(true)
-                                .build()
-                )
-                .build();
+                .setWithPayload(WithPayloadSelector.newBuilder().setEnable(true).build());
+        if (!filter.isEmpty()) {
+            request.setFilter(toFilter(filter));
+        }
 
-        return this.toMono(qdrantClient.searchAsync(request))
+        return this.toMono(() -> qdrantClient.searchAsync(request.build()))
                 .map(scoredPoints -> scoredPoints.stream()
-                        .map(scoredPoint -> scoredPoint.getPayloadMap().getOrDefault(
-                                VECTOR_STORE_TEXT_KEY,
-                                JsonWithInt.Value.newBuilder().setStringValue("").build()
-                        ))
-                        .map(JsonWithInt.Value::getStringValue)
-                        .collect(Collectors.toList()));
+                        .map(scoredPoint -> {
+                            Map<String, String> payload = new HashMap<>();
+                            scoredPoint.getPayloadMap().forEach((key, value) -> payload.put(key, stringOf(value)));
+                            return ScoredText.builder()
+                                    .text(payload.remove(VECTOR_STORE_TEXT_KEY))
+                                    .payload(payload)
+                                    .score(scoredPoint.getScore())
+                                    .id(idOf(scoredPoint.getId()))
+                                    .build();
+                        })
+                        .toList());
     }
-}
 
+    private static Filter toFilter(SearchFilter filter) {
+        Filter.Builder must = Filter.newBuilder();
+        if (filter.getTenant() != null) {
+            must.addMust(ConditionFactory.matchKeyword(SearchFilter.TENANT_KEY, filter.getTenant()));
+        }
+        if (!filter.getDocumentIds().isEmpty()) {
+            must.addMust(ConditionFactory.matchKeywords(SearchFilter.DOCUMENT_ID_KEY, filter.getDocumentIds()));
+        }
+        if (filter.getFrom() != null || filter.getTo() != null) {
+            DatetimeRange.Builder range = DatetimeRange.newBuilder();
+            if (filter.getFrom() != null) {
+                range.setGte(timestamp(filter.getFrom()));
+            }
+            if (filter.getTo() != null) {
+                range.setLt(timestamp(filter.getTo()));
+            }
+            must.addMust(ConditionFactory.datetimeRange(SearchFilter.CREATED_AT_KEY, range.build()));
+        }
+        filter.getKeywords().forEach((key, value) -> must.addMust(ConditionFactory.matchKeyword(key, value)));
+        return must.build();
+    }
+
+    private static Timestamp timestamp(Instant instant) {
+        return Timestamp.newBuilder().setSeconds(instant.getEpochSecond()).setNanos(instant.getNano()).build();
+    }
+
+    private static JsonWithInt.Value payloadValue(String key, String value) {
+        if (PAYLOAD_INDEXES.get(key) != Collections.PayloadSchemaType.Integer) {
+            return JsonWithInt.Value.newBuilder().setStringValue(value).build();
+        }
+        try {
+            return JsonWithInt.Value.newBuilder().setIntegerValue(Long.parseLong(value)).build();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Payload field '" + key + "' must be an integer, got '" + value + "'", e);
+        }
+    }
+
+    private static String stringOf(JsonWithInt.Value value) {
+        return switch (value.getKindCase()) {
+            case INTEGER_VALUE -> Long.toString(value.getIntegerValue());
+            case DOUBLE_VALUE -> Double.toString(value.getDoubleValue());
+            case BOOL_VALUE -> Boolean.toString(value.getBoolValue());
+            default -> value.getStringValue();
+        };
+    }
+
+    private record ScrollPage(List<PointStruct> points, PointId next) {
+    }
+}
@@ -1,76 +1,161 @@
 package com.epam.training.gen.ai.service;
 
+import com.epam.training.gen.ai.cache.CachedReply;
+import com.epam.training.gen.ai.cache.ResponseCache;
+import com.epam.training.gen.ai.cache.SemanticCache;
+import com.epam.training.gen.ai.history.PromptAssembler;
 import com.epam.training.gen.ai.model.ChatResponse;
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.microsoft.semantickernel.Kernel;
 import com.microsoft.semantickernel.orchestration.InvocationContext;
-import com.microsoft.semantickernel.services.chatcompletion.ChatCompletionService;
+import com.microsoft.semantickernel.orchestration.PromptExecutionSettings;
 import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
 import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Slf4j
 @Service
 public class SemanticKernelService {
 
+    /**
+     * Template holding the answer format instructions, sent once as the system message of every request.
+     */
+    private static final String INSTRUCTIONS_PROMPT = "json-answer-instructions";
+
     @Autowired
-    private final ChatCompletionService chatCompletionService;
+    private final ChatGateway chatGateway;
     @Autowired
     private final InvocationContext invocationContext;
     @Autowired
     private final ChatHistory chatHistory;
-    @Autowired
+    private final String deploymentName;
+    private final ResponseCache responseCache;
+    private final SemanticCache semanticCache;
     private final Kernel kernel;
+    private final PromptAssembler promptAssembler;
+    private final StructuredOutputService structuredOutputService;
+    private final ToolSelector toolSelector;
     private final Gson gson;
 
     public SemanticKernelService(
-            ChatCompletionService chatCompletionService,
+            ChatGateway chatGateway,
             InvocationContext invocationContext,
             ChatHistory chatHistory,
-            Kernel kernel) {
-        this.chatCompletionService = chatCompletionService;
+            String deploymentName,
+            ResponseCache responseCache,
+            SemanticCache semanticCache,
+            Kernel kernel,
+            PromptAssembler promptAssembler,
+            StructuredOutputService structuredOutputService,
+            ToolSelector toolSelector) {
+        this.chatGateway = chatGateway;
         this.invocationContext = invocationContext;
         this.chatHistory = chatHistory;
+        this.deploymentName = deploymentName;
+        this.responseCache = responseCache;
+        this.semanticCache = semanticCache;
         this.kernel = kernel;
+        this.promptAssembler = promptAssembler;
+        this.structuredOutputService = structuredOutputService;
+        this.toolSelector = toolSelector;
         this.gson = new Gson();
     }
 
     public List<ChatResponse> getResponse(String query) {
+        return getResponse(query, false);
+    }
+
+    public List<ChatResponse> getResponse(String query, boolean bypassCache) {
+        return getResponse(query, null, bypassCache);
+    }
+
+    /**
+     * Answers the query as the next turn of the chat history.
+     *
+     * @param query          the question
+     * @param conversationId identifies the caller's conversation and scopes the memoized tool
+     *                       results to it, see {@link ToolMemo}; {@code null} scopes them to this turn
+     * @param bypassCache    whether to skip the response and semantic caches
+     * @return the answers
+     */
+    public List<ChatResponse> getResponse(String query, String conversationId, boolean bypassCache) {
 
-        String promptWithFormat =
-                String.format(
-                        """
-                            For any question asked,
-                             - You should write the answer.
-                             - The answer should be in below JSON format:
-                                {
-                                "inputPrompt": "Question being asked,
-                                "response": Response from AI model assistant"
-                                }
-                             - The response should not contain any special characters
-                             - please make sure the response is properly closed with json braces, so that I can serialize the text into json object
-                             - Please limit the number of words to 40
-                            Here is the question you should answer: %s
-                            """,
-                        query);
-        chatHistory.addUserMessage(promptWithFormat);
-        List<ChatMessageContent<?>> queryResponse =
-                chatCompletionService
-                        .getChatMessageContentsAsync(chatHistory, kernel, invocationContext)
-                        .block();
+        String session = conversationId != null ? conversationId : UUID.randomUUID().toString();
+        PromptExecutionSettings settings = invocationContext.getPromptExecutionSettings();
+        // only the first turn is answered by the query alone, so remember the turns before it
+        ChatHistory earlierTurns = new ChatHistory();
+        chatHistory.getMessages().forEach(earlierTurns::addMessage);
+        chatHistory.addUserMessage(query);
+        ChatHistory request = promptAssembler.assemble(INSTRUCTIONS_PROMPT, chatHistory);
+        // the selected context offers tools only if some function is relevant to the query
+        InvocationContext context = toolSelector.select(invocationContext, request).block();
+        boolean structured = structuredOutputService.isApplicable(request, context);
+        Mono<CachedReply> modelCall = structured
+                ? structuredOutputService.complete(deploymentName, request, settings)
+                .map(served -> new CachedReply(List.of(served.value()), served.servedBy()))
+                : chatGateway.serveSelected(deploymentName, request, context, session)
+                .map(served -> new CachedReply(
+                        served.value().stream().map(ChatMessageContent::getContent).toList(), served.servedBy()));
+        Mono<CachedReply> call = semanticCache.isCacheable(settings, earlierTurns, context, bypassCache)
+                ? semanticCache.get(deploymentName, query, () -> modelCall)
+                : modelCall;
+        CachedReply queryResponse = responseCache.isCacheable(settings, context, bypassCache)
+                ? responseCache.get(ResponseCache.key(deploymentName, request.getMessages(),
+                        settings, context == null || context.getToolCallBehavior() == null ? null : kernel), () -> call).block()
+                : call.block();
         List<ChatResponse> responses = new ArrayList<>();
 
         assert queryResponse != null;
-        for (ChatMessageContent<?> result : queryResponse) {
-            chatHistory.addMessage(result);
-            responses.add(gson.fromJson(String.valueOf(result), ChatResponse.class));
+        for (String result : queryResponse.contents()) {
+            chatHistory.addAssistantMessage(String.valueOf(result));
+            ChatResponse response = parse(query, result);
+            response.setServedBy(queryResponse.servedBy());
+            responses.add(response);
         }
 
         return responses;
     }
+
+    /**
+     * Streams the answer to the query in the structured output mode, see
+     * {@link StructuredOutputService#stream}. The question and the complete answer are added to the
+     * chat history.
+     *
+     * @param query the question
+     * @return a {@link Flux} of growing answers, the last one being complete
+     */
+    public Flux<ChatResponse> streamResponse(String query) {
+        chatHistory.addUserMessage(query);
+        ChatHistory request = promptAssembler.assemble(INSTRUCTIONS_PROMPT, chatHistory);
+        return structuredOutputService.stream(deploymentName, request,
+                invocationContext.getPromptExecutionSettings(), chatHistory::addAssistantMessage);
+    }
+
+    /**
+     * Parses an answer; text that is not the requested JSON, which only the prose instructions can
+     * produce, is returned as the response instead of failing the call.
+     */
+    private ChatResponse parse(String query, String result) {
+        try {
+            ChatResponse response = gson.fromJson(result, ChatResponse.class);
+            if (response != null) {
+                return response;
+            }
+        } catch (JsonParseException e) {
+            log.warn("Answer is not valid JSON, returning it as text: {}", e.getMessage());
+        }
+        ChatResponse response = new ChatResponse();
+        response.setInputPrompt(query);
+        response.setResponse(result);
+        return response;
+    }
 }
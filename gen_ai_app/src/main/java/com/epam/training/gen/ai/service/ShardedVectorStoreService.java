@@ -0,0 +1,442 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.config.ShardingProperties;
+import com.epam.training.gen.ai.model.Reactive;
+import com.epam.training.gen.ai.model.ScoredText;
+import com.epam.training.gen.ai.model.SearchFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.grpc.Points.PointStruct;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * {@link VectorStoreService} that partitions points over several Qdrant collections, the shards
+ * {@code <vector.collection.name>-shard-<i>}, so that neither ingest nor search is bounded by a
+ * single collection.
+ * <p>
+ * Point ids are derived from the text and payload ({@link VectorStoreService#contentId}), and a
+ * {@link ConsistentHashRing} over the shard names assigns every id to one shard; storing the same
+ * text twice therefore replaces the point.
+ * Searches are sent to all shards in parallel, each bounded by {@code vector.sharding.shard-timeout},
+ * and the per-shard results are merged into the overall top-k with a min-heap. With
+ * {@code vector.sharding.allow-partial-results}, shards that time out or fail are left out of the
+ * result (counted in {@code genai.vector.shard.search} and {@code genai.vector.search.partial})
+ * instead of failing the search; a search fails only if no shard answers.
+ * <p>
+ * The number of shards can be changed online with {@link #reshard(int)}: the new shards are created,
+ * new writes go to the new ring at once, and searches cover the old and the new shards while a
+ * background job scrolls every shard and moves the points the new ring assigns elsewhere, in batches
+ * of {@code vector.sharding.reshard-batch-size}. The job starts scrolling once the writes that
+ * picked their shard from the old ring have finished. Shards that are no longer part of the ring
+ * are deleted at the end, after a last scroll has found them empty.
+ * <p>
+ * At startup the shards that exist in Qdrant are used, so a reshard done at runtime survives a
+ * restart; {@code vector.sharding.shards} only decides the number of shards of a new store.
+ */
+@Slf4j
+public class ShardedVectorStoreService implements VectorStoreService, Reactive {
+
+    private static final String SHARD_INFIX = "-shard-";
+    private static final Duration WRITER_POLL_INTERVAL = Duration.ofMillis(50);
+
+    private final QdrantClient qdrantClient;
+    private final Function<String, QdrantVectorStoreService> shardFactory;
+    private final String collectionName;
+    private final ShardingProperties shardingProperties;
+    private final MeterRegistry meterRegistry;
+    private final AtomicBoolean resharding = new AtomicBoolean();
+    private final AtomicLong movedPoints = new AtomicLong();
+    private volatile Topology current;
+    private volatile Topology previous;
+    private volatile ReshardStatus reshardStatus;
+
+    /**
+     * Creates a store over {@code vector.sharding.shards} shards; the actual shards are discovered by
+     * {@link #initialize()}.
+     *
+     * @param qdrantClient       the Qdrant client
+     * @param collectionName     the prefix of the shard collection names
+     * @param shardingProperties the sharding settings
+     * @param meterRegistry      the registry of the shard metrics
+     */
+    public ShardedVectorStoreService(QdrantClient qdrantClient, String collectionName,
+                                     ShardingProperties shardingProperties, MeterRegistry meterRegistry) {
+        this(qdrantClient, name -> new QdrantVectorStoreService(qdrantClient, name), collectionName,
+                shardingProperties, meterRegistry);
+    }
+
+    /**
+     * Creates a store whose shards are created by the given factory, e.g. in tests.
+     */
+    ShardedVectorStoreService(QdrantClient qdrantClient, Function<String, QdrantVectorStoreService> shardFactory,
+                              String collectionName, ShardingProperties shardingProperties, MeterRegistry meterRegistry) {
+        this.qdrantClient = qdrantClient;
+        this.shardFactory = shardFactory;
+        this.collectionName = collectionName;
+        this.shardingProperties = shardingProperties;
+        this.meterRegistry = meterRegistry;
+        this.current = topology(targetShards(shardingProperties.getShards()));
+        this.reshardStatus = new ReshardStatus(ReshardStatus.IDLE, current.size(), current.size(), 0, null, null, null);
+    }
+
+    /**
+     * Adopts the shards that exist in Qdrant and creates missing ones. A number of existing shards
+     * that differs from {@code vector.sharding.shards} is kept, as it is the result of an earlier
+     * {@link #reshard(int)}; only a store without shards is created with the configured number.
+     *
+     * @return a {@link Mono} that completes when all shards of the current ring exist
+     */
+    @Override
+    public Mono<Void> initialize() {
+        return this.toMono(() -> qdrantClient.listCollectionsAsync())
+                .flatMap(collections -> {
+                    int existing = 0;
+                    while (collections.contains(shardName(existing))) {
+                        existing++;
+                    }
+                    if (existing > 0 && existing != current.size()) {
+                        log.info("Found {} vector store shards, {} configured; keeping {}, reshard to change it",
+                                existing, shardingProperties.getShards(), existing);
+                        current = topology(existing);
+                    }
+                    return ensureShards(current);
+                });
+    }
+
+    @Override
+    public Mono<Void> upsert(String text, List<Float> embedding) {
+        return upsert(text, embedding, Map.of());
+    }
+
+    @Override
+    public Mono<Void> upsert(String text, List<Float> embedding, Map<String, String> payload) {
+        return upsert(VectorStoreService.contentId(text, payload), text, embedding, payload);
+    }
+
+    /**
+     * Upserts the point into the shard that owns its id. The owner is looked up on subscription, and
+     * a reshard does not scroll the old shards until every write that looked it up in the old ring
+     * has finished.
+     */
+    @Override
+    public Mono<Void> upsert(String id, String text, List<Float> embedding, Map<String, String> payload) {
+        return Mono.using(this::acquireWriteTopology, topology -> {
+            QdrantVectorStoreService owner = topology.ring().get(id);
+            Mono<Void> upsert = owner.upsert(id, text, embedding, payload);
+            Topology moving = previous;
+            if (moving != null) {
+                QdrantVectorStoreService previousOwner = moving.ring().get(id);
+                if (!previousOwner.getCollectionName().equals(owner.getCollectionName())) {
+                    // remove the old copy so the reshard job cannot move it over this one
+                    upsert = upsert.then(previousOwner.delete(List.of(QdrantVectorStoreService.pointId(id))));
+                }
+            }
+            return upsert;
+        }, topology -> topology.writers().decrementAndGet());
+    }
+
+    @Override
+    public Mono<List<ScoredText>> searchWithScores(List<Float> queryEmbedding, int limit, SearchFilter filter) {
+        return Mono.defer(() -> {
+            List<QdrantVectorStoreService> shards = shardsToSearch();
+            return Flux.fromIterable(shards)
+                    .flatMap(shard -> shard.searchWithScores(queryEmbedding, limit, filter)
+                            .timeout(shardingProperties.getShardTimeout())
+                            .map(Optional::of)
+                            .onErrorResume(e -> {
+                                String outcome = e instanceof TimeoutException ? "timeout" : "error";
+                                meterRegistry.counter("genai.vector.shard.search",
+                                        "shard", shard.getCollectionName(), "outcome", outcome).increment();
+                                log.warn("Search of shard '{}' failed: {}", shard.getCollectionName(), e.toString());
+                                return Mono.just(Optional.<List<ScoredText>>empty());
+                            }), shards.size())
+                    .collectList()
+                    .flatMap(results -> {
+                        List<List<ScoredText>> answered = results.stream().flatMap(Optional::stream).toList();
+                        int missing = results.size() - answered.size();
+                        if (answered.isEmpty() || (missing > 0 && !shardingProperties.isAllowPartialResults())) {
+                            return Mono.error(new IllegalStateException(
+                                    missing + " of " + results.size() + " vector store shards did not answer"));
+                        }
+                        if (missing > 0) {
+                            meterRegistry.counter("genai.vector.search.partial").increment();
+                        }
+                        return Mono.just(mergeTopK(answered, limit));
+                    });
+        });
+    }
+
+    /**
+     * Starts resharding in the background.
+     *
+     * @param shardCount the new number of shards
+     * @return the status of the started job
+     * @throws IllegalStateException if resharding is already in progress
+     */
+    public ReshardStatus startReshard(int shardCount) {
+        if (resharding.get()) {
+            throw new IllegalStateException("Resharding already in progress");
+        }
+        reshard(shardCount).subscribe(null, e -> log.warn("Resharding not started: {}", e.toString()));
+        return getReshardStatus();
+    }
+
+    /**
+     * Moves the points to a ring of the given number of shards. Also repairs misplaced points when
+     * the number of shards does not change, e.g. after an interrupted reshard.
+     *
+     * @param shardCount the new number of shards
+     * @return a {@link Mono} emitting the final status of the job; it fails only if resharding is
+     * already in progress
+     */
+    public Mono<ReshardStatus> reshard(int shardCount) {
+        int target = targetShards(shardCount);
+        return Mono.defer(() -> {
+            if (!resharding.compareAndSet(false, true)) {
+                return Mono.error(new IllegalStateException("Resharding already in progress"));
+            }
+            Topology to = topology(target);
+            Map<String, QdrantVectorStoreService> sources = new LinkedHashMap<>();
+            for (Topology topology : new Topology[]{previous, current, to}) {
+                if (topology != null) {
+                    topology.shards().forEach(shard -> sources.putIfAbsent(shard.getCollectionName(), shard));
+                }
+            }
+            List<QdrantVectorStoreService> retired = sources.values().stream()
+                    .filter(shard -> !to.contains(shard.getCollectionName()))
+                    .toList();
+            Topology old = current;
+            int from = old.size();
+            Instant startedAt = Instant.now();
+            movedPoints.set(0);
+            reshardStatus = new ReshardStatus(ReshardStatus.RUNNING, from, target, 0, startedAt, null, null);
+            log.info("Resharding vector store from {} to {} shards", from, target);
+            return ensureShards(to)
+                    .then(Mono.fromRunnable(() -> {
+                        previous = new Topology(List.copyOf(sources.values()), old.ring(), new AtomicInteger());
+                        current = to;
+                    }))
+                    .then(writesDrained(old))
+                    .thenMany(Flux.fromIterable(sources.values()))
+                    .flatMap(shard -> migrate(shard, to), Math.max(1, shardingProperties.getReshardConcurrency()))
+                    .thenMany(Flux.fromIterable(retired))
+                    .concatMap(shard -> ensureEmpty(shard, to))
+                    .then(Mono.fromRunnable(() -> previous = null))
+                    .thenMany(Flux.fromIterable(retired))
+                    .concatMap(QdrantVectorStoreService::dropCollection)
+                    .then(Mono.fromCallable(() -> finish(ReshardStatus.DONE, null)))
+                    .onErrorResume(e -> {
+                        log.error("Resharding to {} shards failed after moving {} points: {}", target, movedPoints.get(), e.toString());
+                        return Mono.just(finish(ReshardStatus.FAILED, e.toString()));
+                    })
+                    // a cancelled job never reaches finish()
+                    .doFinally(signal -> resharding.set(false));
+        });
+    }
+
+    /**
+     * Returns the state of the current or last reshard.
+     *
+     * @return the status, with the number of points moved so far while running
+     */
+    public ReshardStatus getReshardStatus() {
+        ReshardStatus status = reshardStatus;
+        return ReshardStatus.RUNNING.equals(status.state()) ? status.withMovedPoints(movedPoints.get()) : status;
+    }
+
+    /**
+     * Merges the per-shard results, best first, into the overall top {@code limit}; a point found in
+     * two shards while it is being moved is counted once.
+     */
+    static List<ScoredText> mergeTopK(List<List<ScoredText>> results, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        PriorityQueue<ScoredText> best = new PriorityQueue<>(limit, Comparator.comparingDouble(ScoredText::getScore));
+        Set<String> seen = new HashSet<>();
+        for (List<ScoredText> shardResults : results) {
+            for (ScoredText candidate : shardResults) {
+                if (candidate.getId() != null && !seen.add(candidate.getId())) {
+                    continue;
+                }
+                if (best.size() < limit) {
+                    best.add(candidate);
+                } else if (candidate.getScore() > best.peek().getScore()) {
+                    best.poll();
+                    best.add(candidate);
+                }
+            }
+        }
+        List<ScoredText> merged = new ArrayList<>(best);
+        merged.sort(Comparator.comparingDouble(ScoredText::getScore).reversed());
+        return merged;
+    }
+
+    private Mono<Void> migrate(QdrantVectorStoreService source, Topology to) {
+        return source.scrollAll(Math.max(1, shardingProperties.getReshardBatchSize()))
+                .concatMap(points -> {
+                    Map<QdrantVectorStoreService, List<PointStruct>> misplaced = new LinkedHashMap<>();
+                    for (PointStruct point : points) {
+                        QdrantVectorStoreService owner = to.ring().get(QdrantVectorStoreService.idOf(point.getId()));
+                        if (!owner.getCollectionName().equals(source.getCollectionName())) {
+                            misplaced.computeIfAbsent(owner, shard -> new ArrayList<>()).add(point);
+                        }
+                    }
+                    return Flux.fromIterable(misplaced.entrySet())
+                            .concatMap(move -> move.getKey().upsertPoints(move.getValue())
+                                    .then(source.delete(move.getValue().stream().map(PointStruct::getId).toList()))
+                                    .doOnSuccess(ignored -> {
+                                        movedPoints.addAndGet(move.getValue().size());
+                                        meterRegistry.counter("genai.vector.reshard.moved").increment(move.getValue().size());
+                                    }))
+                            .then();
+                })
+                .then();
+    }
+
+    /**
+     * Completes once no write that looked up its shard in the given topology is running any more.
+     * Writes that start later see the topology that replaced it.
+     */
+    private Mono<Void> writesDrained(Topology topology) {
+        return Mono.fromSupplier(() -> topology.writers().get())
+                .filter(writers -> writers == 0)
+                .repeatWhenEmpty(attempts -> attempts.delayElements(WRITER_POLL_INTERVAL))
+                .then();
+    }
+
+    /**
+     * Completes if the shard holds no points, moving the ones a last scroll still finds; fails if
+     * the shard is not empty even then, so it is not dropped with points in it.
+     */
+    private Mono<Void> ensureEmpty(QdrantVectorStoreService shard, Topology to) {
+        return shard.scrollAll(1).hasElements()
+                .flatMap(remaining -> remaining
+                        ? migrate(shard, to).then(shard.scrollAll(1).hasElements())
+                        : Mono.just(false))
+                .flatMap(remaining -> remaining
+                        ? Mono.error(new IllegalStateException(
+                        "Shard '" + shard.getCollectionName() + "' still holds points, not dropping it"))
+                        : Mono.<Void>empty());
+    }
+
+    /**
+     * Returns the current topology with its writer count incremented. The count is taken before the
+     * topology is checked again, so a reshard that replaced it in between is not missed.
+     */
+    private Topology acquireWriteTopology() {
+        while (true) {
+            Topology topology = current;
+            topology.writers().incrementAndGet();
+            if (topology == current) {
+                return topology;
+            }
+            topology.writers().decrementAndGet();
+        }
+    }
+
+    private ReshardStatus finish(String state, String error) {
+        ReshardStatus status = reshardStatus;
+        reshardStatus = new ReshardStatus(state, status.fromShards(), status.toShards(), movedPoints.get(),
+                status.startedAt(), Instant.now(), error);
+        if (error == null) {
+            log.info("Resharded vector store to {} shards, moved {} points", status.toShards(), movedPoints.get());
+        }
+        // released before the status is emitted, so a caller can start the next reshard right away
+        resharding.set(false);
+        return reshardStatus;
+    }
+
+    private List<QdrantVectorStoreService> shardsToSearch() {
+        Map<String, QdrantVectorStoreService> shards = new LinkedHashMap<>();
+        current.shards().forEach(shard -> shards.put(shard.getCollectionName(), shard));
+        Topology moving = previous;
+        if (moving != null) {
+            moving.shards().forEach(shard -> shards.putIfAbsent(shard.getCollectionName(), shard));
+        }
+        return List.copyOf(shards.values());
+    }
+
+    private Mono<Void> ensureShards(Topology topology) {
+        return Flux.fromIterable(topology.shards())
+                .flatMap(QdrantVectorStoreService::ensureCollection)
+                .then();
+    }
+
+    private Topology topology(int shardCount) {
+        List<QdrantVectorStoreService> shards = IntStream.range(0, shardCount)
+                .mapToObj(i -> shardFactory.apply(shardName(i)))
+                .toList();
+        return new Topology(shards, new ConsistentHashRing<>(
+                shards, QdrantVectorStoreService::getCollectionName, shardingProperties.getVirtualNodes()),
+                new AtomicInteger());
+    }
+
+    private String shardName(int index) {
+        return collectionName + SHARD_INFIX + index;
+    }
+
+    private static int targetShards(int shardCount) {
+        return Math.max(1, shardCount);
+    }
+
+    /**
+     * The shards of a ring; {@code writers} counts the upserts that picked their shard from it and
+     * have not finished yet.
+     */
+    private record Topology(List<QdrantVectorStoreService> shards, ConsistentHashRing<QdrantVectorStoreService> ring,
+                            AtomicInteger writers) {
+
+        int size() {
+            return shards.size();
+        }
+
+        boolean contains(String collectionName) {
+            return shards.stream().anyMatch(shard -> shard.getCollectionName().equals(collectionName));
+        }
+    }
+
+    /**
+     * State of a reshard job.
+     *
+     * @param state       {@code IDLE}, {@code RUNNING}, {@code DONE} or {@code FAILED}
+     * @param fromShards  the number of shards before the job
+     * @param toShards    the number of shards after the job
+     * @param movedPoints the number of points moved to another shard
+     * @param startedAt   when the job started
+     * @param finishedAt  when the job finished
+     * @param error       why the job failed
+     */
+    public record ReshardStatus(String state, int fromShards, int toShards, long movedPoints,
+                                Instant startedAt, Instant finishedAt, String error) {
+
+        public static final String IDLE = "IDLE";
+        public static final String RUNNING = "RUNNING";
+        public static final String DONE = "DONE";
+        public static final String FAILED = "FAILED";
+
+        ReshardStatus withMovedPoints(long moved) {
+            return new ReshardStatus(state, fromShards, toShards, moved, startedAt, finishedAt, error);
+        }
+    }
+}
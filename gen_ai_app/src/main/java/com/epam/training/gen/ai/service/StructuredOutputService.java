@@ -0,0 +1,240 @@
+package com.epam.training.gen.ai.service;
+
+import com.azure.ai.openai.OpenAIAsyncClient;
+import com.azure.ai.openai.models.ChatChoice;
+import com.azure.ai.openai.models.ChatCompletionStreamOptions;
+import com.azure.ai.openai.models.ChatCompletions;
+import com.azure.ai.openai.models.ChatCompletionsJsonSchemaResponseFormat;
+import com.azure.ai.openai.models.ChatCompletionsJsonSchemaResponseFormatJsonSchema;
+import com.azure.ai.openai.models.ChatCompletionsOptions;
+import com.azure.ai.openai.models.ChatCompletionsResponseFormat;
+import com.azure.ai.openai.models.ChatRequestAssistantMessage;
+import com.azure.ai.openai.models.ChatRequestMessage;
+import com.azure.ai.openai.models.ChatRequestSystemMessage;
+import com.azure.ai.openai.models.ChatRequestUserMessage;
+import com.azure.core.util.BinaryData;
+import com.epam.training.gen.ai.config.StructuredOutputProperties;
+import com.epam.training.gen.ai.model.ChatResponse;
+import com.epam.training.gen.ai.resilience.DeploymentLimiter;
+import com.epam.training.gen.ai.resilience.EndpointType;
+import com.epam.training.gen.ai.resilience.FailoverExecutor;
+import com.epam.training.gen.ai.resilience.Served;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.semantickernel.orchestration.InvocationContext;
+import com.microsoft.semantickernel.orchestration.PromptExecutionSettings;
+import com.microsoft.semantickernel.services.chatcompletion.AuthorRole;
+import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
+import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Chat completions constrained to the shape of {@link ChatResponse}.
+ * <p>
+ * Requests carry a JSON schema response format derived from the fields of {@link ChatResponse}
+ * ({@code servedBy} is filled in by the application and left out), so the service only returns text
+ * that parses into it; with {@code structured-output.strict} the schema is enforced exactly instead
+ * of being a hint. Streamed answers are parsed with an {@link IncrementalJsonParser}, and a new
+ * {@link ChatResponse} snapshot is emitted whenever a field grows, so clients see the
+ * {@code response} while it is being generated.
+ * <p>
+ * Calls go through the same {@link FailoverExecutor} and {@link DeploymentLimiter} as the
+ * {@link ChatGateway}; streams are admitted by the limiter but are not failed over, because part of
+ * the answer may already have been sent.
+ * <p>
+ * The requests are sent without tools. A request that offers tools, or whose history holds tool
+ * results, is left to the {@link ChatGateway}, which runs the tool loop, routing and hedging; see
+ * {@link #isApplicable}.
+ */
+@Service
+public class StructuredOutputService {
+
+    private static final String SCHEMA_NAME = "chat_response";
+    private static final Set<String> SERVER_FIELDS = Set.of("servedBy");
+
+    private final OpenAIAsyncClient openAIAsyncClient;
+    private final FailoverExecutor failoverExecutor;
+    private final DeploymentLimiter deploymentLimiter;
+    private final TokenCounter tokenCounter;
+    private final ObjectMapper objectMapper;
+    private final StructuredOutputProperties structuredOutputProperties;
+    private final ChatCompletionsResponseFormat responseFormat;
+
+    public StructuredOutputService(OpenAIAsyncClient openAIAsyncClient, FailoverExecutor failoverExecutor,
+                                   DeploymentLimiter deploymentLimiter, TokenCounter tokenCounter,
+                                   ObjectMapper objectMapper, StructuredOutputProperties structuredOutputProperties) {
+        this.openAIAsyncClient = openAIAsyncClient;
+        this.failoverExecutor = failoverExecutor;
+        this.deploymentLimiter = deploymentLimiter;
+        this.tokenCounter = tokenCounter;
+        this.objectMapper = objectMapper;
+        this.structuredOutputProperties = structuredOutputProperties;
+        this.responseFormat = new ChatCompletionsJsonSchemaResponseFormat(
+                new ChatCompletionsJsonSchemaResponseFormatJsonSchema(SCHEMA_NAME)
+                        .setDescription("The question being answered and the answer")
+                        .setSchema(BinaryData.fromObject(schemaOf(ChatResponse.class, SERVER_FIELDS)))
+                        .setStrict(structuredOutputProperties.isStrict()));
+    }
+
+    /**
+     * Tells whether non-streaming answers should use the structured output mode.
+     *
+     * @return {@code true} if {@code structured-output.enabled} is set
+     */
+    public boolean isEnabled() {
+        return structuredOutputProperties.isEnabled();
+    }
+
+    /**
+     * Tells whether a non-streaming request should use the structured output mode: the mode is
+     * enabled, the request offers no tools and its history holds no tool results.
+     *
+     * @param chatHistory       the conversation to complete
+     * @param invocationContext the invocation context after {@link ToolSelector#select}, which drops the
+     *                          tool call behavior when no function is relevant, or {@code null}
+     * @return {@code true} if {@link #complete} can answer the request without losing anything
+     */
+    public boolean isApplicable(ChatHistory chatHistory, InvocationContext invocationContext) {
+        return isEnabled()
+                && (invocationContext == null || invocationContext.getToolCallBehavior() == null)
+                && chatHistory.getMessages().stream().noneMatch(message -> message.getAuthorRole() == AuthorRole.TOOL);
+    }
+
+    /**
+     * Sends the chat history to the given deployment, or to one of its fallbacks, and returns the
+     * JSON text of the answer.
+     *
+     * @param modelId     the deployment id of the chat model
+     * @param chatHistory the conversation to complete; it is not modified
+     * @param settings    the execution settings, may be {@code null}
+     * @return a {@link Mono} emitting the JSON answer and the deployment that served it
+     */
+    public Mono<Served<String>> complete(String modelId, ChatHistory chatHistory, PromptExecutionSettings settings) {
+        return failoverExecutor.execute(modelId, EndpointType.CHAT, deployment -> deploymentLimiter.execute(
+                        deployment, EndpointType.CHAT, estimateTokens(deployment, chatHistory, settings),
+                        () -> failoverExecutor.admitted(openAIAsyncClient.getChatCompletions(deployment, options(chatHistory, settings))),
+                        StructuredOutputService::totalTokens))
+                .map(served -> new Served<>(content(served.value()), served.servedBy()));
+    }
+
+    /**
+     * Streams the answer of the given deployment, emitting the fields parsed so far whenever one of
+     * them changes.
+     *
+     * @param modelId     the deployment id of the chat model
+     * @param chatHistory the conversation to complete; it is not modified
+     * @param settings    the execution settings, may be {@code null}
+     * @param onCompleted receives the full JSON text of the answer once the stream completes
+     * @return a {@link Flux} of growing {@link ChatResponse} snapshots, the last one being complete
+     */
+    public Flux<ChatResponse> stream(String modelId, ChatHistory chatHistory, PromptExecutionSettings settings,
+                                     Consumer<String> onCompleted) {
+        return Flux.defer(() -> {
+            IncrementalJsonParser parser = new IncrementalJsonParser();
+            return deploymentLimiter.executeMany(modelId, EndpointType.CHAT, estimateTokens(modelId, chatHistory, settings),
+                            () -> openAIAsyncClient.getChatCompletionsStream(modelId, options(chatHistory, settings),
+                                    new ChatCompletionStreamOptions().setIncludeUsage(true)),
+                            StructuredOutputService::totalTokens)
+                    .concatMapIterable(chunk -> {
+                        String delta = delta(chunk);
+                        return delta != null && parser.feed(delta)
+                                ? List.of(toResponse(parser.getFields(), modelId))
+                                : List.of();
+                    })
+                    .doOnComplete(() -> onCompleted.accept(parser.getText()));
+        });
+    }
+
+    private ChatCompletionsOptions options(ChatHistory chatHistory, PromptExecutionSettings settings) {
+        List<ChatRequestMessage> messages = new ArrayList<>();
+        for (ChatMessageContent<?> message : chatHistory.getMessages()) {
+            String content = message.getContent();
+            switch (message.getAuthorRole()) {
+                case SYSTEM -> messages.add(new ChatRequestSystemMessage(content));
+                case USER -> messages.add(new ChatRequestUserMessage(content));
+                case ASSISTANT -> messages.add(new ChatRequestAssistantMessage(content));
+                default -> throw new IllegalArgumentException(
+                        "Structured output cannot send " + message.getAuthorRole() + " messages, use the ChatGateway");
+            }
+        }
+        ChatCompletionsOptions options = new ChatCompletionsOptions(messages).setResponseFormat(responseFormat);
+        if (settings != null) {
+            options.setTemperature(settings.getTemperature())
+                    .setTopP(settings.getTopP())
+                    .setPresencePenalty(settings.getPresencePenalty())
+                    .setFrequencyPenalty(settings.getFrequencyPenalty());
+            if (settings.getMaxTokens() > 0) {
+                options.setMaxTokens(settings.getMaxTokens());
+            }
+        }
+        return options;
+    }
+
+    private int estimateTokens(String modelId, ChatHistory chatHistory, PromptExecutionSettings settings) {
+        return tokenCounter.countMessages(chatHistory.getMessages(), modelId)
+                + (settings == null ? 0 : Math.max(settings.getMaxTokens(), 0));
+    }
+
+    private ChatResponse toResponse(Map<String, String> fields, String servedBy) {
+        ChatResponse response = objectMapper.convertValue(fields, ChatResponse.class);
+        response.setServedBy(servedBy);
+        return response;
+    }
+
+    private static String content(ChatCompletions completions) {
+        return completions.getChoices().isEmpty() ? null : completions.getChoices().get(0).getMessage().getContent();
+    }
+
+    private static String delta(ChatCompletions chunk) {
+        if (chunk.getChoices() == null || chunk.getChoices().isEmpty()) {
+            return null;
+        }
+        ChatChoice choice = chunk.getChoices().get(0);
+        return choice.getDelta() == null ? null : choice.getDelta().getContent();
+    }
+
+    private static int totalTokens(ChatCompletions completions) {
+        return completions.getUsage() == null ? 0 : completions.getUsage().getTotalTokens();
+    }
+
+    /**
+     * Builds a strict JSON schema of an object with the instance fields of the given class.
+     */
+    static Map<String, Object> schemaOf(Class<?> type, Set<String> excluded) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !excluded.contains(field.getName())) {
+                properties.put(field.getName(), Map.of("type", jsonType(field.getType())));
+            }
+        }
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("type", "object");
+        schema.put("properties", properties);
+        schema.put("required", List.copyOf(properties.keySet()));
+        schema.put("additionalProperties", false);
+        return schema;
+    }
+
+    private static String jsonType(Class<?> type) {
+        if (type == boolean.class || type == Boolean.class) {
+            return "boolean";
+        }
+        if (type == int.class || type == long.class || type == Integer.class || type == Long.class) {
+            return "integer";
+        }
+        if (type.isPrimitive() || Number.class.isAssignableFrom(type)) {
+            return "number";
+        }
+        return "string";
+    }
+}
@@ -0,0 +1,126 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.model.Model;
+import com.epam.training.gen.ai.model.TokenEncoding;
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import com.knuddels.jtokkit.api.EncodingResult;
+import com.knuddels.jtokkit.api.EncodingType;
+import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process tokenizer used to count tokens for budgeting, rate limiting and cost estimates without
+ * calling the model.
+ * <p>
+ * Counting is done by jtokkit, which ships the {@code cl100k_base} and {@code o200k_base} vocabularies
+ * on the classpath and pre-tokenizes with hand-written scanners instead of the reference regular
+ * expressions. {@link Encoding#countTokens(String)} does not materialize the token list, so counting
+ * allocates little beyond the UTF-8 bytes of each word. Encodings are loaded once and are thread-safe.
+ * <p>
+ * The encoding and context window of a deployment are taken from {@link Model}; deployments that are
+ * not listed there are counted by {@link TokenEncoding#forModelId(String)}, so every GPT-4o and
+ * GPT-4o mini deployment uses {@code o200k_base}.
+ */
+@Component
+public class TokenCounter {
+
+    /**
+     * Tokens added by the chat format around every message (role and separators).
+     */
+    private static final int TOKENS_PER_MESSAGE = 3;
+    /**
+     * Tokens that prime the assistant's reply.
+     */
+    private static final int TOKENS_PER_REPLY = 3;
+    /**
+     * Context window assumed for deployments that are not listed in {@link Model}.
+     */
+    private static final int DEFAULT_CONTEXT_WINDOW = 4_096;
+
+    private final Map<TokenEncoding, Encoding> encodings = new EnumMap<>(TokenEncoding.class);
+
+    public TokenCounter() {
+        EncodingRegistry registry = Encodings.newLazyEncodingRegistry();
+        encodings.put(TokenEncoding.CL100K_BASE, registry.getEncoding(EncodingType.CL100K_BASE));
+        encodings.put(TokenEncoding.O200K_BASE, registry.getEncoding(EncodingType.O200K_BASE));
+    }
+
+    /**
+     * Counts the tokens of the text as the given deployment would.
+     *
+     * @param text    the text
+     * @param modelId the deployment id
+     * @return the number of tokens
+     */
+    public int count(String text, String modelId) {
+        return count(text, encodingOf(modelId));
+    }
+
+    /**
+     * Counts the tokens of the text with the given encoding.
+     *
+     * @param text     the text
+     * @param encoding the encoding
+     * @return the number of tokens
+     */
+    public int count(String text, TokenEncoding encoding) {
+        return text == null || text.isEmpty() ? 0 : encodings.get(encoding).countTokens(text);
+    }
+
+    /**
+     * Counts the prompt tokens of a chat request, including the tokens the chat format adds around
+     * every message and the tokens that prime the reply.
+     *
+     * @param messages the messages sent to the model
+     * @param modelId  the deployment id
+     * @return the number of prompt tokens
+     */
+    public int countMessages(List<? extends ChatMessageContent<?>> messages, String modelId) {
+        TokenEncoding encoding = encodingOf(modelId);
+        int tokens = TOKENS_PER_REPLY;
+        for (ChatMessageContent<?> message : messages) {
+            tokens += TOKENS_PER_MESSAGE + count(message.getContent(), encoding);
+        }
+        return tokens;
+    }
+
+    /**
+     * Cuts the text to at most the given number of tokens.
+     *
+     * @param text      the text
+     * @param maxTokens the maximum number of tokens to keep
+     * @param modelId   the deployment id
+     * @return the text itself if it fits, otherwise its longest token-aligned prefix that does
+     */
+    public String truncate(String text, int maxTokens, String modelId) {
+        Encoding encoding = encodings.get(encodingOf(modelId));
+        EncodingResult result = encoding.encode(text, maxTokens);
+        return result.isTruncated() ? encoding.decode(result.getTokens()) : text;
+    }
+
+    /**
+     * Returns the context window of the given deployment.
+     *
+     * @param modelId the deployment id
+     * @return the context window in tokens
+     */
+    public int contextWindow(String modelId) {
+        return Model.fromValue(modelId).map(Model::contextWindow).orElse(DEFAULT_CONTEXT_WINDOW);
+    }
+
+    /**
+     * Returns the encoding of the given deployment.
+     *
+     * @param modelId the deployment id
+     * @return the encoding of the model, or the encoding derived from the id if the model is unknown
+     */
+    public TokenEncoding encodingOf(String modelId) {
+        return Model.fromValue(modelId).map(Model::encoding).orElseGet(() -> TokenEncoding.forModelId(modelId));
+    }
+}
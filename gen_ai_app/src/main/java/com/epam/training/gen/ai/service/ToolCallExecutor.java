@@ -0,0 +1,118 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.config.ToolCallProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.semantickernel.Kernel;
+import com.microsoft.semantickernel.aiservices.openai.chatcompletion.OpenAIChatMessageContent;
+import com.microsoft.semantickernel.aiservices.openai.chatcompletion.OpenAIFunctionToolCall;
+import com.microsoft.semantickernel.orchestration.FunctionResult;
+import com.microsoft.semantickernel.semanticfunctions.KernelFunction;
+import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Executes the tool calls requested by the model in one assistant turn.
+ * <p>
+ * The calls of a turn are independent of each other, so they run concurrently on the bounded
+ * elastic scheduler, at most {@code tool-calls.max-concurrency} at a time, and each is bounded by
+ * {@code tool-calls.call-timeout}. A call that fails or times out does not fail the turn; its error
+ * is returned to the model as the tool result so it can answer or retry. Results are returned in the
+ * order of the calls. Results of read-only functions are memoized by the {@link ToolMemo}. Calls are
+ * counted in {@code genai.tools.calls}, tagged with the function and the outcome.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ToolCallExecutor {
+
+    private final ToolCallProperties toolCallProperties;
+    private final ToolMemo toolMemo;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Returns the tool calls requested by the messages of a model reply.
+     *
+     * @param messages the messages returned by the model
+     * @return the requested tool calls, empty if the model answered
+     */
+    public static List<OpenAIFunctionToolCall> toolCalls(List<ChatMessageContent<?>> messages) {
+        return messages.stream()
+                .filter(message -> message instanceof OpenAIChatMessageContent<?>)
+                .map(message -> ((OpenAIChatMessageContent<?>) message).getToolCall())
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    /**
+     * Executes the tool calls with the functions of the kernel.
+     *
+     * @param kernel  the kernel whose plugins provide the functions
+     * @param calls   the tool calls of one assistant turn
+     * @param session the session the calls belong to, which scopes memoized results, see {@link ToolMemo}
+     * @return a {@link Mono} emitting the results, in the order of the calls
+     */
+    public Mono<List<ToolResult>> execute(Kernel kernel, List<OpenAIFunctionToolCall> calls, String session) {
+        return Flux.fromIterable(calls)
+                .flatMapSequential(call -> invoke(kernel, call, session), Math.max(1, toolCallProperties.getMaxConcurrency()))
+                .collectList();
+    }
+
+    private Mono<ToolResult> invoke(Kernel kernel, OpenAIFunctionToolCall call, String session) {
+        String name = call.getPluginName() + "." + call.getFunctionName();
+        String description = ToolMemo.describe(call);
+        return toolMemo.memoize(session, call, () -> Mono.defer(() -> {
+                            KernelFunction<?> function = kernel.getFunction(call.getPluginName(), call.getFunctionName());
+                            return kernel.invokeAsync(function).withArguments(call.getArguments());
+                        })
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .timeout(toolCallProperties.getCallTimeout())
+                        .map(this::format))
+                .map(result -> {
+                    meterRegistry.counter("genai.tools.calls", "function", name, "outcome", "success").increment();
+                    return new ToolResult(call.getId(), description, result);
+                })
+                .onErrorResume(e -> {
+                    String outcome = e instanceof TimeoutException ? "timeout" : "error";
+                    meterRegistry.counter("genai.tools.calls", "function", name, "outcome", outcome).increment();
+                    log.warn("Tool call {} failed: {}", name, e.toString());
+                    return Mono.just(new ToolResult(call.getId(), description, e instanceof TimeoutException
+                            ? "Error: " + name + " did not complete within " + toolCallProperties.getCallTimeout()
+                            : "Error: " + e.getMessage()));
+                });
+    }
+
+    private String format(FunctionResult<?> result) {
+        Object value = result.getResult();
+        if (value == null || value instanceof String) {
+            return String.valueOf(value);
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            return String.valueOf(value);
+        }
+    }
+
+    /**
+     * Result of a tool call, to be returned to the model as a tool message.
+     *
+     * @param callId  the id of the tool call
+     * @param call    the function and arguments of the call, see {@link ToolMemo#describe}
+     * @param content the result, or a description of the error
+     */
+    public record ToolResult(String callId, String call, String content) {
+    }
+}
@@ -0,0 +1,160 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.config.ToolCallProperties;
+import com.epam.training.gen.ai.plugins.Mutating;
+import com.epam.training.gen.ai.plugins.ReadOnly;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.microsoft.semantickernel.aiservices.openai.chatcompletion.OpenAIFunctionToolCall;
+import com.microsoft.semantickernel.semanticfunctions.annotations.DefineKernelFunction;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Memo of the results of {@link ReadOnly} kernel functions.
+ * <p>
+ * Results are kept per session, function and arguments for the function's TTL. Every entity kind has
+ * a generation counter that is incremented whenever a {@link Mutating} function touching it completes;
+ * a memoized result remembers the generations it was computed at and is ignored once any of them has
+ * moved on. Invalidation is therefore global across sessions and needs no locking, and a read racing
+ * with a write can never be memoized as current. Functions without either annotation are never
+ * memoized. Lookups are counted in {@code genai.tools.memo}, tagged {@code result=hit|miss}.
+ */
+@Slf4j
+@Component
+public class ToolMemo {
+
+    private final ToolCallProperties toolCallProperties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Policy> policies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Cache<Key, Entry> results;
+
+    public ToolMemo(ToolCallProperties toolCallProperties, MeterRegistry meterRegistry) {
+        this.toolCallProperties = toolCallProperties;
+        this.meterRegistry = meterRegistry;
+        this.results = Caffeine.newBuilder()
+                .maximumSize(toolCallProperties.getMemo().getMaxEntries())
+                .expireAfter(new Expiry<Key, Entry>() {
+                    @Override
+                    public long expireAfterCreate(Key key, Entry entry, long currentTime) {
+                        return entry.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Reads the {@link ReadOnly} and {@link Mutating} annotations of a plugin's kernel functions.
+     *
+     * @param pluginName the name the plugin is registered under in the kernel
+     * @param plugin     the plugin object
+     */
+    public void register(String pluginName, Object plugin) {
+        for (Method method : plugin.getClass().getMethods()) {
+            DefineKernelFunction function = method.getAnnotation(DefineKernelFunction.class);
+            if (function == null) {
+                continue;
+            }
+            String name = pluginName + "." + (function.name().isEmpty() ? method.getName() : function.name());
+            ReadOnly readOnly = method.getAnnotation(ReadOnly.class);
+            Mutating mutating = method.getAnnotation(Mutating.class);
+            if (readOnly != null) {
+                policies.put(name, new Policy(List.of(readOnly.entities()), Duration.ofSeconds(readOnly.ttlSeconds()), false));
+            } else if (mutating != null) {
+                policies.put(name, new Policy(List.of(mutating.entities()), Duration.ZERO, true));
+            }
+        }
+    }
+
+    /**
+     * Returns the memoized result of the call, or invokes it.
+     *
+     * @param session the session the call belongs to
+     * @param call    the tool call
+     * @param invoke  creates the invocation of the function, emitting its formatted result
+     * @return a {@link Mono} emitting the memoized or computed result
+     */
+    public Mono<String> memoize(String session, OpenAIFunctionToolCall call, Supplier<Mono<String>> invoke) {
+        String function = call.getPluginName() + "." + call.getFunctionName();
+        Policy policy = policies.get(function);
+        if (policy == null || !toolCallProperties.getMemo().isEnabled()) {
+            return Mono.defer(invoke);
+        }
+        if (policy.mutating()) {
+            return Mono.defer(invoke).doFinally(signal -> policy.entities().forEach(this::invalidate));
+        }
+        return Mono.defer(() -> {
+            Key key = new Key(session, describe(call));
+            long[] current = generationsOf(policy.entities());
+            Entry entry = results.getIfPresent(key);
+            boolean hit = entry != null && Arrays.equals(entry.generations(), current);
+            meterRegistry.counter("genai.tools.memo", "function", function, "result", hit ? "hit" : "miss").increment();
+            if (hit) {
+                return Mono.just(entry.result());
+            }
+            return Mono.defer(invoke)
+                    .doOnNext(result -> results.put(key, new Entry(result, current, policy.ttl())));
+        });
+    }
+
+    /**
+     * Describes a tool call by its function and arguments, in a form that is equal for equal calls.
+     *
+     * @param call the tool call
+     * @return the description, e.g. {@code LightsPlugin.change_state{id=2, isOn=true}}
+     */
+    public static String describe(OpenAIFunctionToolCall call) {
+        TreeMap<String, String> arguments = new TreeMap<>();
+        if (call.getArguments() != null) {
+            call.getArguments().forEach((name, value) ->
+                    arguments.put(name, value == null ? null : String.valueOf(value.getValue())));
+        }
+        return call.getPluginName() + "." + call.getFunctionName() + arguments;
+    }
+
+    private long[] generationsOf(List<String> entities) {
+        long[] values = new long[entities.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = generations.computeIfAbsent(entities.get(i), entity -> new AtomicLong()).get();
+        }
+        return values;
+    }
+
+    private void invalidate(String entity) {
+        generations.computeIfAbsent(entity, key -> new AtomicLong()).incrementAndGet();
+        log.debug("Invalidated memoized tool results reading '{}'", entity);
+    }
+
+    private record Policy(List<String> entities, Duration ttl, boolean mutating) {
+    }
+
+    private record Key(String session, String call) {
+    }
+
+    private record Entry(String result, long[] generations, Duration ttl) {
+    }
+}
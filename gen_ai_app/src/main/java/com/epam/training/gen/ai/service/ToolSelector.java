@@ -0,0 +1,175 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.config.ToolSelectionProperties;
+import com.epam.training.gen.ai.model.ScoredText;
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.microsoft.semantickernel.Kernel;
+import com.microsoft.semantickernel.orchestration.InvocationContext;
+import com.microsoft.semantickernel.orchestration.InvocationReturnMode;
+import com.microsoft.semantickernel.orchestration.ToolCallBehavior;
+import com.microsoft.semantickernel.semanticfunctions.KernelFunction;
+import com.microsoft.semantickernel.services.chatcompletion.AuthorRole;
+import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
+import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Chooses which kernel functions are offered to the model on a request.
+ * <p>
+ * Every function schema sent to the model costs prompt tokens, so instead of offering all functions
+ * the selector offers the {@code tool-selection.top-k} functions whose descriptions are most similar
+ * to the latest user message, plus the functions in {@code tool-selection.always-include}. Functions
+ * less similar than {@code tool-selection.min-score} are left out, and a request left without
+ * functions offers no tools at all, so callers can tell from the selected context whether the model
+ * may call tools. Function descriptions are embedded once, in the background at startup, into an
+ * {@link InMemoryVectorStoreService}; per request only the user message is embedded. Until the index
+ * is built, when the embedding fails, or when neither the top-k nor the minimum score would leave a
+ * function out, all functions are offered.
+ */
+@Slf4j
+@Component
+public class ToolSelector {
+
+    private final ToolSelectionProperties toolSelectionProperties;
+    private final EmbeddingService embeddingService;
+    private final Map<String, KernelFunction<?>> functions = new LinkedHashMap<>();
+    private final AtomicBoolean indexing = new AtomicBoolean();
+    private volatile InMemoryVectorStoreService index;
+
+    public ToolSelector(ToolSelectionProperties toolSelectionProperties, EmbeddingService embeddingService,
+                        Kernel kernel) {
+        this.toolSelectionProperties = toolSelectionProperties;
+        this.embeddingService = embeddingService;
+        kernel.getPlugins().forEach(plugin -> plugin.getFunctions().values()
+                .forEach(function -> functions.put(plugin.getName() + "." + function.getName(), function)));
+    }
+
+    /**
+     * Starts embedding the function descriptions if selection is needed.
+     */
+    @PostConstruct
+    public void start() {
+        if (isSelective()) {
+            buildIndex();
+        }
+    }
+
+    /**
+     * Restricts the functions offered by the invocation context to the ones relevant to the
+     * conversation.
+     *
+     * @param invocationContext the invocation context of the request
+     * @param chatHistory       the conversation; its latest user message decides the selection
+     * @return a {@link Mono} emitting a context offering the selected functions, a context without a
+     * tool call behavior if the kernel has no functions or none was selected, or the given context if it
+     * offers no tools or no selection is possible
+     */
+    public Mono<InvocationContext> select(InvocationContext invocationContext, ChatHistory chatHistory) {
+        ToolCallBehavior toolCallBehavior = invocationContext.getToolCallBehavior();
+        if (toolCallBehavior != null && functions.isEmpty()) {
+            return Mono.just(withoutTools(invocationContext));
+        }
+        String userMessage = lastUserMessage(chatHistory);
+        if (toolCallBehavior == null || !isSelective() || userMessage == null) {
+            return Mono.just(invocationContext);
+        }
+        InMemoryVectorStoreService functionIndex = index;
+        if (functionIndex == null) {
+            buildIndex();
+            return Mono.just(invocationContext);
+        }
+        return embeddingService.getEmbeddings(userMessage, toolSelectionProperties.getEmbeddingModel())
+                .flatMap(embedding -> functionIndex.searchWithScores(embedding, toolSelectionProperties.getTopK(), SearchFilter.NONE))
+                .map(matches -> restrict(invocationContext, toolCallBehavior, matches))
+                .onErrorResume(e -> {
+                    log.warn("Tool selection skipped, offering all functions: {}", e.toString());
+                    return Mono.just(invocationContext);
+                });
+    }
+
+    private InvocationContext restrict(InvocationContext invocationContext, ToolCallBehavior toolCallBehavior,
+                                       List<ScoredText> matches) {
+        Set<String> names = new LinkedHashSet<>(toolSelectionProperties.getAlwaysInclude());
+        matches.stream()
+                .filter(match -> match.getScore() >= toolSelectionProperties.getMinScore())
+                .forEach(match -> names.add(match.getText()));
+        List<KernelFunction<?>> selected = new ArrayList<>();
+        names.forEach(name -> {
+            KernelFunction<?> function = functions.get(name);
+            if (function != null) {
+                selected.add(function);
+            }
+        });
+        log.debug("Offering {} of {} functions: {}", selected.size(), functions.size(), names);
+        if (selected.isEmpty()) {
+            return withoutTools(invocationContext);
+        }
+        return InvocationContext.builder()
+                .withPromptExecutionSettings(invocationContext.getPromptExecutionSettings())
+                .withReturnMode(InvocationReturnMode.LAST_MESSAGE_ONLY)
+                .withToolCallBehavior(ToolCallBehavior.allowOnlyKernelFunctions(
+                        toolCallBehavior.isAutoInvokeAllowed(), selected))
+                .build();
+    }
+
+    private boolean isSelective() {
+        return toolSelectionProperties.isEnabled()
+                && (toolSelectionProperties.getMinScore() > 0
+                || functions.size() > toolSelectionProperties.getTopK() + toolSelectionProperties.getAlwaysInclude().size());
+    }
+
+    private void buildIndex() {
+        if (!indexing.compareAndSet(false, true)) {
+            return;
+        }
+        InMemoryVectorStoreService store = new InMemoryVectorStoreService(functions.size());
+        Flux.fromIterable(functions.entrySet())
+                .concatMap(entry -> embeddingService
+                        .getEmbeddings(describe(entry.getKey(), entry.getValue()), toolSelectionProperties.getEmbeddingModel())
+                        .flatMap(embedding -> store.upsert(entry.getKey(), embedding, Map.of())))
+                .then()
+                .subscribe(
+                        null,
+                        e -> {
+                            log.warn("Failed to embed function descriptions, offering all functions: {}", e.toString());
+                            indexing.set(false);
+                        },
+                        () -> {
+                            index = store;
+                            log.info("Embedded the descriptions of {} functions for tool selection", functions.size());
+                        });
+    }
+
+    private static InvocationContext withoutTools(InvocationContext invocationContext) {
+        return InvocationContext.builder()
+                .withPromptExecutionSettings(invocationContext.getPromptExecutionSettings())
+                .withReturnMode(InvocationReturnMode.LAST_MESSAGE_ONLY)
+                .build();
+    }
+
+    private static String describe(String name, KernelFunction<?> function) {
+        return name + ": " + (function.getDescription() == null ? "" : function.getDescription());
+    }
+
+    private static String lastUserMessage(ChatHistory chatHistory) {
+        List<ChatMessageContent<?>> messages = chatHistory.getMessages();
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i).getAuthorRole() == AuthorRole.USER) {
+                return messages.get(i).getContent();
+            }
+        }
+        return null;
+    }
+}
@@ -1,12 +1,12 @@
 package com.epam.training.gen.ai.service;
 
+import com.epam.training.gen.ai.config.OpenAIClientProperties;
 import com.epam.training.gen.ai.model.ChatResponse;
-import com.microsoft.semantickernel.Kernel;
 import com.microsoft.semantickernel.orchestration.InvocationContext;
-import com.microsoft.semantickernel.services.chatcompletion.ChatCompletionService;
 import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
 import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
 import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 
@@ -16,10 +16,10 @@ public class UserInputService {
     private final SemanticKernelService semanticKernelService;
 
     @Autowired
-    ChatCompletionService chatCompletionService;
+    ChatGateway chatGateway;
 
     @Autowired
-    Kernel kernel;
+    OpenAIClientProperties openAIClientProperties;
 
     @Autowired
     InvocationContext invocationContext;
@@ -29,15 +29,27 @@ public class UserInputService {
     }
 
     public List<ChatResponse> getResponse(String input){
-        return semanticKernelService.getResponse(input);
+        return getResponse(input, false);
+    }
+
+    public List<ChatResponse> getResponse(String input, boolean bypassCache){
+        return getResponse(input, null, bypassCache);
+    }
+
+    public List<ChatResponse> getResponse(String input, String conversationId, boolean bypassCache){
+        return semanticKernelService.getResponse(input, conversationId, bypassCache);
+    }
+
+    public Flux<ChatResponse> streamResponse(String input){
+        return semanticKernelService.streamResponse(input);
     }
 
     public List<String> getChatHistory(String prompt) {
         ChatHistory history = new ChatHistory();
         history.addUserMessage(prompt);
 
-        List<ChatMessageContent<?>> results = chatCompletionService
-                .getChatMessageContentsAsync(history, kernel, invocationContext)
+        List<ChatMessageContent<?>> results = chatGateway
+                .complete(openAIClientProperties.getDeploymentName(), history, invocationContext)
                 .block();
 
         System.out.println("Assistant > " + (results != null ? results.getFirst() : null));
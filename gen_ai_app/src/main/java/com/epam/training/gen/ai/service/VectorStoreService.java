@@ -1,8 +1,14 @@
 package com.epam.training.gen.ai.service;
 
+import com.epam.training.gen.ai.model.ScoredText;
+import com.epam.training.gen.ai.model.SearchFilter;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
 
 /**
  * Service interface for managing operations related to a vector store.
@@ -20,6 +26,29 @@ public interface VectorStoreService {
      */
     Mono<Void> upsert(String text, List<Float> embedding);
 
+    /**
+     * Upserts a text, its vector embedding and additional string attributes into the vector store.
+     *
+     * @param text      the text to be stored in the vector store
+     * @param embedding the vector representation of the text
+     * @param payload   additional attributes stored with the text, e.g. the {@link SearchFilter} fields
+     *                  tenant, document id and chunk index for filtering
+     * @return a {@link Mono} that completes when the operation is done
+     */
+    Mono<Void> upsert(String text, List<Float> embedding, Map<String, String> payload);
+
+    /**
+     * Upserts an entry with the given id, replacing the entry with that id if it exists.
+     *
+     * @param id        the entry id, e.g. a {@link #contentId content id}
+     * @param text      the text to be stored, or {@code null} if the caller keeps the text elsewhere
+     *                  under the id, see {@link ChunkTextStore}
+     * @param embedding the vector representation of the text
+     * @param payload   additional attributes stored with the entry
+     * @return a {@link Mono} that completes when the operation is done
+     */
+    Mono<Void> upsert(String id, String text, List<Float> embedding, Map<String, String> payload);
+
     /**
      * Searches for similar text entries in the vector store based on the provided query embedding.
      *
@@ -28,5 +57,54 @@ public interface VectorStoreService {
      * @param limit          the maximum number of matching text entries to retrieve
      * @return a {@link Mono} emitting a list of text entries matching the query, constrained to the specified limit
      */
-    Mono<List<String>> search(String text, List<Float> queryEmbedding, int limit);
+    default Mono<List<String>> search(String text, List<Float> queryEmbedding, int limit) {
+        return search(text, queryEmbedding, limit, SearchFilter.NONE);
+    }
+
+    /**
+     * Searches for similar text entries among the entries matching the filter.
+     *
+     * @param text           the query text
+     * @param queryEmbedding the vector representation of the query text
+     * @param limit          the maximum number of matching text entries to retrieve
+     * @param filter         the conditions on the entries' payload
+     * @return a {@link Mono} emitting up to {@code limit} matching entries, most similar first
+     */
+    default Mono<List<String>> search(String text, List<Float> queryEmbedding, int limit, SearchFilter filter) {
+        return searchWithScores(queryEmbedding, limit, filter)
+                .map(results -> results.stream().map(ScoredText::getText).toList());
+    }
+
+    /**
+     * Searches for the entries closest to the query embedding and returns them with their similarity.
+     * The filter is applied during the search, so up to {@code limit} matching entries are returned
+     * however few entries match.
+     *
+     * @param queryEmbedding the vector representation of the query
+     * @param limit          the maximum number of entries to retrieve
+     * @param filter         the conditions on the entries' payload; {@link SearchFilter#NONE} to match all entries
+     * @return a {@link Mono} emitting the matching entries, most similar first, with their cosine similarity
+     */
+    Mono<List<ScoredText>> searchWithScores(List<Float> queryEmbedding, int limit, SearchFilter filter);
+
+    /**
+     * Prepares the store for use, e.g. creates its collections. Called in the background at startup.
+     *
+     * @return a {@link Mono} that completes when the store is ready
+     */
+    default Mono<Void> initialize() {
+        return Mono.empty();
+    }
+
+    /**
+     * Derives the id of an entry from its text and payload, so storing the same entry again
+     * replaces it.
+     *
+     * @param text    the text
+     * @param payload the payload
+     * @return a name-based UUID
+     */
+    static String contentId(String text, Map<String, String> payload) {
+        return UUID.nameUUIDFromBytes((text + '\u0000' + new TreeMap<>(payload)).getBytes(StandardCharsets.UTF_8)).toString();
+    }
 }
@@ -0,0 +1,156 @@
+package com.epam.training.gen.ai.startup;
+
+import com.epam.training.gen.ai.config.StartupProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Readiness of the startup phases that depend on remote services.
+ * <p>
+ * Phases such as creating the Qdrant collection or loading the model catalog run in the background
+ * instead of blocking bean creation, so the application context starts without waiting on the
+ * network. Each phase is registered when it begins and marked ready when it completes; failed
+ * attempts of a {@link #track tracked} phase are retried with exponential backoff between
+ * {@code startup.retry-backoff} and {@code startup.max-retry-backoff}. Only the endpoints annotated
+ * with {@link RequiresReady} wait for the phases they need, see {@link ReadinessInterceptor}.
+ * <p>
+ * The duration of every phase is recorded in the {@code genai.startup.phase} timer, tagged with the
+ * phase ({@code context} being the application context itself, measured from JVM start), and the
+ * time from JVM start until every phase is ready in {@code genai.startup.time-to-ready}. The state of
+ * the phases is reported under {@code readiness} in the actuator health endpoint, which is
+ * {@code OUT_OF_SERVICE} while one of the {@code startup.probe-phases} (by default the
+ * {@link #WARM_UP}) is pending, so the readiness probe only admits traffic to a warmed-up instance.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class Readiness implements HealthIndicator {
+
+    public static final String MODEL_CATALOG = "model-catalog";
+    public static final String VECTOR_STORE = "vector-store";
+    public static final String SEMANTIC_CACHE = "semantic-cache";
+    public static final String WARM_UP = "warm-up";
+
+    private final StartupProperties startupProperties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Phase> phases = new ConcurrentHashMap<>();
+    private final AtomicBoolean contextReady = new AtomicBoolean();
+    private final AtomicBoolean allReady = new AtomicBoolean();
+
+    /**
+     * Registers a phase as started; does nothing if it was already registered.
+     *
+     * @param phase the phase name
+     */
+    public void begin(String phase) {
+        phases.putIfAbsent(phase, new Phase(System.nanoTime()));
+    }
+
+    /**
+     * Marks a phase as ready; does nothing if it already was.
+     *
+     * @param phase the phase name
+     */
+    public void ready(String phase) {
+        Phase state = phases.computeIfAbsent(phase, name -> new Phase(System.nanoTime()));
+        if (state.markReady(System.nanoTime())) {
+            meterRegistry.timer("genai.startup.phase", "phase", phase).record(state.nanos(), TimeUnit.NANOSECONDS);
+            log.info("Startup phase '{}' ready after {} ms", phase, TimeUnit.NANOSECONDS.toMillis(state.nanos()));
+            reportIfAllReady();
+        }
+    }
+
+    /**
+     * Runs a phase, retrying it until it succeeds, and marks it ready on completion.
+     *
+     * @param phase          the phase name
+     * @param initialization the work of the phase
+     * @param <T>            the type of the result of the phase
+     * @return a {@link Mono} running the phase when subscribed
+     */
+    public <T> Mono<T> track(String phase, Mono<T> initialization) {
+        begin(phase);
+        return initialization
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, startupProperties.getRetryBackoff())
+                        .maxBackoff(startupProperties.getMaxRetryBackoff())
+                        .doBeforeRetry(signal -> log.warn("Startup phase '{}' failed (attempt {}), retrying: {}",
+                                phase, signal.totalRetries() + 1, signal.failure().toString())))
+                .doOnSuccess(result -> ready(phase));
+    }
+
+    /**
+     * Tells whether a phase is ready.
+     *
+     * @param phase the phase name
+     * @return {@code true} if the phase completed or was never registered
+     */
+    public boolean isReady(String phase) {
+        Phase state = phases.get(phase);
+        return state == null || state.isReady();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        meterRegistry.timer("genai.startup.phase", "phase", "context").record(uptime, TimeUnit.MILLISECONDS);
+        contextReady.set(true);
+        reportIfAllReady();
+    }
+
+    @Override
+    public Health health() {
+        Map<String, Object> details = new TreeMap<>();
+        phases.forEach((name, state) -> details.put(name, state.isReady()
+                ? "ready after " + TimeUnit.NANOSECONDS.toMillis(state.nanos()) + " ms"
+                : "starting"));
+        boolean probeReady = startupProperties.getProbePhases().stream().allMatch(this::isReady);
+        return (probeReady ? Health.up() : Health.outOfService()).withDetails(details).build();
+    }
+
+    private void reportIfAllReady() {
+        if (contextReady.get() && phases.values().stream().allMatch(Phase::isReady) && allReady.compareAndSet(false, true)) {
+            Duration timeToReady = Duration.ofMillis(ManagementFactory.getRuntimeMXBean().getUptime());
+            meterRegistry.timer("genai.startup.time-to-ready").record(timeToReady);
+            log.info("All startup phases {} ready, {} ms after JVM start", phases.keySet(), timeToReady.toMillis());
+        }
+    }
+
+    private static final class Phase {
+
+        private final long startedAt;
+        private final AtomicLong readyAt = new AtomicLong();
+
+        Phase(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        boolean markReady(long now) {
+            return readyAt.compareAndSet(0, now);
+        }
+
+        boolean isReady() {
+            return readyAt.get() != 0;
+        }
+
+        long nanos() {
+            return readyAt.get() - startedAt;
+        }
+    }
+}
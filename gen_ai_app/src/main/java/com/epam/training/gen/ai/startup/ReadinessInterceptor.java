@@ -0,0 +1,51 @@
+package com.epam.training.gen.ai.startup;
+
+import com.epam.training.gen.ai.config.StartupProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Answers {@code 503 Service Unavailable} with a {@code Retry-After} header to requests for
+ * {@link RequiresReady} endpoints while one of their startup phases is not ready yet. All other
+ * endpoints are served as soon as the application context is up.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReadinessInterceptor implements HandlerInterceptor {
+
+    private final Readiness readiness;
+    private final StartupProperties startupProperties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        RequiresReady requiresReady = handlerMethod.getMethodAnnotation(RequiresReady.class);
+        if (requiresReady == null) {
+            requiresReady = handlerMethod.getBeanType().getAnnotation(RequiresReady.class);
+        }
+        if (requiresReady == null) {
+            return true;
+        }
+        List<String> pending = Arrays.stream(requiresReady.value())
+                .filter(phase -> !readiness.isReady(phase))
+                .toList();
+        if (pending.isEmpty()) {
+            return true;
+        }
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(startupProperties.getRetryAfter().toSeconds()));
+        response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Still starting: " + String.join(", ", pending));
+        return false;
+    }
+}
@@ -0,0 +1,22 @@
+package com.epam.training.gen.ai.startup;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an endpoint, or all endpoints of a controller, that can only be served once the given
+ * startup phases are ready. Until then the {@link ReadinessInterceptor} answers {@code 503}.
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequiresReady {
+
+    /**
+     * The startup phases the endpoint depends on, e.g. {@link Readiness#VECTOR_STORE}.
+     */
+    String[] value();
+}
@@ -0,0 +1,31 @@
+package com.epam.training.gen.ai.startup;
+
+import com.epam.training.gen.ai.service.VectorStoreService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Starts the startup phases that prepare remote resources, in the background and concurrently with
+ * the rest of the application context. Phases owned by a single service, like the model catalog,
+ * are started by that service.
+ */
+@Component
+@RequiredArgsConstructor
+public class StartupInitializer {
+
+    private final Readiness readiness;
+    private final VectorStoreService vectorStoreService;
+    private final WarmUpService warmUpService;
+
+    @PostConstruct
+    public void start() {
+        readiness.track(Readiness.VECTOR_STORE, vectorStoreService.initialize())
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe();
+        readiness.track(Readiness.WARM_UP, warmUpService.warmUp())
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe();
+    }
+}
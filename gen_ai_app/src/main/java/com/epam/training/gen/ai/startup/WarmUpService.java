@@ -0,0 +1,179 @@
+package com.epam.training.gen.ai.startup;
+
+import com.epam.training.gen.ai.config.SemanticKernelConfiguration;
+import com.epam.training.gen.ai.config.WarmUpProperties;
+import com.epam.training.gen.ai.model.ChatResponse;
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.epam.training.gen.ai.model.SmartChunker;
+import com.epam.training.gen.ai.service.EmbeddingService;
+import com.epam.training.gen.ai.service.QdrantVectorStoreService;
+import com.epam.training.gen.ai.service.TokenCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.qdrant.client.QdrantClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Warm-up stage run in the background at startup, before the {@link Readiness#WARM_UP} phase is
+ * ready.
+ * <p>
+ * The first requests after a deploy pay for TLS handshakes, the gRPC channel connect, class loading
+ * and interpreted code. The warm-up moves that cost out of the request path: it opens
+ * {@code warm-up.connections} pooled connections to the proxy concurrently, embeds a sample text,
+ * searches a dedicated Qdrant collection ({@code warm-up.collection-name}, created if missing and
+ * never written to), and exercises the {@link SmartChunker}, the {@link TokenCounter} and JSON
+ * (de)serialization often enough for the JIT to compile them. Remote steps can be turned off with
+ * {@code warm-up.remote-calls}, e.g. where they would be billed.
+ * <p>
+ * Every step is repeated ({@code warm-up.remote-iterations} times for calls to the proxy,
+ * {@code warm-up.iterations} times otherwise) and its first (cold) and median later (warm) latency
+ * are logged and recorded in the {@code genai.warmup} timer, tagged with the step and
+ * {@code pass=cold|warm}, so the warm-up can be tuned. A failing step is skipped; the whole stage is
+ * bounded by {@code warm-up.timeout} and never fails startup.
+ */
+@Slf4j
+@Service
+public class WarmUpService {
+
+    private static final String SAMPLE_TEXT = """
+            Warm-up request. The assistant answers questions about the lights in the house.
+            It can turn a light on or off and report which lights are on! Is light 2 still on?
+
+            A second paragraph makes the chunker split on blank lines as well as on sentences.""";
+
+    private final WarmUpProperties warmUpProperties;
+    private final RestTemplate restTemplate;
+    private final EmbeddingService embeddingService;
+    private final TokenCounter tokenCounter;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final QdrantVectorStoreService warmUpStore;
+    private final String modelListUrl;
+
+    public WarmUpService(WarmUpProperties warmUpProperties, RestTemplate restTemplate, EmbeddingService embeddingService,
+                         TokenCounter tokenCounter, QdrantClient qdrantClient, ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry, @Value("${epam.dial.deployment-names-api}") String modelListUrl) {
+        this.warmUpProperties = warmUpProperties;
+        this.restTemplate = restTemplate;
+        this.embeddingService = embeddingService;
+        this.tokenCounter = tokenCounter;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.warmUpStore = new QdrantVectorStoreService(qdrantClient, warmUpProperties.getCollectionName());
+        this.modelListUrl = modelListUrl;
+    }
+
+    /**
+     * Runs the warm-up steps one after the other.
+     *
+     * @return a {@link Mono} that completes when the warm-up is done, skipped or timed out; it never
+     * fails
+     */
+    public Mono<Void> warmUp() {
+        if (!warmUpProperties.isEnabled()) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(steps())
+                .concatMap(this::run)
+                .then()
+                .timeout(warmUpProperties.getTimeout())
+                .onErrorResume(e -> {
+                    log.warn("Warm-up stopped: {}", e.toString());
+                    return Mono.empty();
+                });
+    }
+
+    private List<Step> steps() {
+        List<Step> steps = new ArrayList<>();
+        int iterations = warmUpProperties.getIterations();
+        if (warmUpProperties.isRemoteCalls()) {
+            int remoteIterations = warmUpProperties.getRemoteIterations();
+            int connections = Math.max(1, warmUpProperties.getConnections());
+            steps.add(new Step("connections", remoteIterations, i -> Flux.range(0, connections)
+                    .flatMap(c -> Mono.fromCallable(() -> restTemplate.getForEntity(modelListUrl, String.class))
+                            .subscribeOn(Schedulers.boundedElastic()), connections)
+                    .then()));
+            // a different text every time, so the embedding is really computed
+            steps.add(new Step("embedding", remoteIterations, i -> embeddingService
+                    .getEmbeddings(SAMPLE_TEXT + " " + i, warmUpProperties.getEmbeddingModel())));
+            List<Float> vector = Collections.nCopies(QdrantVectorStoreService.DEFAULT_VECTOR_SIZE,
+                    (float) (1 / Math.sqrt(QdrantVectorStoreService.DEFAULT_VECTOR_SIZE)));
+            steps.add(new Step("qdrant-search", iterations, i -> (i == 0 ? warmUpStore.ensureCollection() : Mono.<Void>empty())
+                    .then(Mono.defer(() -> warmUpStore.searchWithScores(vector, 1, SearchFilter.NONE)))));
+        }
+        steps.add(new Step("chunker", iterations, i -> Mono.fromCallable(() -> SmartChunker.chunk(SAMPLE_TEXT))));
+        steps.add(new Step("tokens", iterations, i -> Mono.fromCallable(() ->
+                tokenCounter.count(SAMPLE_TEXT, warmUpProperties.getEmbeddingModel()))));
+        steps.add(new Step("json", iterations, i -> Mono.fromCallable(() -> {
+            ChatResponse response = new ChatResponse();
+            response.setInputPrompt(SAMPLE_TEXT);
+            response.setResponse(SAMPLE_TEXT);
+            response.setServedBy(warmUpProperties.getEmbeddingModel());
+            String json = objectMapper.writeValueAsString(response);
+            return objectMapper.readValue(json, ChatResponse.class) != null
+                    && objectMapper.readValue("{\"data\":[{\"id\":\"warm-up\",\"features\":{\"tools\":true}}]}",
+                    SemanticKernelConfiguration.ModelListResponse.class) != null;
+        })));
+        return steps;
+    }
+
+    private Mono<Void> run(Step step) {
+        long startedAt = System.nanoTime();
+        return Flux.range(0, Math.max(1, step.iterations()))
+                .concatMap(i -> time(() -> step.call().apply(i)))
+                .collectList()
+                .doOnNext(latencies -> report(step.name(), latencies, System.nanoTime() - startedAt))
+                .onErrorResume(e -> {
+                    log.warn("Warm-up step '{}' skipped: {}", step.name(), e.toString());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static Mono<Long> time(Supplier<Mono<?>> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.get().then(Mono.fromCallable(() -> System.nanoTime() - start));
+        });
+    }
+
+    private void report(String step, List<Long> latencies, long totalNanos) {
+        long cold = latencies.get(0);
+        meterRegistry.timer("genai.warmup", "step", step, "pass", "cold").record(cold, TimeUnit.NANOSECONDS);
+        if (latencies.size() == 1) {
+            log.info("Warm-up step '{}': cold {} ms", step, millis(cold));
+            return;
+        }
+        List<Long> warm = new ArrayList<>(latencies.subList(1, latencies.size()));
+        warm.forEach(latency -> meterRegistry.timer("genai.warmup", "step", step, "pass", "warm").record(latency, TimeUnit.NANOSECONDS));
+        Collections.sort(warm);
+        long median = warm.get(warm.size() / 2);
+        log.info("Warm-up step '{}': cold {} ms, warm {} ms (median of {}), {}x, {} ms in total",
+                step, millis(cold), millis(median), warm.size(),
+                String.format("%.1f", (double) cold / Math.max(median, 1)), Duration.ofNanos(totalNanos).toMillis());
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+
+    /**
+     * A warm-up step: a call, given the iteration number, that is repeated {@code iterations} times.
+     */
+    private record Step(String name, int iterations, IntFunction<Mono<?>> call) {
+    }
+}
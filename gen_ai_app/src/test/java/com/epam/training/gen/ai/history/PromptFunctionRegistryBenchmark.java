@@ -0,0 +1,68 @@
+package com.epam.training.gen.ai.history;
+
+import com.epam.training.gen.ai.config.PromptProperties;
+import com.microsoft.semantickernel.semanticfunctions.KernelFunction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Per-request CPU time of obtaining the chat prompt function, before and after the
+ * {@link PromptFunctionRegistry}: building it with {@code KernelFunction.createFromPrompt} on every
+ * request, as {@code SimpleKernelHistory} used to, against reusing the function compiled once. The
+ * benchmark is not part of the regular test run; run it with
+ * {@code mvn test -Dtest=PromptFunctionRegistryBenchmark -Dbenchmark=true} and compare the CPU
+ * microseconds per request in the output. Both cases are warmed up before they are measured.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PromptFunctionRegistryBenchmark {
+
+    private static final int WARM_UP_REQUESTS = 20_000;
+    private static final int MEASURED_REQUESTS = 100_000;
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    @Test
+    void reusingTheCompiledFunctionSavesCpuPerRequest() throws IOException {
+        String template = template("chat-with-history");
+        PromptFunctionRegistry registry = new PromptFunctionRegistry(new PromptProperties());
+
+        double compiledPerRequest = cpuMicrosPerRequest("compile per request",
+                () -> KernelFunction.<String>createFromPrompt(template).build());
+        double reusedPerRequest = cpuMicrosPerRequest("compiled once", () -> registry.compile(template));
+
+        assertThat(registry.compile(template)).isSameAs(registry.compile(template));
+        assertThat(reusedPerRequest).isLessThan(compiledPerRequest);
+    }
+
+    private double cpuMicrosPerRequest(String name, Supplier<KernelFunction<String>> function) {
+        for (int i = 0; i < WARM_UP_REQUESTS; i++) {
+            function.get();
+        }
+        int functions = 0;
+        long start = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            functions += function.get() == null ? 0 : 1;
+        }
+        double micros = (threads.getCurrentThreadCpuTime() - start) / 1e3 / MEASURED_REQUESTS;
+
+        assertThat(functions).isEqualTo(MEASURED_REQUESTS);
+        System.out.printf("%-20s %10.3f µs CPU/request%n", name, micros);
+        return micros;
+    }
+
+    private static String template(String name) throws IOException {
+        try (InputStream in = PromptFunctionRegistryBenchmark.class.getResourceAsStream("/prompts/" + name + ".prompt")) {
+            assertThat(in).isNotNull();
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
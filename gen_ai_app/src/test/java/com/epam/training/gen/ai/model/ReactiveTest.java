@@ -0,0 +1,112 @@
+package com.epam.training.gen.ai.model;
+
+import com.google.common.util.concurrent.ForwardingListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactiveTest {
+
+    private final Scheduler scheduler = Schedulers.newSingle("reactive-test");
+
+    @AfterEach
+    void disposeScheduler() {
+        scheduler.dispose();
+    }
+
+    @Test
+    void emitsTheValueOnTheScheduler() {
+        SettableFuture<String> future = SettableFuture.create();
+
+        StepVerifier.create(Reactive.toMono(future, scheduler, Duration.ofSeconds(5))
+                        .map(value -> Thread.currentThread().getName() + ":" + value))
+                .then(() -> future.set("value"))
+                .assertNext(emitted -> assertThat(emitted).startsWith("reactive-test").endsWith(":value"))
+                .verifyComplete();
+    }
+
+    @Test
+    void propagatesTheFailureOfTheFuture() {
+        SettableFuture<String> future = SettableFuture.create();
+        IllegalStateException failure = new IllegalStateException("failed");
+
+        StepVerifier.create(Reactive.toMono(future, scheduler, Duration.ofSeconds(5)))
+                .then(() -> future.setException(failure))
+                .expectErrorMatches(error -> error == failure)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void disposeCancelsTheFutureWithInterruption() {
+        RecordingFuture<String> future = new RecordingFuture<>();
+
+        Disposable subscription = Reactive.toMono(future, scheduler, Duration.ofSeconds(5)).subscribe();
+        subscription.dispose();
+
+        assertThat(future.isCancelled()).isTrue();
+        assertThat(future.cancelledWith.get()).isTrue();
+    }
+
+    @Test
+    void deadlineCancelsTheFuture() {
+        RecordingFuture<String> future = new RecordingFuture<>();
+
+        StepVerifier.withVirtualTime(() -> Reactive.toMono(future, Schedulers.immediate(), Duration.ofSeconds(30)))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofSeconds(29))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
+
+        assertThat(future.isCancelled()).isTrue();
+        assertThat(future.cancelledWith.get()).isTrue();
+    }
+
+    @Test
+    void supplierIsCalledOnSubscription() {
+        SettableFuture<String> future = SettableFuture.create();
+        AtomicReference<Integer> calls = new AtomicReference<>(0);
+        Reactive reactive = new Reactive() {
+        };
+
+        var mono = reactive.toMono(() -> {
+            calls.updateAndGet(count -> count + 1);
+            return future;
+        });
+        assertThat(calls.get()).isZero();
+
+        StepVerifier.create(mono)
+                .then(() -> future.set("value"))
+                .expectNext("value")
+                .verifyComplete();
+        assertThat(calls.get()).isOne();
+    }
+
+    /**
+     * Records the argument of {@link #cancel(boolean)}.
+     */
+    private static final class RecordingFuture<T> extends ForwardingListenableFuture.SimpleForwardingListenableFuture<T> {
+
+        private final AtomicReference<Boolean> cancelledWith = new AtomicReference<>();
+
+        private RecordingFuture() {
+            super(SettableFuture.create());
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            cancelledWith.set(mayInterruptIfRunning);
+            return super.cancel(mayInterruptIfRunning);
+        }
+    }
+}
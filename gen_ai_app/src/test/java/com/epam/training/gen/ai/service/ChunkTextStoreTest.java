@@ -0,0 +1,168 @@
+package com.epam.training.gen.ai.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChunkTextStoreTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+    private static final int COMPRESSION_THRESHOLD = 64;
+    private static final int HEADER_SIZE = 13;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void storesShortTextsRawAndLongTextsDeflated() throws IOException {
+        String shortText = "A short chunk, stored as it is.";
+        String longText = "The quick brown fox jumps over the lazy dog. ".repeat(40);
+        // too short for deflate to save anything on random characters
+        String incompressible = randomText(80);
+
+        ChunkTextStore store = open(SEGMENT_SIZE);
+        store.put("short", shortText);
+        store.put("long", longText);
+        store.put("random", incompressible);
+
+        assertThat(store.get("short")).isEqualTo(shortText);
+        assertThat(store.get("long")).isEqualTo(longText);
+        assertThat(store.get("random")).isEqualTo(incompressible);
+        assertThat(store.get("missing")).isNull();
+        assertThat(store.getAll(List.of("short", "long", "missing")))
+                .containsOnly(Map.entry("short", shortText), Map.entry("long", longText));
+
+        store.close();
+        ByteBuffer segment = ByteBuffer.wrap(Files.readAllBytes(segment(0)));
+        int second = recordSize(segment, 0);
+        int third = second + recordSize(segment, second);
+        assertThat(codec(segment, 0)).isEqualTo((byte) 0);
+        assertThat(codec(segment, second)).isEqualTo((byte) 1);
+        assertThat(recordSize(segment, second)).isLessThan(longText.length());
+        assertThat(codec(segment, third)).isEqualTo((byte) 0);
+    }
+
+    @Test
+    void rebuildsTheIndexWhenReopened() throws IOException {
+        ChunkTextStore store = open(SEGMENT_SIZE);
+        store.put("a", "first text");
+        store.put("b", "second text ".repeat(20));
+        store.close();
+
+        ChunkTextStore reopened = open(SEGMENT_SIZE);
+
+        assertThat(reopened.size()).isEqualTo(2);
+        assertThat(reopened.get("a")).isEqualTo("first text");
+        assertThat(reopened.get("b")).isEqualTo("second text ".repeat(20));
+        reopened.put("c", "third text");
+        reopened.close();
+        assertThat(open(SEGMENT_SIZE).getAll(List.of("a", "b", "c"))).hasSize(3);
+    }
+
+    @Test
+    void ignoresARecordWhoseIdLengthWasNeverWritten() throws IOException {
+        ChunkTextStore store = open(SEGMENT_SIZE);
+        store.put("complete", "written in full");
+        store.put("torn", "written up to the id length");
+        store.close();
+        int tornOffset = recordSize(ByteBuffer.wrap(Files.readAllBytes(segment(0))), 0);
+        try (FileChannel channel = FileChannel.open(segment(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES), tornOffset);
+        }
+
+        ChunkTextStore reopened = open(SEGMENT_SIZE);
+
+        assertThat(reopened.size()).isOne();
+        assertThat(reopened.get("complete")).isEqualTo("written in full");
+        assertThat(reopened.get("torn")).isNull();
+        // the next record overwrites the torn one
+        reopened.put("next", "after the crash");
+        reopened.close();
+        ChunkTextStore recovered = open(SEGMENT_SIZE);
+        assertThat(recovered.size()).isEqualTo(2);
+        assertThat(recovered.get("next")).isEqualTo("after the crash");
+    }
+
+    @Test
+    void rollsOverToANewSegmentWhenTheCurrentOneIsFull() throws IOException {
+        ChunkTextStore store = open(256);
+        List<String> texts = IntStream.range(0, 10).mapToObj(i -> randomText(50 + i)).toList();
+        for (int i = 0; i < texts.size(); i++) {
+            store.put("id-" + i, texts.get(i));
+        }
+        store.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.count()).isGreaterThan(1);
+        }
+        ChunkTextStore reopened = open(256);
+        assertThat(reopened.size()).isEqualTo(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            assertThat(reopened.get("id-" + i)).isEqualTo(texts.get(i));
+        }
+    }
+
+    @Test
+    void replacingATextKeepsTheLatestOne() throws IOException {
+        ChunkTextStore store = open(SEGMENT_SIZE);
+        store.put("id", "old text");
+        store.put("id", "new text");
+
+        assertThat(store.size()).isOne();
+        assertThat(store.get("id")).isEqualTo("new text");
+        store.close();
+        assertThat(open(SEGMENT_SIZE).get("id")).isEqualTo("new text");
+    }
+
+    @Test
+    void rejectsATextLargerThanASegment() throws IOException {
+        ChunkTextStore store = open(256);
+
+        assertThatThrownBy(() -> store.put("big", randomText(1000)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(store.size()).isZero();
+        store.put("small", "still fits");
+        assertThat(store.get("small")).isEqualTo("still fits");
+    }
+
+    private ChunkTextStore open(int segmentSize) throws IOException {
+        return new ChunkTextStore(directory, segmentSize, COMPRESSION_THRESHOLD, 6);
+    }
+
+    private Path segment(int index) {
+        return directory.resolve(String.format("segment-%05d.dat", index));
+    }
+
+    private static int recordSize(ByteBuffer segment, int offset) {
+        int idLength = segment.getInt(offset);
+        int dataLength = segment.getInt(offset + Integer.BYTES + idLength + 1 + Integer.BYTES);
+        return HEADER_SIZE + idLength + dataLength;
+    }
+
+    private static byte codec(ByteBuffer segment, int offset) {
+        return segment.get(offset + Integer.BYTES + segment.getInt(offset));
+    }
+
+    private static String randomText(int length) {
+        Random random = new Random(length);
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append((char) ('!' + random.nextInt(94)));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package com.epam.training.gen.ai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 20_000;
+    private static final int VIRTUAL_NODES = 128;
+
+    private final List<String> keys = IntStream.range(0, KEYS)
+            .mapToObj(i -> UUID.nameUUIDFromBytes(("key-" + i).getBytes()).toString())
+            .toList();
+
+    @Test
+    void spreadsKeysEvenlyOverTheNodes() {
+        ConsistentHashRing<String> ring = ring(4);
+
+        Map<String, Integer> counts = new HashMap<>();
+        keys.forEach(key -> counts.merge(ring.get(key), 1, Integer::sum));
+
+        assertThat(counts).hasSize(4);
+        double mean = KEYS / 4.0;
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween((int) (mean * 0.75), (int) (mean * 1.25)));
+    }
+
+    @Test
+    void addingANodeOnlyMovesKeysToTheNewNode() {
+        ConsistentHashRing<String> before = ring(4);
+        ConsistentHashRing<String> after = ring(5);
+
+        int moved = 0;
+        for (String key : keys) {
+            String owner = after.get(key);
+            if (!owner.equals(before.get(key))) {
+                assertThat(owner).isEqualTo("shard-4");
+                moved++;
+            }
+        }
+
+        // a fifth node takes over about a fifth of the keys
+        assertThat(moved).isBetween((int) (KEYS * 0.12), (int) (KEYS * 0.28));
+    }
+
+    @Test
+    void removingANodeOnlyMovesItsKeys() {
+        ConsistentHashRing<String> before = ring(4);
+        ConsistentHashRing<String> after = ring(3);
+
+        for (String key : keys) {
+            String owner = before.get(key);
+            if (!owner.equals("shard-3")) {
+                assertThat(after.get(key)).isEqualTo(owner);
+            }
+        }
+    }
+
+    @Test
+    void assignsAKeyToTheSameNodeInEveryRing() {
+        String key = keys.get(0);
+
+        assertThat(ring(4).get(key)).isEqualTo(ring(4).get(key));
+    }
+
+    @Test
+    void rejectsARingWithoutNodes() {
+        assertThatThrownBy(() -> new ConsistentHashRing<>(List.<String>of(), Function.identity(), VIRTUAL_NODES))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ConsistentHashRing<String> ring(int nodes) {
+        List<String> names = IntStream.range(0, nodes).mapToObj(i -> "shard-" + i).toList();
+        return new ConsistentHashRing<>(names, Function.identity(), VIRTUAL_NODES);
+    }
+}
@@ -0,0 +1,115 @@
+package com.epam.training.gen.ai.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+class IncrementalJsonParserTest {
+
+    @Test
+    void showsAStringValueWhileItGrows() {
+        IncrementalJsonParser parser = new IncrementalJsonParser();
+
+        assertThat(parser.feed("{\"response\": \"")).isTrue();
+        assertThat(parser.getFields()).containsExactly(entry("response", ""));
+        assertThat(parser.feed("Hello, ")).isTrue();
+        assertThat(parser.feed("world\"}")).isTrue();
+
+        assertThat(parser.getFields()).containsExactly(entry("response", "Hello, world"));
+        assertThat(parser.isComplete()).isTrue();
+        assertThat(parser.getText()).isEqualTo("{\"response\": \"Hello, world\"}");
+    }
+
+    @Test
+    void readsEscapesSplitAcrossChunks() {
+        IncrementalJsonParser parser = new IncrementalJsonParser();
+
+        parser.feed("{\"response\":\"say \\");
+        assertThat(parser.getFields()).containsExactly(entry("response", "say "));
+        parser.feed("\"hi\\");
+        parser.feed("\" and\\");
+        parser.feed("n\\\\bye\"}");
+
+        assertThat(parser.getFields()).containsExactly(entry("response", "say \"hi\" and\n\\bye"));
+        assertThat(parser.isComplete()).isTrue();
+    }
+
+    @Test
+    void readsUnicodeEscapesSplitAcrossChunks() {
+        IncrementalJsonParser parser = new IncrementalJsonParser();
+
+        parser.feed("{\"response\":\"caf\\u0");
+        assertThat(parser.getFields()).containsExactly(entry("response", "caf"));
+        parser.feed("0");
+        parser.feed("e9 \\uD83D\\u");
+        parser.feed("DE42\"}");
+
+        assertThat(parser.getFields()).containsExactly(entry("response", "café 🙂"));
+    }
+
+    @Test
+    void readsTheSameFieldsWhateverTheChunking() {
+        String json = "{ \"response\" : \"a\\tb\\u00e9\" , \"score\" : 0.5, \"final\":true }";
+        IncrementalJsonParser whole = new IncrementalJsonParser();
+        whole.feed(json);
+
+        IncrementalJsonParser byCharacter = new IncrementalJsonParser();
+        json.chars().forEach(c -> byCharacter.feed(String.valueOf((char) c)));
+
+        assertThat(byCharacter.getFields()).isEqualTo(whole.getFields())
+                .containsExactly(entry("response", "a\tbé"), entry("score", "0.5"), entry("final", "true"));
+        assertThat(byCharacter.isComplete()).isTrue();
+    }
+
+    @Test
+    void readsScalarsAtTheEndOfTheObject() {
+        IncrementalJsonParser parser = new IncrementalJsonParser();
+
+        parser.feed("{\"response\":\"ok\",\"count\":4");
+        assertThat(parser.getFields()).doesNotContainKey("count");
+        assertThat(parser.feed("2")).isFalse();
+        assertThat(parser.feed(",\"final\":true,\"note\":null}")).isTrue();
+
+        assertThat(parser.getFields())
+                .containsExactly(entry("response", "ok"), entry("count", "42"), entry("final", "true"), entry("note", null));
+        assertThat(parser.isComplete()).isTrue();
+    }
+
+    @Test
+    void readsAScalarFollowedByWhitespace() {
+        IncrementalJsonParser parser = new IncrementalJsonParser();
+
+        parser.feed("{\"count\":7 \n");
+        assertThat(parser.getFields()).containsExactly(entry("count", "7"));
+        parser.feed("}");
+
+        assertThat(parser.isComplete()).isTrue();
+    }
+
+    @Test
+    void rejectsNestedObjects() {
+        IncrementalJsonParser parser = new IncrementalJsonParser();
+        parser.feed("{\"response\":\"ok\",\"details\": ");
+
+        assertThatThrownBy(() -> parser.feed("{\"a\":1}}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("details");
+    }
+
+    @Test
+    void rejectsArrays() {
+        IncrementalJsonParser parser = new IncrementalJsonParser();
+
+        assertThatThrownBy(() -> parser.feed("{\"items\":[1,2]}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("items");
+    }
+
+    @Test
+    void rejectsTextThatIsNotAnObject() {
+        assertThatThrownBy(() -> new IncrementalJsonParser().feed("Sure! {\"response\":\"ok\"}"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
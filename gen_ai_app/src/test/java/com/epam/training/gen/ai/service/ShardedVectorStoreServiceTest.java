@@ -0,0 +1,224 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.config.ShardingProperties;
+import com.epam.training.gen.ai.model.ScoredText;
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.qdrant.client.grpc.Points.PointId;
+import io.qdrant.client.grpc.Points.PointStruct;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedVectorStoreServiceTest {
+
+    private static final List<Float> EMBEDDING = List.of(0.1f, 0.2f, 0.3f);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ShardingProperties shardingProperties = new ShardingProperties();
+    private final Map<String, FakeShard> shards = new ConcurrentHashMap<>();
+    private Duration writeLatency = Duration.ZERO;
+
+    @Test
+    void mergeTopKKeepsTheBestScoresAndCountsEveryPointOnce() {
+        List<ScoredText> first = List.of(scored("a", 0.9f), scored("b", 0.5f));
+        List<ScoredText> second = List.of(scored("a", 0.9f), scored("c", 0.7f), scored("d", 0.1f));
+
+        List<ScoredText> merged = ShardedVectorStoreService.mergeTopK(List.of(first, second), 3);
+
+        assertThat(merged).extracting(ScoredText::getId).containsExactly("a", "c", "b");
+        assertThat(ShardedVectorStoreService.mergeTopK(List.of(first, second), 0)).isEmpty();
+    }
+
+    @Test
+    void searchMergesTheResultsOfAllShards() {
+        ShardedVectorStoreService store = store(3);
+        shard(0).searchResult = Mono.just(List.of(scored("a", 0.9f), scored("d", 0.2f)));
+        shard(1).searchResult = Mono.just(List.of(scored("b", 0.8f)));
+        shard(2).searchResult = Mono.just(List.of(scored("c", 0.7f)));
+
+        StepVerifier.create(store.searchWithScores(EMBEDDING, 3, SearchFilter.NONE))
+                .assertNext(results -> assertThat(results).extracting(ScoredText::getId).containsExactly("a", "b", "c"))
+                .verifyComplete();
+        assertThat(meterRegistry.counter("genai.vector.search.partial").count()).isZero();
+    }
+
+    @Test
+    void searchReturnsPartialResultsWhenAShardTimesOut() {
+        shardingProperties.setShardTimeout(Duration.ofMillis(100));
+        ShardedVectorStoreService store = store(3);
+        shard(0).searchResult = Mono.never();
+        shard(1).searchResult = Mono.just(List.of(scored("b", 0.8f)));
+        shard(2).searchResult = Mono.just(List.of(scored("c", 0.7f)));
+
+        StepVerifier.create(store.searchWithScores(EMBEDDING, 3, SearchFilter.NONE))
+                .assertNext(results -> assertThat(results).extracting(ScoredText::getId).containsExactly("b", "c"))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        assertThat(meterRegistry.counter("genai.vector.search.partial").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("genai.vector.shard.search",
+                "shard", "test-shard-0", "outcome", "timeout").count()).isEqualTo(1);
+    }
+
+    @Test
+    void searchFailsOnATimeoutWhenPartialResultsAreNotAllowed() {
+        shardingProperties.setShardTimeout(Duration.ofMillis(100));
+        shardingProperties.setAllowPartialResults(false);
+        ShardedVectorStoreService store = store(2);
+        shard(0).searchResult = Mono.never();
+        shard(1).searchResult = Mono.just(List.of(scored("b", 0.8f)));
+
+        StepVerifier.create(store.searchWithScores(EMBEDDING, 3, SearchFilter.NONE))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void searchFailsWhenNoShardAnswers() {
+        shardingProperties.setShardTimeout(Duration.ofMillis(100));
+        ShardedVectorStoreService store = store(2);
+        shard(0).searchResult = Mono.never();
+        shard(1).searchResult = Mono.error(new IllegalStateException("unavailable"));
+
+        StepVerifier.create(store.searchWithScores(EMBEDDING, 3, SearchFilter.NONE))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void upsertPicksTheShardWhenSubscribed() {
+        ShardedVectorStoreService store = store(2);
+        List<Mono<Void>> upserts = ids(0, 50).stream()
+                .map(id -> store.upsert(id, "text", EMBEDDING, Map.of()))
+                .toList();
+
+        StepVerifier.create(store.reshard(3))
+                .assertNext(status -> assertThat(status.state()).isEqualTo(ShardedVectorStoreService.ReshardStatus.DONE))
+                .verifyComplete();
+        Flux.concat(upserts).blockLast();
+
+        assertStoredOnce(ids(0, 50));
+        // a repair pass finds nothing to move when every point went to its owner in the new ring
+        StepVerifier.create(store.reshard(3))
+                .assertNext(status -> assertThat(status.movedPoints()).isZero())
+                .verifyComplete();
+    }
+
+    @Test
+    void reshardMovesAllPointsWhileWritesAreInFlight() {
+        writeLatency = Duration.ofMillis(2);
+        ShardedVectorStoreService store = store(3);
+        Flux.fromIterable(ids(0, 200))
+                .flatMap(id -> store.upsert(id, "text " + id, EMBEDDING, Map.of()), 16)
+                .blockLast();
+
+        Mono<Void> writes = Flux.fromIterable(ids(200, 400))
+                .flatMap(id -> store.upsert(id, "text " + id, EMBEDDING, Map.of()), 8)
+                .then()
+                .subscribeOn(Schedulers.boundedElastic());
+        Mono<ShardedVectorStoreService.ReshardStatus> reshard = Mono.delay(Duration.ofMillis(20))
+                .then(store.reshard(2));
+
+        StepVerifier.create(Mono.zip(writes.thenReturn(true), reshard))
+                .assertNext(result -> {
+                    assertThat(result.getT2().state()).isEqualTo(ShardedVectorStoreService.ReshardStatus.DONE);
+                    assertThat(result.getT2().movedPoints()).isPositive();
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(30));
+
+        assertThat(shard(2).dropped).isTrue();
+        assertThat(shard(2).points).isEmpty();
+        assertStoredOnce(ids(0, 400));
+        StepVerifier.create(store.reshard(2))
+                .assertNext(status -> assertThat(status.movedPoints()).isZero())
+                .verifyComplete();
+    }
+
+    private ShardedVectorStoreService store(int shardCount) {
+        shardingProperties.setShards(shardCount);
+        return new ShardedVectorStoreService(null, name -> shards.computeIfAbsent(name, FakeShard::new),
+                "test", shardingProperties, meterRegistry);
+    }
+
+    private FakeShard shard(int index) {
+        return shards.get("test-shard-" + index);
+    }
+
+    private void assertStoredOnce(List<String> ids) {
+        List<String> stored = new ArrayList<>();
+        shards.values().forEach(shard -> stored.addAll(shard.points.keySet()));
+        assertThat(stored).containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    private static List<String> ids(int from, int to) {
+        return IntStream.range(from, to)
+                .mapToObj(i -> UUID.nameUUIDFromBytes(("point-" + i).getBytes()).toString())
+                .toList();
+    }
+
+    private static ScoredText scored(String id, float score) {
+        return ScoredText.builder().id(id).text("text " + id).payload(Map.of()).score(score).build();
+    }
+
+    /**
+     * Shard keeping its points in memory, with configurable search results.
+     */
+    private final class FakeShard extends QdrantVectorStoreService {
+
+        private final Map<String, PointStruct> points = new ConcurrentHashMap<>();
+        private volatile Mono<List<ScoredText>> searchResult = Mono.just(List.of());
+        private volatile boolean dropped;
+
+        private FakeShard(String name) {
+            super(null, name);
+        }
+
+        @Override
+        public Mono<Void> ensureCollection() {
+            return Mono.fromRunnable(() -> dropped = false);
+        }
+
+        @Override
+        public Mono<Void> upsertPoints(List<PointStruct> batch) {
+            return Mono.delay(writeLatency)
+                    .then(Mono.fromRunnable(() -> batch.forEach(point -> points.put(idOf(point.getId()), point))));
+        }
+
+        @Override
+        public Mono<Void> delete(List<PointId> ids) {
+            return Mono.fromRunnable(() -> ids.forEach(id -> points.remove(idOf(id))));
+        }
+
+        @Override
+        public Flux<List<PointStruct>> scrollAll(int pageSize) {
+            return Flux.defer(() -> Flux.fromIterable(Lists.partition(List.copyOf(points.values()), pageSize)));
+        }
+
+        @Override
+        public Mono<Void> dropCollection() {
+            return Mono.fromRunnable(() -> {
+                points.clear();
+                dropped = true;
+            });
+        }
+
+        @Override
+        public Mono<List<ScoredText>> searchWithScores(List<Float> queryEmbedding, int limit, SearchFilter filter) {
+            return searchResult;
+        }
+    }
+}
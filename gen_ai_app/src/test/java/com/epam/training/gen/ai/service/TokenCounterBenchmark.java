@@ -0,0 +1,83 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.model.TokenEncoding;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.function.ToIntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Single-threaded throughput of {@link TokenCounter} on short prompts and long documents, for both
+ * encodings. The benchmark is not part of the regular test run; run it with
+ * {@code mvn test -Dtest=TokenCounterBenchmark -Dbenchmark=true} and read the MB/s per core from the
+ * output. Every case is warmed up before it is measured, and the token total is checked so the JIT
+ * cannot drop the counting.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TokenCounterBenchmark {
+
+    private static final int WARM_UP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final String SHORT_PROMPT = "Turn on the light in the kitchen and tell me the weather in Berlin tomorrow.";
+    private static final String[] WORDS = {
+            "the", "model", "returns", "a", "vector", "of", "1536", "floats", "for", "every", "chunk", "and",
+            "naïve", "café", "tokens", "can't", "won't", "HTTP/2", "{\"id\":", "42}", "—", "日本語", "🙂", "\n\n"
+    };
+
+    private final TokenCounter tokenCounter = new TokenCounter();
+
+    @Test
+    void countsShortPrompts() {
+        for (TokenEncoding encoding : TokenEncoding.values()) {
+            report("short prompts", encoding, SHORT_PROMPT, 100_000, text -> tokenCounter.count(text, encoding));
+        }
+    }
+
+    @Test
+    void countsLongDocuments() {
+        String document = document(1 << 20);
+        for (TokenEncoding encoding : TokenEncoding.values()) {
+            report("long document", encoding, document, 5, text -> tokenCounter.count(text, encoding));
+        }
+    }
+
+    private static void report(String name, TokenEncoding encoding, String text, int callsPerRound,
+                               ToIntFunction<String> counter) {
+        for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+            run(text, callsPerRound, counter);
+        }
+        long tokens = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            tokens += run(text, callsPerRound, counter);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long calls = (long) MEASURED_ROUNDS * callsPerRound;
+        double megabytes = calls * text.getBytes(StandardCharsets.UTF_8).length / 1e6;
+
+        assertThat(tokens).isPositive();
+        System.out.printf("%-14s %-12s %10.1f MB/s %12.0f calls/s %10.0f ns/call%n", name, encoding,
+                megabytes / seconds, calls / seconds, seconds * 1e9 / calls);
+    }
+
+    private static long run(String text, int calls, ToIntFunction<String> counter) {
+        long tokens = 0;
+        for (int i = 0; i < calls; i++) {
+            tokens += counter.applyAsInt(text);
+        }
+        return tokens;
+    }
+
+    private static String document(int minLength) {
+        Random random = new Random(42);
+        StringBuilder document = new StringBuilder(minLength + 16);
+        while (document.length() < minLength) {
+            document.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(8) == 0 ? ". " : " ");
+        }
+        return document.toString();
+    }
+}